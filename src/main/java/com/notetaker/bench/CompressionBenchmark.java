@@ -0,0 +1,119 @@
+package com.notetaker.bench;
+
+import com.notetaker.model.CompressedTextConverter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * Compression Benchmark - storage and I/O saved vs CPU spent on note bodies
+ * Purpose: Run CompressedTextConverter over synthetic note bodies (log output,
+ * prose, incompressible base64 data) of several sizes and Deflate levels, and
+ * print how many bytes are stored (which is also what every read and write moves
+ * between MySQL and the application) next to the time it takes to compress and
+ * decompress one body. "wire us" is the transfer time saved per read on a link
+ * of the given bandwidth, to weigh against "decode us".
+ *
+ * Usage (after mvn package):
+ *   java -cp "target/classes:target/lib/*" com.notetaker.bench.CompressionBenchmark [iterations] [MB/s]
+ */
+public class CompressionBenchmark {
+    private static final int[] SIZES = {2_048, 8_192, 32_768, 61_440};
+    private static final int[] LEVELS = {1, 6, 9};
+    private static final String[] SEVERITIES = {"INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR"};
+    private static final String[] COMPONENTS = {"NoteServlet", "UnitOfWork", "HikariPool", "DashboardCache", "ReadRouter"};
+    private static final String[] MESSAGES = {
+            "Request completed in %d ms", "Connection %d returned to pool", "Cache miss for user %d",
+            "Retrying statement after deadlock, attempt %d", "Flushed %d entities"};
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        double bandwidthMBs = args.length > 1 ? Double.parseDouble(args[1]) : 125.0;
+        Random random = new Random(42);
+
+        System.out.printf("%-7s %7s %5s %9s %9s %7s %10s %10s %9s%n",
+                "corpus", "chars", "level", "raw B", "stored B", "ratio", "encode us", "decode us", "wire us");
+        for (String corpus : new String[]{"log", "prose", "random"}) {
+            for (int size : SIZES) {
+                String body = generate(corpus, size, random);
+                int raw = body.getBytes(StandardCharsets.UTF_8).length;
+                for (int level : LEVELS) {
+                    run(corpus, body, raw, level, iterations, bandwidthMBs);
+                }
+            }
+        }
+    }
+
+    private static void run(String corpus, String body, int raw, int level, int iterations, double bandwidthMBs) {
+        String stored = CompressedTextConverter.encode(body, 0, level);
+        if (!CompressedTextConverter.decode(stored).equals(body)) {
+            throw new IllegalStateException("Round trip failed for " + corpus);
+        }
+
+        long[] encodeNanos = new long[iterations];
+        long[] decodeNanos = new long[iterations];
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            stored = CompressedTextConverter.encode(body, 0, level);
+            encodeNanos[i] = System.nanoTime() - start;
+            start = System.nanoTime();
+            CompressedTextConverter.decode(stored);
+            decodeNanos[i] = System.nanoTime() - start;
+        }
+
+        int storedBytes = stored.length();
+        double savedMicros = (raw - storedBytes) / (bandwidthMBs * 1e6) * 1e6;
+        System.out.printf("%-7s %7d %5d %9d %9d %6.2fx %10.1f %10.1f %9.1f%n",
+                corpus, body.length(), level, raw, storedBytes, (double) raw / storedBytes,
+                median(encodeNanos) / 1e3, median(decodeNanos) / 1e3, savedMicros);
+    }
+
+    // The first half of the samples is warm-up
+    private static double median(long[] nanos) {
+        long[] measured = Arrays.copyOfRange(nanos, nanos.length / 2, nanos.length);
+        Arrays.sort(measured);
+        return measured[measured.length / 2];
+    }
+
+    private static String generate(String corpus, int size, Random random) {
+        StringBuilder body = new StringBuilder(size + 200);
+        switch (corpus) {
+            case "log" -> {
+                long millis = 1_750_000_000_000L;
+                while (body.length() < size) {
+                    millis += random.nextInt(500);
+                    body.append(new Timestamp(millis)).append(' ')
+                            .append(SEVERITIES[random.nextInt(SEVERITIES.length)]).append(" [")
+                            .append(COMPONENTS[random.nextInt(COMPONENTS.length)]).append("] ")
+                            .append(String.format(MESSAGES[random.nextInt(MESSAGES.length)], random.nextInt(10_000)))
+                            .append('\n');
+                }
+            }
+            case "prose" -> {
+                String[] words = new String[3000];
+                for (int i = 0; i < words.length; i++) {
+                    char[] word = new char[3 + random.nextInt(7)];
+                    for (int j = 0; j < word.length; j++) {
+                        word[j] = (char) ('a' + random.nextInt(26));
+                    }
+                    words[i] = new String(word);
+                }
+                while (body.length() < size) {
+                    // Zipf-like: common words far more often than rare ones
+                    body.append(words[(int) (Math.abs(random.nextGaussian()) * words.length / 5) % words.length])
+                            .append(random.nextInt(15) == 0 ? ".\n" : " ");
+                }
+            }
+            default -> {
+                byte[] data = new byte[size * 3 / 4];
+                random.nextBytes(data);
+                body.append(Base64.getEncoder().encodeToString(data));
+            }
+        }
+        body.setLength(size);
+        return body.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package com.notetaker.bench;
+
+import com.notetaker.db.MigrationRunner;
+import com.notetaker.util.HibernateUtil;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Query Plan Check - EXPLAIN the hot queries against the migrated schema
+ * Purpose: Apply pending migrations to the database from hibernate.cfg.xml, then
+ * run MySQL EXPLAIN on the queries behind login, registration, the dashboard
+ * listing and the note counter, and fail when one of them falls back to a full
+ * table scan or a filesort. Run it after adding a migration or changing one of
+ * these queries.
+ *
+ * Usage (after mvn package):
+ *   java -cp "target/classes:target/lib/*" com.notetaker.bench.QueryPlanCheck
+ *
+ * Exits with status 1 when a plan regressed. MySQL may still choose a scan on
+ * nearly empty tables, so check against a database with realistic data. The
+ * index choices themselves are covered on H2 by QueryPlanTest.
+ */
+public class QueryPlanCheck {
+
+    private static final Timestamp NOW = new Timestamp(System.currentTimeMillis());
+
+    // name -> SQL (as generated for the DAO queries) followed by sample parameters
+    private static final Map<String, Object[]> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("login by username", new Object[]{
+                "SELECT id, username, email, password FROM users WHERE username = ?", "plan-check"});
+        QUERIES.put("registration email check", new Object[]{
+                "SELECT id FROM users WHERE email = ?", "plan-check@example.com"});
+        QUERIES.put("dashboard first page", new Object[]{
+                "SELECT id, title, content_preview, updated_at FROM notes WHERE user_id = ? " +
+                        "ORDER BY updated_at DESC, id DESC LIMIT 21", 1L});
+        QUERIES.put("dashboard next page", new Object[]{
+                "SELECT id, title, content_preview, updated_at FROM notes WHERE user_id = ? " +
+                        "AND updated_at <= ? AND (updated_at < ? OR id < ?) " +
+                        "ORDER BY updated_at DESC, id DESC LIMIT 21", 1L, NOW, NOW, Long.MAX_VALUE});
+        QUERIES.put("note count", new Object[]{
+                "SELECT note_count FROM user_stats WHERE user_id = ?", 1L});
+        QUERIES.put("note count fallback", new Object[]{
+                "SELECT COUNT(*) FROM notes WHERE user_id = ?", 1L});
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean regressed = false;
+        try {
+            new MigrationRunner(HibernateUtil.getDataSource()).migrate();
+
+            try (Connection connection = HibernateUtil.getDataSource().getConnection()) {
+                String product = connection.getMetaData().getDatabaseProductName();
+                if (!product.toLowerCase().contains("mysql")) {
+                    System.err.println("EXPLAIN output is only checked on MySQL, not " + product);
+                    return;
+                }
+                for (Map.Entry<String, Object[]> entry : QUERIES.entrySet()) {
+                    regressed |= !explain(connection, entry.getKey(), entry.getValue());
+                }
+            }
+        } finally {
+            HibernateUtil.shutdown();
+        }
+
+        if (regressed) {
+            System.err.println("\nOne or more queries no longer use an index");
+            System.exit(1);
+        }
+        System.out.println("\nAll query plans use an index");
+    }
+
+    /**
+     * Print the plan of one query; returns false when it scans a whole table or sorts
+     */
+    private static boolean explain(Connection connection, String name, Object[] query) throws SQLException {
+        boolean ok = true;
+        String sql = (String) query[0];
+        System.out.printf("%n%s%n  %s%n", name, sql);
+
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 1; i < query.length; i++) {
+                explain.setObject(i, query[i]);
+            }
+
+            try (ResultSet plan = explain.executeQuery()) {
+                while (plan.next()) {
+                    String table = plan.getString("table");
+                    String type = plan.getString("type");
+                    String key = plan.getString("key");
+                    String extra = plan.getString("Extra");
+                    System.out.printf("  -> table=%s type=%s key=%s rows=%s extra=%s%n",
+                            table, type, key, plan.getString("rows"), extra);
+
+                    if ("ALL".equals(type) || (type != null && key == null)) {
+                        System.out.println("  !! full table scan");
+                        ok = false;
+                    }
+                    if (extra != null && extra.contains("Using filesort")) {
+                        System.out.println("  !! filesort");
+                        ok = false;
+                    }
+                }
+            }
+        }
+        return ok;
+    }
+}
@@ -0,0 +1,169 @@
+package com.notetaker.bench;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UserDAO;
+import com.notetaker.model.Note;
+import com.notetaker.model.User;
+import com.notetaker.search.SearchMode;
+import com.notetaker.util.HibernateUtil;
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Search Benchmark - compare the note search backends on a seeded dataset
+ * Purpose: Seed a throwaway user with synthetic notes in the database from
+ * hibernate.cfg.xml, time LIKE, FULLTEXT and in-process index searches over
+ * the same random queries, then delete the seeded data again.
+ *
+ * Usage (after mvn package):
+ *   java -cp "target/classes:target/lib/*" com.notetaker.bench.SearchBenchmark [notes] [queries]
+ *
+ * FULLTEXT numbers are only meaningful once db/notes_fulltext.sql has been applied,
+ * otherwise that mode silently measures its LIKE fallback.
+ */
+public class SearchBenchmark {
+    private static final int VOCABULARY_SIZE = 5000;
+    private static final int WORDS_PER_NOTE = 120;
+    private static final int WARMUP_QUERIES = 20;
+    private static final int INSERT_BATCH_SIZE = 500;
+
+    public static void main(String[] args) {
+        int noteCount = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int queryCount = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        Random random = new Random(42);
+        String[] vocabulary = buildVocabulary(random);
+
+        UserDAO userDAO = new UserDAO();
+        NoteDAO noteDAO = new NoteDAO();
+        String username = "bench_" + System.currentTimeMillis();
+        User user = new User(username, username + "@bench.local", "benchmark-only");
+        if (!userDAO.saveUser(user)) {
+            System.err.println("Could not create benchmark user, check the database connection");
+            return;
+        }
+
+        try {
+            long seedStart = System.nanoTime();
+            seedNotes(user.getId(), noteCount, vocabulary, random);
+            System.out.printf("Seeded %d notes in %.1f s%n", noteCount, (System.nanoTime() - seedStart) / 1e9);
+
+            long indexStart = System.nanoTime();
+            noteDAO.rebuildSearchIndex();
+            System.out.printf("Built search index in %.1f s%n", (System.nanoTime() - indexStart) / 1e9);
+
+            List<String> queries = new ArrayList<>();
+            for (int i = 0; i < queryCount; i++) {
+                queries.add(vocabulary[(int) (Math.abs(random.nextGaussian()) * VOCABULARY_SIZE / 4) % VOCABULARY_SIZE]);
+            }
+
+            System.out.printf("%n%-10s %10s %10s %10s %10s %10s%n", "mode", "avg ms", "p50 ms", "p95 ms", "p99 ms", "hits");
+            for (SearchMode mode : new SearchMode[]{SearchMode.LIKE, SearchMode.FULLTEXT, SearchMode.INDEX}) {
+                run(noteDAO, user, mode, queries);
+            }
+        } finally {
+            deleteSeededData(user.getId());
+            HibernateUtil.shutdown();
+        }
+    }
+
+    private static void run(NoteDAO noteDAO, User user, SearchMode mode, List<String> queries) {
+        for (int i = 0; i < WARMUP_QUERIES && i < queries.size(); i++) {
+            noteDAO.searchNotes(user, queries.get(i), mode);
+        }
+
+        long[] nanos = new long[queries.size()];
+        long hits = 0;
+        for (int i = 0; i < queries.size(); i++) {
+            long start = System.nanoTime();
+            hits += noteDAO.searchNotes(user, queries.get(i), mode).size();
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+        double avg = Arrays.stream(nanos).average().orElse(0) / 1e6;
+        System.out.printf("%-10s %10.2f %10.2f %10.2f %10.2f %10.1f%n", mode, avg,
+                percentile(nanos, 0.50), percentile(nanos, 0.95), percentile(nanos, 0.99),
+                (double) hits / queries.size());
+    }
+
+    private static double percentile(long[] sortedNanos, double p) {
+        int index = (int) Math.min(sortedNanos.length - 1, Math.ceil(p * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(index, 0)] / 1e6;
+    }
+
+    private static String[] buildVocabulary(Random random) {
+        String[] words = new String[VOCABULARY_SIZE];
+        for (int i = 0; i < VOCABULARY_SIZE; i++) {
+            StringBuilder word = new StringBuilder();
+            int length = 4 + random.nextInt(6);
+            for (int j = 0; j < length; j++) {
+                word.append((char) ('a' + random.nextInt(26)));
+            }
+            words[i] = word.toString();
+        }
+        return words;
+    }
+
+    private static void seedNotes(Long userId, int noteCount, String[] vocabulary, Random random) {
+        try (Session session = HibernateUtil.getSessionFactoryForUser(userId).openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.doWork(connection -> {
+                try (PreparedStatement insert = connection.prepareStatement(
+                        "INSERT INTO notes (title, content, content_preview, user_id, created_at, updated_at) " +
+                                "VALUES (?, ?, ?, ?, ?, ?)")) {
+                    long now = System.currentTimeMillis();
+                    for (int i = 0; i < noteCount; i++) {
+                        StringBuilder content = new StringBuilder();
+                        for (int w = 0; w < WORDS_PER_NOTE; w++) {
+                            content.append(vocabulary[random.nextInt(VOCABULARY_SIZE)]).append(' ');
+                        }
+                        Timestamp at = new Timestamp(now - i * 1000L);
+                        insert.setString(1, "Note " + i + " " + vocabulary[random.nextInt(VOCABULARY_SIZE)]);
+                        insert.setString(2, content.toString());
+                        insert.setString(3, Note.previewOf(content.toString()));
+                        insert.setLong(4, userId);
+                        insert.setTimestamp(5, at);
+                        insert.setTimestamp(6, at);
+                        insert.addBatch();
+                        if ((i + 1) % INSERT_BATCH_SIZE == 0) {
+                            insert.executeBatch();
+                        }
+                    }
+                    insert.executeBatch();
+                }
+            });
+            transaction.commit();
+        }
+    }
+
+    private static void deleteSeededData(Long userId) {
+        try (Session session = HibernateUtil.getSessionFactoryForUser(userId).openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createNativeQuery("DELETE FROM notes WHERE user_id = :userId", Object.class)
+                    .addSynchronizedEntityClass(Note.class)
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+            transaction.commit();
+        } catch (Exception e) {
+            System.err.println("Could not delete benchmark notes for user " + userId + ": " + e.getMessage());
+        }
+        try (Session session = HibernateUtil.getSessionFactory().openSession()) {
+            Transaction transaction = session.beginTransaction();
+            session.createNativeQuery("DELETE FROM users WHERE id = :userId", Object.class)
+                    .addSynchronizedEntityClass(User.class)
+                    .setParameter("userId", userId)
+                    .executeUpdate();
+            transaction.commit();
+        } catch (Exception e) {
+            System.err.println("Could not delete benchmark data for user " + userId + ": " + e.getMessage());
+        }
+    }
+}
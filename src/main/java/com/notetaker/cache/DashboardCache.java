@@ -0,0 +1,105 @@
+package com.notetaker.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.notetaker.dao.NotePage;
+import com.notetaker.metrics.MetricsRegistry;
+import com.notetaker.model.NoteSummary;
+import com.notetaker.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Per-user dashboard result cache
+ * Purpose: Serve the first dashboard page and the note count of a user from
+ * memory while nothing of theirs has changed.
+ *
+ * Loads run inside the cache's per-key compute, and invalidate() waits for a
+ * running load of the same user to finish before removing it. NoteDAO
+ * invalidates only after its write has committed, so a load that raced with
+ * the write can never leave stale data behind - provided the loader reads in
+ * a transaction that starts inside the load, as NoteDAO.loadDashboard does.
+ * A loader joining the request's transaction could read a snapshot taken
+ * before the write and cache it after the invalidation.
+ */
+public final class DashboardCache {
+    private static final Logger logger = LoggerFactory.getLogger(DashboardCache.class);
+    private static final DashboardCache INSTANCE = new DashboardCache();
+
+    private final Cache<Long, Entry> cache;
+
+    private DashboardCache() {
+        long maxUsers = AppConfig.getLong("dashboard.cache.maxUsers", 10_000L);
+        long ttlSeconds = AppConfig.getLong("dashboard.cache.ttlSeconds", 300L);
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        MetricsRegistry.register("cache.dashboard", out -> {
+            CacheStats stats = cache.stats();
+            out.printf("dashboard_cache_hits_total %d%n", stats.hitCount());
+            out.printf("dashboard_cache_misses_total %d%n", stats.missCount());
+            out.printf("dashboard_cache_evictions_total %d%n", stats.evictionCount());
+            out.printf("dashboard_cache_entries %d%n", cache.estimatedSize());
+        });
+        logger.info("🗂️ Dashboard cache ready - max users: {}, TTL: {}s", maxUsers, ttlSeconds);
+    }
+
+    public static DashboardCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the cached dashboard of a user, loading it with the loader on a miss
+     */
+    public Entry get(Long userId, Function<Long, Entry> loader) {
+        return cache.get(userId, loader);
+    }
+
+    /**
+     * The cached dashboard of a user, or null without loading it
+     */
+    public Entry getIfPresent(Long userId) {
+        return cache.getIfPresent(userId);
+    }
+
+    /**
+     * Drop a user's cached dashboard, call after their write has committed
+     */
+    public void invalidate(Long userId) {
+        if (userId != null) {
+            cache.invalidate(userId);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Cached first dashboard page plus the user's total note count and the notes
+     * version (UserStats.version) they were read at
+     */
+    public static final class Entry {
+        private final NotePage<NoteSummary> firstPage;
+        private final long noteCount;
+        private final long version;
+
+        public Entry(NotePage<NoteSummary> firstPage, long noteCount, long version) {
+            this.firstPage = firstPage;
+            this.noteCount = noteCount;
+            this.version = version;
+        }
+
+        public NotePage<NoteSummary> getFirstPage() { return firstPage; }
+
+        public long getNoteCount() { return noteCount; }
+
+        public long getVersion() { return version; }
+    }
+}
@@ -0,0 +1,347 @@
+package com.notetaker.cache;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UpdateResult;
+import com.notetaker.metrics.MetricsRegistry;
+import com.notetaker.util.AppConfig;
+import com.notetaker.util.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Note draft buffer - write-behind for editor autosaves
+ * Purpose: Keep the latest autosaved title and content of each note being edited
+ * in memory and write it to the database only once the editor has been quiet for
+ * drafts.debounceSeconds, or at the latest drafts.maxDelaySeconds after the first
+ * unwritten save. However often an editor autosaves, a note gets at most one
+ * write per debounce pause and one per max delay while typing goes on.
+ *
+ * Pending drafts are also written when the note is saved explicitly (commit(),
+ * which replaces the draft), when its edit page is opened (flush()), when the
+ * editor's HTTP session ends (flushSession()) and on shutdown (shutdown()).
+ *
+ * A draft remembers the version the editor loaded and the version its own last
+ * write produced. Both count as the editor's base: an autosave written in the
+ * background is not a conflict for the same editor's next save, while a change
+ * from anywhere else still is (the write then reports CONFLICT as usual).
+ *
+ * A draft is always written in a unit of work of its own, also when a request
+ * triggers the write: the request goes on to read the notes version (an edit page
+ * must not answer 304 over a draft it just wrote), and a request that rolls back
+ * must not undo a write the draft already counts as done.
+ */
+public final class DraftBuffer {
+    private static final Logger logger = LoggerFactory.getLogger(DraftBuffer.class);
+    private static final DraftBuffer INSTANCE = new DraftBuffer();
+
+    private final boolean enabled = AppConfig.getBoolean("drafts.enabled", true);
+    private final long debounceMillis = AppConfig.getLong("drafts.debounceSeconds", 5L) * 1000;
+    private final long maxDelayMillis = AppConfig.getLong("drafts.maxDelaySeconds", 30L) * 1000;
+    private final long idleMillis = AppConfig.getLong("drafts.idleMinutes", 120L) * 60 * 1000;
+    private final int maxDrafts = AppConfig.getInt("drafts.maxEntries", 10_000);
+
+    private final Map<Long, Draft> drafts = new ConcurrentHashMap<>();
+    private final NoteDAO noteDAO = new NoteDAO();
+    private final AtomicLong saves = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    // Runs the writes of drafts flushed from request threads, outside the request's transaction
+    private final ExecutorService writer = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "note-draft-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean closed;
+
+    private DraftBuffer() {
+        if (enabled) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "note-draft-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            scheduler.scheduleWithFixedDelay(this::flushDue, 1, 1, TimeUnit.SECONDS);
+        }
+        MetricsRegistry.register("drafts", out -> {
+            out.printf("draft_saves_total %d%n", saves.get());
+            out.printf("draft_writes_total %d%n", writes.get());
+            out.printf("draft_entries %d%n", drafts.size());
+        });
+        logger.info("📝 Draft buffer ready - enabled: {}, debounce: {}ms, max delay: {}ms",
+                enabled, debounceMillis, maxDelayMillis);
+    }
+
+    public static DraftBuffer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Buffer an autosave of a note. BUFFERED carries the note's version as of the
+     * draft's last write; CONFLICT and NOT_FOUND report what an earlier write of this
+     * draft ran into. When the buffer is off, shut down or full the save is written
+     * straight away.
+     */
+    public UpdateResult save(Long noteId, Long userId, String sessionId, long baseVersion,
+                             String title, String content) {
+        saves.incrementAndGet();
+        if (!enabled || closed || (drafts.size() >= maxDrafts && !drafts.containsKey(noteId))) {
+            writes.incrementAndGet();
+            return noteDAO.updateIfOwned(noteId, userId, title, content, baseVersion);
+        }
+
+        while (true) {
+            Draft draft = drafts.computeIfAbsent(noteId, id -> new Draft(noteId, userId, baseVersion));
+            boolean sameEditor;
+            synchronized (draft) {
+                if (draft.removed) {
+                    continue;
+                }
+                sameEditor = draft.userId.equals(userId)
+                        && (baseVersion == draft.loadedVersion || baseVersion == draft.version);
+                if (sameEditor) {
+                    if (draft.failure != null) {
+                        return draft.failure;
+                    }
+                    long now = System.currentTimeMillis();
+                    if (!draft.pending) {
+                        draft.pending = true;
+                        draft.firstPendingAt = now;
+                    }
+                    draft.title = title;
+                    draft.content = content;
+                    draft.sessionId = sessionId;
+                    draft.lastSavedAt = now;
+                    return new UpdateResult(UpdateResult.Status.BUFFERED, draft.version);
+                }
+            }
+            // Another editor's draft (or another base): write it out, then start over from this base
+            flush(draft);
+            drafts.remove(noteId, draft);
+            synchronized (draft) {
+                draft.removed = true;
+            }
+        }
+    }
+
+    /**
+     * Save a note explicitly, replacing its draft: pending autosaves are dropped and
+     * the update is checked against the draft's last write when the editor's version
+     * is one this draft knows.
+     */
+    public UpdateResult commit(Long noteId, Long userId, String title, String content, Long version) {
+        Long expectedVersion = version;
+        Draft draft = drafts.get(noteId);
+        if (draft != null && draft.userId.equals(userId)) {
+            drafts.remove(noteId, draft);
+            // Let a write of this draft that is under way finish first
+            synchronized (draft.flushLock) {
+                synchronized (draft) {
+                    draft.removed = true;
+                    draft.pending = false;
+                    if (version != null && (version == draft.loadedVersion || version == draft.version)) {
+                        expectedVersion = draft.version;
+                    }
+                }
+            }
+        }
+        writes.incrementAndGet();
+        return noteDAO.updateIfOwned(noteId, userId, title, content, expectedVersion);
+    }
+
+    /**
+     * Write the note's pending draft now, e.g. before the note is shown
+     */
+    public void flush(Long noteId, Long userId) {
+        Draft draft = drafts.get(noteId);
+        if (draft != null && draft.userId.equals(userId)) {
+            flush(draft);
+        }
+    }
+
+    /**
+     * Write and forget the drafts last saved from an HTTP session that ended
+     */
+    public void flushSession(String sessionId) {
+        for (Draft draft : new ArrayList<>(drafts.values())) {
+            if (sessionId.equals(draft.sessionId)) {
+                flush(draft);
+                forget(draft);
+            }
+        }
+    }
+
+    /**
+     * Stop the background writes and write every pending draft; later saves are
+     * written straight away
+     */
+    public synchronized void shutdown() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        List<Draft> remaining = new ArrayList<>(drafts.values());
+        for (Draft draft : remaining) {
+            flush(draft);
+            forget(draft);
+        }
+        writer.shutdown();
+        logger.info("✅ Draft buffer flushed {} draft(s) on shutdown - {} saves, {} writes in total",
+                remaining.size(), saves.get(), writes.get());
+    }
+
+    /**
+     * Write the drafts whose debounce or max delay has run out, and drop idle ones
+     */
+    private void flushDue() {
+        try {
+            long now = System.currentTimeMillis();
+            for (Draft draft : drafts.values()) {
+                boolean due;
+                boolean idle;
+                synchronized (draft) {
+                    due = draft.pending && (now - draft.lastSavedAt >= debounceMillis
+                            || now - draft.firstPendingAt >= maxDelayMillis);
+                    idle = !draft.pending && now - draft.lastSavedAt >= idleMillis;
+                }
+                if (due) {
+                    flush(draft);
+                } else if (idle) {
+                    forget(draft);
+                }
+            }
+        } catch (Exception e) {
+            // Never let an exception cancel the schedule
+            logger.error("❌ Draft flush failed", e);
+        }
+    }
+
+    private void flush(Draft draft) {
+        synchronized (draft.flushLock) {
+            String title;
+            String content;
+            long expectedVersion;
+            synchronized (draft) {
+                if (!draft.pending || draft.removed) {
+                    return;
+                }
+                title = draft.title;
+                content = draft.content;
+                expectedVersion = draft.version;
+                draft.pending = false;
+            }
+
+            UpdateResult result = write(draft, title, content, expectedVersion);
+
+            synchronized (draft) {
+                switch (result.getStatus()) {
+                    case UPDATED -> draft.version = result.getVersion();
+                    case CONFLICT, NOT_FOUND -> {
+                        logger.warn("⚠️ Draft of note ID: {} not written: {}", draft.noteId, result.getStatus());
+                        draft.failure = result;
+                        draft.pending = false;
+                    }
+                    default -> {
+                        // Try again on the next run unless a newer save is already waiting
+                        if (!draft.pending) {
+                            draft.pending = true;
+                            draft.title = title;
+                            draft.content = content;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Write a draft and commit it before returning. On a request thread the write
+     * runs on a writer thread, so it neither joins nor waits for the request's
+     * transaction.
+     */
+    private UpdateResult write(Draft draft, String title, String content, long expectedVersion) {
+        writes.incrementAndGet();
+        Future<UpdateResult> write = null;
+        if (UnitOfWork.isRequestScoped() && !closed) {
+            try {
+                write = writer.submit(
+                        () -> noteDAO.updateIfOwned(draft.noteId, draft.userId, title, content, expectedVersion));
+            } catch (RejectedExecutionException e) {
+                // Shut down meanwhile; write here like any other save after shutdown
+            }
+        }
+        if (write == null) {
+            return noteDAO.updateIfOwned(draft.noteId, draft.userId, title, content, expectedVersion);
+        }
+
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return write.get();
+                } catch (InterruptedException e) {
+                    // The write goes on regardless; its outcome must still reach the draft
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    logger.error("❌ Draft write of note ID: {} failed", draft.noteId, e.getCause());
+                    return new UpdateResult(UpdateResult.Status.FAILED, -1);
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void forget(Draft draft) {
+        synchronized (draft) {
+            if (draft.pending) {
+                return;
+            }
+            draft.removed = true;
+        }
+        drafts.remove(draft.noteId, draft);
+    }
+
+    /**
+     * The buffered state of one note
+     */
+    private static final class Draft {
+        final Long noteId;
+        final Long userId;
+        // The version the editor loaded, and the one the last write of this draft produced
+        final long loadedVersion;
+        long version;
+        String sessionId;
+        String title;
+        String content;
+        boolean pending;
+        long firstPendingAt;
+        long lastSavedAt = System.currentTimeMillis();
+        UpdateResult failure;
+        boolean removed;
+        // Held while the draft is written, so writes of one note never overlap
+        final Object flushLock = new Object();
+
+        Draft(Long noteId, Long userId, long loadedVersion) {
+            this.noteId = noteId;
+            this.userId = userId;
+            this.loadedVersion = loadedVersion;
+            this.version = loadedVersion;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.notetaker.dao;
+
+import java.util.Locale;
+
+/**
+ * Per-note result of a bulk note operation
+ */
+public enum BulkOutcome {
+    /** The note belonged to the user and was deleted */
+    DELETED,
+    /** No note with that id belongs to the user */
+    NOT_FOUND,
+    /** The statement failed and the whole bulk operation was rolled back */
+    FAILED;
+
+    /**
+     * Lower-case name used in JSON responses
+     */
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,22 @@
+package com.notetaker.dao;
+
+/**
+ * Outcome of a bulk note import
+ * Purpose: Report how many notes were committed and, when the import stopped
+ * early, why. Notes from batches committed before the failure stay imported.
+ */
+public final class ImportResult {
+    private final long imported;
+    private final String error;
+
+    public ImportResult(long imported, String error) {
+        this.imported = imported;
+        this.error = error;
+    }
+
+    public long getImported() { return imported; }
+
+    public String getError() { return error; }
+
+    public boolean isComplete() { return error == null; }
+}
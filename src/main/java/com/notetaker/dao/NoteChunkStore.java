@@ -0,0 +1,172 @@
+package com.notetaker.dao;
+
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteSummary;
+import com.notetaker.util.AppConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Note Chunk Store - bodies of large notes as ordered rows of note_chunks
+ * Purpose: Write a note body from a stream in notes.chunkSizeBytes pieces and
+ * read it back the same way, so a note of many MB is never held in memory as
+ * one String or byte array: at most one chunk is. Chunks are raw UTF-8 and may
+ * end in the middle of a character; only their concatenation is text.
+ *
+ * Works on the JDBC connection (and transaction) of the caller.
+ */
+final class NoteChunkStore {
+    static final int CHUNK_SIZE = AppConfig.getInt("notes.chunkSizeBytes", 256 * 1024);
+
+    private NoteChunkStore() {}
+
+    /**
+     * Store the whole stream as the note's chunks, replacing any it had.
+     * Throws IllegalArgumentException once more than maxBytes have been read.
+     */
+    static Written write(Connection connection, Long noteId, InputStream body, long maxBytes)
+            throws SQLException, IOException {
+        delete(connection, noteId);
+
+        long size = 0;
+        String preview = "";
+        byte[] chunk = new byte[CHUNK_SIZE];
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO note_chunks (note_id, seq, data) VALUES (?, ?, ?)")) {
+            int seq = 0;
+            int read;
+            while ((read = body.readNBytes(chunk, 0, chunk.length)) > 0) {
+                size += read;
+                if (size > maxBytes) {
+                    throw new IllegalArgumentException("Note is larger than " + maxBytes / (1024 * 1024) + " MB");
+                }
+                if (seq == 0) {
+                    preview = previewOf(chunk, read, read < chunk.length);
+                }
+                insert.setLong(1, noteId);
+                insert.setInt(2, seq++);
+                insert.setBytes(3, read == chunk.length ? chunk : Arrays.copyOf(chunk, read));
+                insert.executeUpdate();
+            }
+        }
+        return new Written(size, preview);
+    }
+
+    /**
+     * Remove a note's chunks (deleting the note removes them through the foreign key)
+     */
+    static void delete(Connection connection, Long noteId) throws SQLException {
+        try (PreparedStatement delete = connection.prepareStatement("DELETE FROM note_chunks WHERE note_id = ?")) {
+            delete.setLong(1, noteId);
+            delete.executeUpdate();
+        }
+    }
+
+    /**
+     * The note's body as a stream that fetches one chunk at a time, in order.
+     * Closing it releases the statement, not the connection.
+     */
+    static InputStream open(Connection connection, Long noteId) throws SQLException {
+        return new ChunkInputStream(connection.prepareStatement(
+                "SELECT data FROM note_chunks WHERE note_id = ? AND seq = ?"), noteId);
+    }
+
+    /**
+     * Listing preview from the first chunk; a character cut at the chunk's end is dropped
+     */
+    private static String previewOf(byte[] chunk, int length, boolean endOfInput) {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        CharBuffer head = CharBuffer.allocate(NoteSummary.PREVIEW_LENGTH + 1);
+        decoder.decode(ByteBuffer.wrap(chunk, 0, length), head, endOfInput);
+        head.flip();
+        return Note.previewOf(head.toString());
+    }
+
+    /**
+     * Size in bytes and listing preview of a body written by write()
+     */
+    record Written(long size, String preview) {}
+
+    private static final class ChunkInputStream extends InputStream {
+        private final PreparedStatement select;
+        private final Long noteId;
+        private int nextSeq;
+        private byte[] chunk = new byte[0];
+        private int position;
+        private boolean exhausted;
+
+        ChunkInputStream(PreparedStatement select, Long noteId) {
+            this.select = select;
+            this.noteId = noteId;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!fill()) {
+                return -1;
+            }
+            return chunk[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            int count = Math.min(length, chunk.length - position);
+            System.arraycopy(chunk, position, buffer, offset, count);
+            position += count;
+            return count;
+        }
+
+        // Load the next chunk once the current one is used up; false at the end of the body
+        private boolean fill() throws IOException {
+            while (position == chunk.length) {
+                if (exhausted) {
+                    return false;
+                }
+                try {
+                    select.setLong(1, noteId);
+                    select.setInt(2, nextSeq++);
+                    try (ResultSet row = select.executeQuery()) {
+                        if (row.next()) {
+                            chunk = row.getBytes(1);
+                        } else {
+                            chunk = new byte[0];
+                            exhausted = true;
+                        }
+                        position = 0;
+                    }
+                } catch (SQLException e) {
+                    throw new IOException("Could not read chunk " + (nextSeq - 1) + " of note " + noteId, e);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                select.close();
+            } catch (SQLException e) {
+                throw new IOException(e);
+            }
+        }
+    }
+}
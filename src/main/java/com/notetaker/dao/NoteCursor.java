@@ -0,0 +1,56 @@
+package com.notetaker.dao;
+
+import java.util.Date;
+
+/**
+ * Keyset (seek) pagination cursor for note listings
+ * Purpose: Remember the (updatedAt, id) of the last note on a page so the next
+ * page can be fetched with an index range seek instead of an OFFSET scan.
+ *
+ * The token form is "{updatedAtMillis}_{id}" and is safe to put in a URL.
+ */
+public final class NoteCursor {
+    private final Date updatedAt;
+    private final Long id;
+
+    public NoteCursor(Date updatedAt, Long id) {
+        if (updatedAt == null || id == null) {
+            throw new IllegalArgumentException("Cursor needs both updatedAt and id");
+        }
+        this.updatedAt = new Date(updatedAt.getTime());
+        this.id = id;
+    }
+
+    /**
+     * Parse a cursor token, returns null for missing or malformed tokens
+     */
+    public static NoteCursor parse(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        int separator = token.indexOf('_');
+        if (separator <= 0 || separator == token.length() - 1) {
+            return null;
+        }
+        try {
+            long millis = Long.parseLong(token.substring(0, separator));
+            long id = Long.parseLong(token.substring(separator + 1));
+            return new NoteCursor(new Date(millis), id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public String toToken() {
+        return updatedAt.getTime() + "_" + id;
+    }
+
+    public Date getUpdatedAt() { return new Date(updatedAt.getTime()); }
+
+    public Long getId() { return id; }
+
+    @Override
+    public String toString() {
+        return toToken();
+    }
+}
@@ -1,20 +1,63 @@
 package com.notetaker.dao;
 
+import com.notetaker.cache.DashboardCache;
+import com.notetaker.model.CompressedTextConverter;
 import com.notetaker.model.Note;
+import com.notetaker.model.NoteRevision;
+import com.notetaker.model.NoteSummary;
 import com.notetaker.model.User;
+import com.notetaker.model.UserStats;
+import com.notetaker.search.NoteSearchIndex;
+import com.notetaker.search.SearchMode;
+import com.notetaker.search.Tokenizer;
+import com.notetaker.util.AppConfig;
 import com.notetaker.util.HibernateUtil;
+import com.notetaker.util.TextPatch;
+import com.notetaker.util.UnitOfWork;
+import jakarta.persistence.LockModeType;
+import org.hibernate.Cache;
+import org.hibernate.CacheMode;
+import org.hibernate.Hibernate;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
 import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
 import org.hibernate.Transaction;
+import org.hibernate.query.NativeQuery;
 import org.hibernate.query.Query;
+import org.hibernate.type.StandardBasicTypes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Note Data Access Object
@@ -25,19 +68,44 @@ import java.util.List;
 public class NoteDAO {
     private static final Logger logger = LoggerFactory.getLogger(NoteDAO.class);
 
+    // Listing projection: reads the precomputed content_preview, never the content column.
+    // Rows the preview backfill has not reached yet fall back to a bounded SUBSTRING.
+    private static final String SUMMARY_SELECT =
+            "SELECT new com.notetaker.model.NoteSummary(n.id, n.title, " +
+                    "COALESCE(n.contentPreview, SUBSTRING(n.content, 1, " + (NoteSummary.PREVIEW_LENGTH + 1) + ")), " +
+                    "n.updatedAt) FROM Note n ";
+
+    private static final int SEARCH_LIMIT = 200;
+    private static final int INDEX_BATCH_SIZE = 1000;
+    // The most UTF-8 bytes the TEXT content column holds; imported bodies beyond it
+    // are stored as chunks like an upload to /note/upload
+    private static final int INLINE_MAX_BYTES = 65_535;
+    // Stores content the way the Note entity does, for updates written in plain SQL
+    private static final CompressedTextConverter CONTENT_CONVERTER = new CompressedTextConverter();
+
+    // MySQL error "Can't find FULLTEXT index matching the column list"
+    private static final int ER_FT_MATCHING_KEY_NOT_FOUND = 1191;
+    private static final long FULLTEXT_RECHECK_MILLIS = 5 * 60 * 1000L;
+    private static volatile long fulltextUnavailableUntil = 0L;
+
+    private final NoteSearchIndex searchIndex = NoteSearchIndex.getInstance();
+    private final DashboardCache dashboardCache = DashboardCache.getInstance();
+    private final SearchMode searchMode = SearchMode.fromConfig();
+    private final boolean fulltextBooleanMode = AppConfig.getBoolean("search.fulltext.booleanMode", false);
+    private final int exportFetchSize = AppConfig.getInt("export.fetchSize", 500);
+    private final int importBatchSize = AppConfig.getInt("import.batchSize", 500);
+    private final long uploadMaxBytes = AppConfig.getLong("notes.upload.maxBytes", 64L * 1024 * 1024);
+
     /**
      * Save a new note to database
      */
     public boolean saveNote(Note note) {
-        Session session = null;
-        Transaction transaction = null;
-
         String currentTime = getCurrentUTCTime();
         logger.info("💾 Saving note - Title: '{}' at: {}", note.getTitle(), currentTime);
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
+            boolean owner = UnitOfWork.begin(note.getUser().getId());
+            Session session = UnitOfWork.currentSession();
 
             // Don't manually set timestamps - let @PrePersist handle it
             // Or if your Note entity doesn't have @PrePersist, set them manually:
@@ -48,7 +116,13 @@ public class NoteDAO {
             }
 
             session.persist(note);
-            transaction.commit();
+            adjustNoteCount(session, note.getUser().getId(), 1);
+            UnitOfWork.recordWrite(note.getUser().getId());
+            UnitOfWork.afterCommit(() -> {
+                searchIndex.index(note);
+                dashboardCache.invalidate(note.getUser().getId());
+            });
+            UnitOfWork.commit(owner);
 
             logger.info("✅ Note saved successfully - ID: {} for user: {}",
                     note.getId(), note.getUser().getUsername());
@@ -56,83 +130,35 @@ public class NoteDAO {
 
         } catch (Exception e) {
             logger.error("❌ Error saving note", e);
-            if (transaction != null) {
-                try {
-                    transaction.rollback();
-                    logger.info("🔄 Transaction rolled back");
-                } catch (Exception rollbackEx) {
-                    logger.error("❌ Error during rollback", rollbackEx);
-                }
-            }
+            UnitOfWork.rollback();
             return false;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    logger.error("❌ Error closing session", closeEx);
-                }
-            }
         }
     }
 
     /**
-     * Update an existing note
+     * Update an existing note, provided nobody changed it since it was loaded: runs
+     * as one UPDATE ... WHERE id = ? AND version = ? (see updateIfOwned), and on
+     * success the note carries its new version. Returns false on a conflict too.
      */
     public boolean updateNote(Note note) {
-        Session session = null;
-        Transaction transaction = null;
-
-        String currentTime = getCurrentUTCTime();
-        logger.info("✏️ Updating note - ID: {} at: {}", note.getId(), currentTime);
-
-        try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
-
-            // Set updated timestamp manually (or let @PreUpdate handle it)
-            note.setUpdatedAt(new Date());
-
-            session.merge(note);
-            transaction.commit();
-
-            logger.info("✅ Note updated successfully - ID: {} for user: {}",
-                    note.getId(), note.getUser().getUsername());
-            return true;
-
-        } catch (Exception e) {
-            logger.error("❌ Error updating note - ID: {}", note.getId(), e);
-            if (transaction != null) {
-                try {
-                    transaction.rollback();
-                    logger.info("🔄 Transaction rolled back");
-                } catch (Exception rollbackEx) {
-                    logger.error("❌ Error during rollback", rollbackEx);
-                }
-            }
-            return false;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    logger.error("❌ Error closing session", closeEx);
-                }
-            }
+        UpdateResult result = updateIfOwned(note.getId(), note.getUser().getId(),
+                note.getTitle(), note.getContent(), note.getVersion());
+        if (result.isUpdated()) {
+            note.setVersion(result.getVersion());
         }
+        return result.isUpdated();
     }
 
     /**
      * Get all notes for a specific user
      */
     public List<Note> getNotesByUser(User user) {
-        Session session = null;
-
         String currentTime = getCurrentUTCTime();
         logger.info("📋 Fetching notes for user: {} at: {}", user.getUsername(), currentTime);
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
             Query<Note> query = session.createQuery(
                     "FROM Note WHERE user = :user ORDER BY updatedAt DESC",
                     Note.class
@@ -141,46 +167,499 @@ public class NoteDAO {
 
             List<Note> notes = query.list();
             logger.info("✅ Retrieved {} notes for user: {}", notes.size(), user.getUsername());
+            UnitOfWork.finish(owner);
             return notes;
 
         } catch (Exception e) {
             logger.error("❌ Error fetching notes for user: {}", user.getUsername(), e);
+            UnitOfWork.rollback();
             return new ArrayList<>();
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    logger.error("❌ Error closing session", closeEx);
-                }
-            }
         }
     }
 
     /**
-     * Get a note by its ID
+     * Get one page of a user's note summaries using keyset (seek) pagination on (updatedAt, id).
+     * Pass a null cursor for the first page. Each page is a bounded index range scan,
+     * so latency does not depend on how deep into the listing the user is. Rows are
+     * projected straight into NoteSummary, only a short head of the content is read.
      */
-    public Note getNoteById(Long id) {
-        Session session = null;
+    public NotePage<NoteSummary> getNoteSummaryPageByUser(User user, NoteCursor cursor, int pageSize) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("📋 Fetching note summaries page for user: {} after cursor: {} at: {}",
+                user.getUsername(), cursor, currentTime);
+
+        try {
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
+            NotePage<NoteSummary> page = querySummaryPage(session, user, cursor, pageSize);
+
+            logger.info("✅ Retrieved page of {} note summaries for user: {} (more: {})",
+                    page.getSize(), user.getUsername(), page.isHasMore());
+            UnitOfWork.finish(owner);
+            return page;
+
+        } catch (Exception e) {
+            logger.error("❌ Error fetching note summaries page for user: {}", user.getUsername(), e);
+            UnitOfWork.rollback();
+            return NotePage.empty();
+        }
+    }
 
+    /**
+     * Get a note by its ID, looked up on the shard of the user it should belong to.
+     * The lazy content is loaded too: callers render the note after the session ends.
+     */
+    public Note getNoteById(Long id, Long userId) {
         String currentTime = getCurrentUTCTime();
         logger.info("🔍 Fetching note by ID: {} at: {}", id, currentTime);
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
+            boolean owner = UnitOfWork.beginRead(userId);
+            Session session = UnitOfWork.currentSession();
             Note note = session.get(Note.class, id);
 
             if (note != null) {
+                Hibernate.initialize(note.getContent());
                 logger.info("✅ Note found - ID: {}, Title: '{}'", id, note.getTitle());
             } else {
                 logger.warn("⚠️ Note not found - ID: {}", id);
             }
 
+            UnitOfWork.finish(owner);
             return note;
 
         } catch (Exception e) {
             logger.error("❌ Error fetching note by ID: {}", id, e);
+            UnitOfWork.rollback();
             return null;
+        }
+    }
+
+    /**
+     * Update a note's title and content if it belongs to the given user and, when an
+     * expected version is given, is still at that version (optimistic locking; null
+     * skips the check). Runs as a single conditional UPDATE in plain SQL without
+     * loading the note: an HQL UPDATE would evict every note from the second-level
+     * cache, so only this note's entry is evicted, once the update has committed.
+     * Only when no row was updated is the version read, to tell a conflict (reported
+     * with the note's current version) from a missing note.
+     * A large note becomes a plain one again and its chunks are dropped. A null
+     * content changes the title only (large notes get a new body through writeLargeNote).
+     * With notes.revisions.enabled the row is read first (without a lock; the UPDATE
+     * then requires the version read), and the new state is recorded in the note's
+     * history as a delta from the one it replaces.
+     */
+    public UpdateResult updateIfOwned(Long id, Long userId, String title, String content, Long expectedVersion) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("✏️ Updating note if owned - ID: {} (version {}) by user ID: {} at: {}",
+                id, expectedVersion, userId, currentTime);
+
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
+
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            NoteRevisionStore.Current read = null;
+            Long checkedVersion = expectedVersion;
+            int updated;
+            boolean retry = false;
+            // The history needs the replaced state: it is read without a lock and the UPDATE
+            // requires the version read, so what was read is exactly what gets replaced. An
+            // unchecked update that lost a race with another write reads once more, locked,
+            // which also sees a newer version than a REPEATABLE READ snapshot would.
+            do {
+                if (NoteRevisionStore.ENABLED) {
+                    boolean lock = retry;
+                    read = session.doReturningWork(connection -> lock
+                            ? NoteRevisionStore.lockCurrent(connection, id, userId)
+                            : NoteRevisionStore.readCurrent(connection, id, userId));
+                    if (read != null && expectedVersion == null) {
+                        checkedVersion = read.version();
+                    }
+                }
+                Long version = checkedVersion;
+                updated = session.doReturningWork(connection ->
+                        updateRow(connection, id, userId, title, content, now, version));
+                retry = !retry && updated == 0 && expectedVersion == null && read != null;
+            } while (retry);
+            NoteRevisionStore.Current before = read;
+
+            UpdateResult result;
+            if (updated > 0) {
+                // A copy this session loaded earlier no longer matches the row, and the
+                // second-level cache keeps the old note until commit: read past both from here on
+                session.evict(session.getReference(Note.class, id));
+                session.setCacheMode(CacheMode.IGNORE);
+                // Known after a checked update with new content; otherwise read once
+                long currentVersion;
+                String indexed;
+                if (checkedVersion != null && content != null) {
+                    currentVersion = checkedVersion + 1;
+                    indexed = content;
+                } else {
+                    Object[] row = session.doReturningWork(connection -> readVersionAndPreview(connection, id));
+                    currentVersion = (Long) row[0];
+                    // Without the content at hand, the index gets the preview like any large note
+                    indexed = content != null ? content : (String) row[1];
+                }
+                if (content != null && (before == null || before.chunked())) {
+                    session.doWork(connection -> NoteChunkStore.delete(connection, id));
+                }
+                if (before != null) {
+                    session.doWork(connection ->
+                            NoteRevisionStore.record(connection, id, before, title, content, now));
+                }
+                adjustNoteCount(session, userId, 0);
+                UnitOfWork.recordWrite(userId);
+                Cache cache = session.getSessionFactory().getCache();
+                UnitOfWork.afterCommit(() -> {
+                    cache.evictEntityData(Note.class, id);
+                    searchIndex.index(id, userId, title, indexed, now, currentVersion);
+                    dashboardCache.invalidate(userId);
+                });
+                result = new UpdateResult(UpdateResult.Status.UPDATED, currentVersion);
+                logger.info("✅ Note updated successfully - ID: {} (now version {}) for user ID: {}",
+                        id, currentVersion, userId);
+            } else {
+                Long currentVersion = session.doReturningWork(connection -> readVersion(connection, id, userId));
+                if (currentVersion != null) {
+                    result = new UpdateResult(UpdateResult.Status.CONFLICT, currentVersion);
+                    logger.warn("⚠️ Note update conflict - ID: {}, expected version {}, current {}",
+                            id, expectedVersion, currentVersion);
+                } else {
+                    result = new UpdateResult(UpdateResult.Status.NOT_FOUND, -1);
+                    logger.warn("⚠️ Note not found or not owned - ID: {}, user ID: {}", id, userId);
+                }
+            }
+            UnitOfWork.commit(owner);
+            return result;
+
+        } catch (Exception e) {
+            logger.error("❌ Error updating note - ID: {}", id, e);
+            UnitOfWork.rollback();
+            return new UpdateResult(UpdateResult.Status.FAILED, -1);
+        }
+    }
+
+    /**
+     * The conditional UPDATE of updateIfOwned; a null version skips the version check
+     */
+    private static int updateRow(Connection connection, Long id, Long userId, String title, String content,
+                                 Timestamp now, Long version) throws SQLException {
+        String set = content != null
+                ? "title = ?, content = ?, content_preview = ?, chunked = FALSE, content_size = NULL, "
+                : "title = ?, ";
+        try (PreparedStatement update = connection.prepareStatement(
+                "UPDATE notes SET " + set + "updated_at = ?, version = version + 1 " +
+                        "WHERE id = ? AND user_id = ?" + (version != null ? " AND version = ?" : ""))) {
+            int index = 1;
+            update.setString(index++, title);
+            if (content != null) {
+                update.setString(index++, CONTENT_CONVERTER.convertToDatabaseColumn(content));
+                update.setString(index++, Note.previewOf(content));
+            }
+            update.setTimestamp(index++, now);
+            update.setLong(index++, id);
+            update.setLong(index++, userId);
+            if (version != null) {
+                update.setLong(index, version);
+            }
+            return update.executeUpdate();
+        }
+    }
+
+    /**
+     * The note's version if the user owns it, otherwise null. A locking read: inside
+     * a REPEATABLE READ transaction a plain one could return an older version than the
+     * one the UPDATE just missed.
+     */
+    private static Long readVersion(Connection connection, Long id, Long userId) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT version FROM notes WHERE id = ? AND user_id = ? FOR UPDATE")) {
+            select.setLong(1, id);
+            select.setLong(2, userId);
+            try (ResultSet row = select.executeQuery()) {
+                return row.next() ? row.getLong(1) : null;
+            }
+        }
+    }
+
+    /**
+     * The version and content preview of a note known to exist
+     */
+    private static Object[] readVersionAndPreview(Connection connection, Long id) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT version, content_preview FROM notes WHERE id = ?")) {
+            select.setLong(1, id);
+            try (ResultSet row = select.executeQuery()) {
+                row.next();
+                return new Object[] {row.getLong(1), row.getString(2)};
+            }
+        }
+    }
+
+    /**
+     * Apply an editor's patch to a note's content (and optionally set a new title; null
+     * keeps it), if the user owns the note and it is still at baseVersion. The note
+     * is read on the server and written back with the same conditional UPDATE as
+     * updateIfOwned, so a save only sends the changed text over the network.
+     * Throws IllegalArgumentException when the patch does not fit the stored content,
+     * the result is empty, or the note is a large one (those are replaced by upload).
+     */
+    public UpdateResult patchIfOwned(Long id, Long userId, long baseVersion, String title, TextPatch patch) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🩹 Patching note if owned - ID: {} (base version {}) by user ID: {} at: {}",
+                id, baseVersion, userId, currentTime);
+
+        String patched;
+        String newTitle;
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
+            Note note = session.get(Note.class, id);
+
+            if (note == null || !note.getUser().getId().equals(userId)) {
+                UnitOfWork.finish(owner);
+                logger.warn("⚠️ Note not found or not owned - ID: {}, user ID: {}", id, userId);
+                return new UpdateResult(UpdateResult.Status.NOT_FOUND, -1);
+            }
+            // A client whose copy of this version differs (e.g. line endings) conflicts too
+            if (note.getVersion() != baseVersion || (!note.isChunked() && !patch.matches(note.getContent()))) {
+                UnitOfWork.finish(owner);
+                logger.warn("⚠️ Note patch conflict - ID: {}, base version {}, current {}",
+                        id, baseVersion, note.getVersion());
+                return new UpdateResult(UpdateResult.Status.CONFLICT, note.getVersion());
+            }
+            if (note.isChunked()) {
+                throw new IllegalArgumentException("Large notes cannot be patched, upload the new content instead");
+            }
+
+            patched = patch.apply(note.getContent());
+            newTitle = title != null ? title : note.getTitle();
+            UnitOfWork.finish(owner);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Patch for note ID: {} refused: {}", id, e.getMessage());
+            UnitOfWork.rollback();
+            throw e;
+        } catch (Exception e) {
+            logger.error("❌ Error reading note for patch - ID: {}", id, e);
+            UnitOfWork.rollback();
+            return new UpdateResult(UpdateResult.Status.FAILED, -1);
+        }
+
+        if (patched.trim().isEmpty()) {
+            throw new IllegalArgumentException("Content is required");
+        }
+        // The version check in the UPDATE catches a write that slipped in since the read
+        return updateIfOwned(id, userId, newTitle, patched, baseVersion);
+    }
+
+    /**
+     * The revision history of a note, newest first and without the texts; null when
+     * the user has no such note
+     */
+    public List<NoteRevision> getRevisions(Long id, Long userId) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🕘 Listing revisions of note ID: {} for user ID: {} at: {}", id, userId, currentTime);
+
+        try {
+            boolean owner = UnitOfWork.beginRead(userId);
+            Session session = UnitOfWork.currentSession();
+            List<NoteRevision> revisions = isOwned(session, id, userId)
+                    ? session.doReturningWork(connection -> NoteRevisionStore.list(connection, id))
+                    : null;
+            UnitOfWork.finish(owner);
+
+            if (revisions == null) {
+                logger.warn("⚠️ Note not found or not owned - ID: {}, user ID: {}", id, userId);
+            }
+            return revisions;
+
+        } catch (Exception e) {
+            logger.error("❌ Error listing revisions of note ID: {}", id, e);
+            UnitOfWork.rollback();
+            return null;
+        }
+    }
+
+    /**
+     * One revision of a note with its text; null when the user has no such note or
+     * the note no such revision
+     */
+    public NoteRevision getRevision(Long id, Long userId, int revision) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🕘 Loading revision {} of note ID: {} for user ID: {} at: {}", revision, id, userId, currentTime);
+
+        try {
+            boolean owner = UnitOfWork.beginRead(userId);
+            Session session = UnitOfWork.currentSession();
+            NoteRevision loaded = isOwned(session, id, userId)
+                    ? session.doReturningWork(connection -> NoteRevisionStore.load(connection, id, revision))
+                    : null;
+            UnitOfWork.finish(owner);
+
+            if (loaded == null) {
+                logger.warn("⚠️ Revision {} of note ID: {} not found for user ID: {}", revision, id, userId);
+            }
+            return loaded;
+
+        } catch (Exception e) {
+            logger.error("❌ Error loading revision {} of note ID: {}", revision, id, e);
+            UnitOfWork.rollback();
+            return null;
+        }
+    }
+
+    /**
+     * Make an earlier revision the note's current state again. This is a normal
+     * update (checked against expectedVersion when given), so it becomes the newest
+     * revision and the history stays intact.
+     */
+    public UpdateResult restoreRevision(Long id, Long userId, int revision, Long expectedVersion) {
+        NoteRevision restored = getRevision(id, userId, revision);
+        if (restored == null) {
+            return new UpdateResult(UpdateResult.Status.NOT_FOUND, -1);
+        }
+        logger.info("⏪ Restoring revision {} of note ID: {} for user ID: {}", revision, id, userId);
+        return updateIfOwned(id, userId, restored.getTitle(), restored.getContent(), expectedVersion);
+    }
+
+    /**
+     * Apply the revision retention settings (notes.revisions.*) on every shard: notes
+     * whose history has revisions to drop or merge are compacted one at a time, each
+     * in its own transaction with the note locked. Notes of users being moved to
+     * another shard are skipped until the next run. Returns the revisions removed.
+     */
+    public long compactRevisions() {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🗜️ Compacting note revisions at: {}", currentTime);
+
+        long removed = 0;
+        int notes = 0;
+        for (int shard = 0; shard < HibernateUtil.getShardRouter().getShardCount(); shard++) {
+            long lastId = 0L;
+            while (!Thread.currentThread().isInterrupted()) {
+                List<long[]> candidates;
+                try (Connection connection = HibernateUtil.getDataSource(shard).getConnection()) {
+                    candidates = NoteRevisionStore.compactionCandidates(
+                            connection, lastId, INDEX_BATCH_SIZE, System.currentTimeMillis());
+                    connection.commit();
+                } catch (SQLException e) {
+                    logger.error("❌ Error listing notes for revision compaction on shard {}", shard, e);
+                    break;
+                }
+
+                for (long[] candidate : candidates) {
+                    int count = compactNoteRevisions(candidate[0], candidate[1]);
+                    if (count > 0) {
+                        removed += count;
+                        notes++;
+                    }
+                    lastId = candidate[0];
+                }
+                if (candidates.size() < INDEX_BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+
+        logger.info("✅ Revision compaction done - {} revision(s) removed from {} note(s)", removed, notes);
+        return removed;
+    }
+
+    private int compactNoteRevisions(Long id, Long userId) {
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            int removed = UnitOfWork.currentSession().doReturningWork(connection ->
+                    NoteRevisionStore.lockCurrent(connection, id, userId) != null
+                            ? NoteRevisionStore.compact(connection, id, System.currentTimeMillis())
+                            : 0);
+            UnitOfWork.commit(owner);
+            return removed;
+
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ Revisions of note ID: {} not compacted: {}", id, e.getMessage());
+            UnitOfWork.rollback();
+            return 0;
+        } catch (Exception e) {
+            logger.error("❌ Error compacting revisions of note ID: {}", id, e);
+            UnitOfWork.rollback();
+            return 0;
+        }
+    }
+
+    /**
+     * Store a large note's body from a stream, as chunks of notes.chunkSizeBytes that
+     * are written as they arrive, so the body is never held in memory as a whole.
+     * With an id the body of that note (if the user owns it) is replaced; without one
+     * a new note with the given title is created. Runs in its own transaction on the
+     * user's shard: a failed or aborted upload leaves the note as it was.
+     * Returns the note id, 0 when the note is missing or not owned, -1 on error.
+     * IOExceptions from the stream are rethrown, and an IllegalArgumentException when
+     * the body is larger than notes.upload.maxBytes.
+     */
+    public long writeLargeNote(Long id, Long userId, String title, InputStream body) throws IOException {
+        String currentTime = getCurrentUTCTime();
+        logger.info("📦 Writing large note - ID: {} for user ID: {} at: {}", id, userId, currentTime);
+
+        Session session = null;
+        Transaction transaction = null;
+
+        try {
+            HibernateUtil.getShardRouter().prepareWrite(userId);
+            session = HibernateUtil.getSessionFactoryForUser(userId).openSession();
+            transaction = session.beginTransaction();
+
+            Note note;
+            if (id == null) {
+                note = new Note(title, null, session.getReference(User.class, userId));
+                // The chunks reference the note, so its row goes in first
+                session.persist(note);
+                session.flush();
+                adjustNoteCount(session, userId, 1);
+            } else {
+                // The row lock keeps two uploads to the same note from mixing their chunks
+                note = session.find(Note.class, id, LockModeType.PESSIMISTIC_WRITE);
+                if (note == null || !note.getUser().getId().equals(userId)) {
+                    logger.warn("⚠️ Note not found or not owned - ID: {}, user ID: {}", id, userId);
+                    rollback(transaction);
+                    return 0;
+                }
+                adjustNoteCount(session, userId, 0);
+            }
+
+            Long noteId = note.getId();
+            NoteChunkStore.Written written = session.doReturningWork(connection -> {
+                try {
+                    return NoteChunkStore.write(connection, noteId, body, uploadMaxBytes);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            note.setChunkedContent(written.size(), written.preview());
+            transaction.commit();
+
+            String noteTitle = note.getTitle();
+            Date updatedAt = note.getUpdatedAt();
+            searchIndex.index(noteId, userId, noteTitle, written.preview(), updatedAt, note.getVersion());
+            dashboardCache.invalidate(userId);
+            HibernateUtil.getReadRouter().recordWrite(userId);
+            logger.info("✅ Large note saved - ID: {}, {} bytes for user ID: {}", noteId, written.size(), userId);
+            return noteId;
+
+        } catch (UncheckedIOException e) {
+            logger.warn("⚠️ Large note upload for user ID: {} stopped: {}", userId, e.getCause().getMessage());
+            rollback(transaction);
+            throw e.getCause();
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Large note upload for user ID: {} refused: {}", userId, e.getMessage());
+            rollback(transaction);
+            throw e;
+        } catch (Exception e) {
+            logger.error("❌ Error writing large note - ID: {} for user ID: {}", id, userId, e);
+            rollback(transaction);
+            return -1;
         } finally {
             if (session != null) {
                 try {
@@ -193,83 +672,392 @@ public class NoteDAO {
     }
 
     /**
-     * Delete a note by its ID
+     * Copy a large note's body to out, one chunk at a time, on a plain connection of
+     * the user's shard. The caller checks ownership first (getNoteById).
+     * Returns the number of bytes written, -1 when the shard could not be read.
+     * IOExceptions from out (or a chunk that failed to load midway) are rethrown.
      */
-    public boolean deleteNote(Long id) {
-        Session session = null;
-        Transaction transaction = null;
+    public long streamLargeContent(Long id, Long userId, OutputStream out) throws IOException {
+        String currentTime = getCurrentUTCTime();
+        logger.info("📤 Streaming large note - ID: {} at: {}", id, currentTime);
+
+        long written = 0;
+        try (Connection connection = HibernateUtil.getDataSourceForUser(userId).getConnection()) {
+            connection.setReadOnly(true);
+            try (InputStream chunks = NoteChunkStore.open(connection, id)) {
+                written = chunks.transferTo(out);
+            } finally {
+                connection.rollback();
+            }
+            logger.info("✅ Streamed large note - ID: {}, {} bytes", id, written);
+            return written;
+
+        } catch (SQLException e) {
+            logger.error("❌ Error streaming large note - ID: {}", id, e);
+            return -1;
+        }
+    }
+
+    /**
+     * Delete a note if it belongs to the given user.
+     * Runs as a single conditional DELETE without loading the note first, in plain
+     * SQL: an HQL DELETE would evict every note from the second-level cache, so only
+     * this note's entry is evicted, once the delete has committed.
+     * Returns the affected row count (0 when the note is missing or not owned), -1 on error.
+     */
+    public int deleteIfOwned(Long id, Long userId) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🗑️ Deleting note if owned - ID: {} by user ID: {} at: {}", id, userId, currentTime);
+
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
+
+            int deleted = session.doReturningWork(connection -> {
+                try (PreparedStatement delete = connection.prepareStatement(
+                        "DELETE FROM notes WHERE id = ? AND user_id = ?")) {
+                    delete.setLong(1, id);
+                    delete.setLong(2, userId);
+                    return delete.executeUpdate();
+                }
+            });
+
+            if (deleted > 0) {
+                adjustNoteCount(session, userId, -deleted);
+                UnitOfWork.recordWrite(userId);
+                Cache cache = session.getSessionFactory().getCache();
+                UnitOfWork.afterCommit(() -> {
+                    cache.evictEntityData(Note.class, id);
+                    searchIndex.remove(id);
+                    dashboardCache.invalidate(userId);
+                });
+                logger.info("✅ Note deleted successfully - ID: {} for user ID: {}", id, userId);
+            } else {
+                logger.warn("⚠️ Note not found or not owned for deletion - ID: {}, user ID: {}", id, userId);
+            }
+            UnitOfWork.commit(owner);
+            return deleted;
+
+        } catch (Exception e) {
+            logger.error("❌ Error deleting note - ID: {}", id, e);
+            UnitOfWork.rollback();
+            return -1;
+        }
+    }
 
+    /**
+     * Delete many notes of one user in a single transaction: one SELECT finds which of
+     * the requested ids the user owns, one DELETE ... IN removes them (plain SQL, and
+     * only those notes are evicted from the second-level cache, as in deleteIfOwned).
+     * Returns the outcome for every requested id, in request order; on error every id
+     * is FAILED and nothing is deleted.
+     */
+    public Map<Long, BulkOutcome> deleteAllIfOwned(Long userId, Collection<Long> ids) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🗑️ Bulk deleting {} notes for user ID: {} at: {}", ids.size(), userId, currentTime);
+
+        Map<Long, BulkOutcome> outcomes = new LinkedHashMap<>();
+        if (ids.isEmpty()) {
+            return outcomes;
+        }
+
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
+
+            List<Long> owned = session.createQuery(
+                            "SELECT n.id FROM Note n WHERE n.user.id = :userId AND n.id IN (:ids)",
+                            Long.class)
+                    .setParameter("userId", userId)
+                    .setParameterList("ids", ids)
+                    .list();
+
+            int deleted = 0;
+            if (!owned.isEmpty()) {
+                deleted = session.doReturningWork(connection -> {
+                    try (PreparedStatement delete = connection.prepareStatement(
+                            "DELETE FROM notes WHERE user_id = ? AND id IN (" +
+                                    String.join(", ", Collections.nCopies(owned.size(), "?")) + ")")) {
+                        delete.setLong(1, userId);
+                        for (int i = 0; i < owned.size(); i++) {
+                            delete.setLong(i + 2, owned.get(i));
+                        }
+                        return delete.executeUpdate();
+                    }
+                });
+                adjustNoteCount(session, userId, -deleted);
+                UnitOfWork.recordWrite(userId);
+
+                Cache cache = session.getSessionFactory().getCache();
+                UnitOfWork.afterCommit(() -> {
+                    for (Long id : owned) {
+                        cache.evictEntityData(Note.class, id);
+                        searchIndex.remove(id);
+                    }
+                    dashboardCache.invalidate(userId);
+                });
+            }
+            UnitOfWork.commit(owner);
+
+            Set<Long> ownedIds = new HashSet<>(owned);
+            for (Long id : ids) {
+                outcomes.put(id, ownedIds.contains(id) ? BulkOutcome.DELETED : BulkOutcome.NOT_FOUND);
+            }
+            logger.info("✅ Bulk deleted {} of {} requested notes for user ID: {}", deleted, ids.size(), userId);
+            return outcomes;
+
+        } catch (Exception e) {
+            logger.error("❌ Error bulk deleting notes for user ID: {}", userId, e);
+            UnitOfWork.rollback();
+            outcomes.clear();
+            for (Long id : ids) {
+                outcomes.put(id, BulkOutcome.FAILED);
+            }
+            return outcomes;
+        }
+    }
+
+    /**
+     * Delete a note by its ID, from the shard of the user it belongs to
+     */
+    public boolean deleteNote(Long id, Long userId) {
         String currentTime = getCurrentUTCTime();
         logger.info("🗑️ Deleting note - ID: {} at: {}", id, currentTime);
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
 
             Note note = session.get(Note.class, id);
             if (note != null) {
                 session.remove(note);
-                transaction.commit();
+                adjustNoteCount(session, userId, -1);
+                UnitOfWork.recordWrite(userId);
+                UnitOfWork.afterCommit(() -> {
+                    searchIndex.remove(id);
+                    dashboardCache.invalidate(userId);
+                });
+                UnitOfWork.commit(owner);
 
                 logger.info("✅ Note deleted successfully - ID: {}, Title: '{}'",
                         id, note.getTitle());
                 return true;
             } else {
                 logger.warn("⚠️ Note not found for deletion - ID: {}", id);
+                UnitOfWork.commit(owner);
                 return false;
             }
 
         } catch (Exception e) {
             logger.error("❌ Error deleting note - ID: {}", id, e);
-            if (transaction != null) {
-                try {
-                    transaction.rollback();
-                    logger.info("🔄 Transaction rolled back");
-                } catch (Exception rollbackEx) {
-                    logger.error("❌ Error during rollback", rollbackEx);
-                }
-            }
+            UnitOfWork.rollback();
             return false;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    logger.error("❌ Error closing session", closeEx);
-                }
-            }
         }
     }
 
     /**
-     * Search notes by title or content
+     * Search notes by title or content using the backend selected by search.mode
      */
-    public List<Note> searchNotes(User user, String searchTerm) {
-        Session session = null;
+    public List<NoteSummary> searchNotes(User user, String searchTerm) {
+        return searchNotes(user, searchTerm, searchMode);
+    }
 
+    /**
+     * Search notes by title or content with an explicit backend. The index answers
+     * once it has been built and FULLTEXT answers while the index exists; otherwise
+     * both fall back to the database LIKE scan.
+     */
+    public List<NoteSummary> searchNotes(User user, String searchTerm, SearchMode mode) {
         String currentTime = getCurrentUTCTime();
-        logger.info("🔍 Searching notes for user: {} with term: '{}' at: {}",
-                user.getUsername(), searchTerm, currentTime);
+        logger.info("🔍 Searching notes ({}) for user: {} with term: '{}' at: {}",
+                mode, user.getUsername(), searchTerm, currentTime);
+
+        if (mode == SearchMode.INDEX && searchIndex.isReady()) {
+            List<NoteSummary> notes = searchIndex.search(user.getId(), searchTerm, SEARCH_LIMIT);
+            logger.info("✅ Index found {} notes matching search term '{}' for user: {}",
+                    notes.size(), searchTerm, user.getUsername());
+            return notes;
+        }
+        if (mode == SearchMode.FULLTEXT && System.currentTimeMillis() >= fulltextUnavailableUntil) {
+            List<NoteSummary> notes = searchNotesFulltext(user, searchTerm);
+            if (notes != null) {
+                return notes;
+            }
+        }
+        return searchNotesLike(user, searchTerm);
+    }
+
+    /**
+     * Search notes with MATCH(title, content) AGAINST, ordered by relevance score.
+     * Notes stored compressed only match when their title contains the term.
+     * Returns null when the query could not run so the caller can fall back.
+     */
+    private List<NoteSummary> searchNotesFulltext(User user, String searchTerm) {
+        String against = fulltextBooleanMode ? toBooleanQuery(searchTerm) : searchTerm;
+        if (against.isEmpty()) {
+            return new ArrayList<>();
+        }
+        String match = "MATCH(title, content) AGAINST (:query IN " +
+                (fulltextBooleanMode ? "BOOLEAN MODE" : "NATURAL LANGUAGE MODE") + ")";
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            Query<Note> query = session.createQuery(
-                    "FROM Note WHERE user = :user AND (LOWER(title) LIKE LOWER(:search) OR LOWER(content) LIKE LOWER(:search)) ORDER BY updatedAt DESC",
-                    Note.class
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
+            NativeQuery<Object[]> query = session.createNativeQuery(
+                    "SELECT id, title, COALESCE(content_preview, SUBSTRING(content, 1, " +
+                            (NoteSummary.PREVIEW_LENGTH + 1) + ")) AS content_head, " +
+                            "updated_at, " + match + " AS score " +
+                            "FROM notes WHERE user_id = :userId AND " + match + " " +
+                            // A compressed body is Base64 to MySQL; such notes match by title only
+                            "AND (content IS NULL OR SUBSTRING(content, 1, " + CompressedTextConverter.MARKER.length() +
+                            ") <> :marker OR LOWER(title) LIKE LOWER(:titleSearch)) " +
+                            "ORDER BY score DESC, updated_at DESC",
+                    Object[].class
+            );
+            query.addScalar("id", StandardBasicTypes.LONG);
+            query.addScalar("title", StandardBasicTypes.STRING);
+            query.addScalar("content_head", StandardBasicTypes.STRING);
+            query.addScalar("updated_at", StandardBasicTypes.TIMESTAMP);
+            query.addScalar("score", StandardBasicTypes.DOUBLE);
+            query.setParameter("query", against);
+            query.setParameter("userId", user.getId());
+            query.setParameter("marker", CompressedTextConverter.MARKER);
+            query.setParameter("titleSearch", "%" + searchTerm + "%");
+            query.setMaxResults(SEARCH_LIMIT);
+
+            List<NoteSummary> notes = new ArrayList<>();
+            for (Object[] row : query.list()) {
+                notes.add(new NoteSummary((Long) row[0], (String) row[1], (String) row[2], (Date) row[3]));
+            }
+            logger.info("✅ FULLTEXT found {} notes matching search term '{}' for user: {}",
+                    notes.size(), searchTerm, user.getUsername());
+            UnitOfWork.finish(owner);
+            return notes;
+
+        } catch (Exception e) {
+            if (isMissingFulltextIndex(e)) {
+                fulltextUnavailableUntil = System.currentTimeMillis() + FULLTEXT_RECHECK_MILLIS;
+                logger.warn("⚠️ FULLTEXT index on notes(title, content) is missing, using LIKE search " +
+                        "(apply db/notes_fulltext.sql)");
+            } else {
+                logger.error("❌ FULLTEXT search failed for user: {} with term: '{}', using LIKE search",
+                        user.getUsername(), searchTerm, e);
+            }
+            UnitOfWork.rollback();
+            return null;
+        }
+    }
+
+    /**
+     * Turn free text into a BOOLEAN MODE query requiring every term as a prefix.
+     * Only tokenizer output is used, so user input cannot inject operators.
+     */
+    private static String toBooleanQuery(String searchTerm) {
+        StringBuilder against = new StringBuilder();
+        for (String term : Tokenizer.tokenize(searchTerm)) {
+            if (against.length() > 0) {
+                against.append(' ');
+            }
+            against.append('+').append(term).append('*');
+        }
+        return against.toString();
+    }
+
+    private static boolean isMissingFulltextIndex(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException
+                    && sqlException.getErrorCode() == ER_FT_MATCHING_KEY_NOT_FOUND) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Search notes with a LOWER(...) LIKE '%term%' scan of the user's notes. The
+     * content of notes stored compressed is not searched, only their title.
+     */
+    private List<NoteSummary> searchNotesLike(User user, String searchTerm) {
+        try {
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
+            Query<NoteSummary> query = session.createQuery(
+                    SUMMARY_SELECT + "WHERE n.user = :user AND (LOWER(n.title) LIKE LOWER(:search) OR " +
+                            "(SUBSTRING(n.content, 1, " + CompressedTextConverter.MARKER.length() + ") <> :marker " +
+                            "AND LOWER(n.content) LIKE LOWER(:search))) ORDER BY n.updatedAt DESC",
+                    NoteSummary.class
             );
             query.setParameter("user", user);
             query.setParameter("search", "%" + searchTerm + "%");
+            query.setParameter("marker", CompressedTextConverter.MARKER);
+            query.setMaxResults(SEARCH_LIMIT);
 
-            List<Note> notes = query.list();
+            List<NoteSummary> notes = query.list();
             logger.info("✅ Found {} notes matching search term '{}' for user: {}",
                     notes.size(), searchTerm, user.getUsername());
+            UnitOfWork.finish(owner);
             return notes;
 
         } catch (Exception e) {
             logger.error("❌ Error searching notes for user: {} with term: '{}'",
                     user.getUsername(), searchTerm, e);
+            UnitOfWork.rollback();
             return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Rebuild the in-process search index from the database (every note shard).
+     * Notes are read in id order in bounded batches so memory stays flat; large
+     * notes are indexed by title and preview, their chunks are not read.
+     */
+    public boolean rebuildSearchIndex() {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🔎 Rebuilding search index at: {}", currentTime);
+
+        searchIndex.beginRebuild();
+        StatelessSession session = null;
+        boolean success = false;
+        long indexed = 0;
+
+        try {
+            for (SessionFactory shard : HibernateUtil.getShardSessionFactories()) {
+                session = shard.openStatelessSession();
+                Long lastId = 0L;
+                while (true) {
+                    Query<Object[]> query = session.createQuery(
+                            "SELECT n.id, n.user.id, n.title, n.content, n.contentPreview, n.updatedAt, n.version " +
+                                    "FROM Note n WHERE n.id > :lastId ORDER BY n.id",
+                            Object[].class
+                    );
+                    query.setParameter("lastId", lastId);
+                    query.setMaxResults(INDEX_BATCH_SIZE);
+
+                    List<Object[]> rows = query.list();
+                    for (Object[] row : rows) {
+                        // Large notes (content in note_chunks) are indexed by title and preview
+                        String content = row[3] != null ? (String) row[3] : (String) row[4];
+                        searchIndex.indexFromScan((Long) row[0], (Long) row[1],
+                                (String) row[2], content, (Date) row[5], (Long) row[6]);
+                        lastId = (Long) row[0];
+                    }
+                    indexed += rows.size();
+                    if (rows.size() < INDEX_BATCH_SIZE) {
+                        break;
+                    }
+                }
+                session.close();
+                session = null;
+            }
+            success = true;
+            logger.info("✅ Search index rebuilt from {} notes", indexed);
+            return true;
+
+        } catch (Exception e) {
+            logger.error("❌ Error rebuilding search index after {} notes", indexed, e);
+            return false;
         } finally {
+            searchIndex.finishRebuild(success);
             if (session != null) {
                 try {
                     session.close();
@@ -281,30 +1069,82 @@ public class NoteDAO {
     }
 
     /**
-     * Get notes count for a user
+     * Stream all of a user's notes in id order to the handler without building a list.
+     * Rows are read from a forward-only cursor in export.fetchSize chunks through a
+     * StatelessSession, so memory stays flat whatever the number of notes. Large
+     * notes are read from their chunks on a second connection while they are handled.
+     * Returns the number of notes streamed, or -1 when the query failed.
+     * IOExceptions from the handler (e.g. the client went away) are rethrown.
      */
-    public long getNoteCountByUser(User user) {
-        Session session = null;
-
+    public long streamNotesByUser(User user, NoteRowHandler handler) throws IOException {
         String currentTime = getCurrentUTCTime();
-        logger.info("📊 Getting note count for user: {} at: {}", user.getUsername(), currentTime);
+        logger.info("📤 Streaming notes for user: {} at: {}", user.getUsername(), currentTime);
+
+        StatelessSession session = null;
+        Transaction transaction = null;
+        ScrollableResults<Object[]> rows = null;
+        Connection chunkConnection = null;
+        long streamed = 0;
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            Query<Long> query = session.createQuery(
-                    "SELECT COUNT(*) FROM Note WHERE user = :user",
-                    Long.class
+            session = HibernateUtil.getSessionFactoryForUser(user.getId()).openStatelessSession();
+            transaction = session.beginTransaction();
+
+            Query<Object[]> query = session.createQuery(
+                    "SELECT n.id, n.title, n.content, n.chunked, n.createdAt, n.updatedAt FROM Note n " +
+                            "WHERE n.user.id = :userId ORDER BY n.id",
+                    Object[].class
             );
-            query.setParameter("user", user);
+            query.setParameter("userId", user.getId());
+            query.setFetchSize(exportFetchSize);
+            query.setReadOnly(true);
 
-            Long count = query.uniqueResult();
-            logger.info("✅ User {} has {} notes", user.getUsername(), count);
-            return count != null ? count : 0L;
+            rows = query.scroll(ScrollMode.FORWARD_ONLY);
+            while (rows.next()) {
+                Object[] row = rows.get();
+                Long id = (Long) row[0];
+                if ((Boolean) row[3]) {
+                    if (chunkConnection == null) {
+                        chunkConnection = HibernateUtil.getDataSourceForUser(user.getId()).getConnection();
+                        chunkConnection.setReadOnly(true);
+                    }
+                    try (Reader content = new InputStreamReader(
+                            NoteChunkStore.open(chunkConnection, id), StandardCharsets.UTF_8)) {
+                        handler.handle(id, (String) row[1], content, (Date) row[4], (Date) row[5]);
+                    }
+                } else {
+                    String content = (String) row[2];
+                    handler.handle(id, (String) row[1], content != null ? new StringReader(content) : null,
+                            (Date) row[4], (Date) row[5]);
+                }
+                streamed++;
+            }
+            transaction.commit();
 
+            logger.info("✅ Streamed {} notes for user: {}", streamed, user.getUsername());
+            return streamed;
+
+        } catch (IOException e) {
+            logger.warn("⚠️ Note stream for user: {} stopped after {} notes: {}",
+                    user.getUsername(), streamed, e.getMessage());
+            rollback(transaction);
+            throw e;
         } catch (Exception e) {
-            logger.error("❌ Error getting note count for user: {}", user.getUsername(), e);
-            return 0L;
+            logger.error("❌ Error streaming notes for user: {} after {} notes", user.getUsername(), streamed, e);
+            rollback(transaction);
+            return -1;
         } finally {
+            if (rows != null) {
+                rows.close();
+            }
+            if (chunkConnection != null) {
+                try {
+                    chunkConnection.rollback();
+                    chunkConnection.close();
+                } catch (SQLException closeEx) {
+                    logger.error("❌ Error returning chunk connection", closeEx);
+                }
+            }
             if (session != null) {
                 try {
                     session.close();
@@ -316,39 +1156,170 @@ public class NoteDAO {
     }
 
     /**
-     * Get recent notes for a user (limit specified)
+     * Bulk-insert notes for a user, in transactions of import.batchSize notes.
+     * Each batch goes out as one JDBC batch (Note ids come from a pooled table
+     * generator, so Hibernate does not need an INSERT per id), and the session is
+     * cleared after every commit so memory stays flat for arbitrarily large imports.
+     * Bodies too large for the content column (e.g. exported large notes) are stored
+     * as chunks, up to notes.upload.maxBytes. Imported notes bypass the second-level
+     * cache. Batches committed before a failure are kept; the result says how far
+     * the import got.
      */
-    public List<Note> getRecentNotes(User user, int limit) {
+    public ImportResult importNotes(User user, Iterator<Note> notes) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("📥 Importing notes for user: {} at: {}", user.getUsername(), currentTime);
+
         Session session = null;
+        List<Note> batch = new ArrayList<>(importBatchSize);
+        long imported = 0;
+        long start = System.nanoTime();
+
+        try {
+            HibernateUtil.getShardRouter().prepareWrite(user.getId());
+            session = HibernateUtil.getSessionFactoryForUser(user.getId()).openSession();
+            session.setJdbcBatchSize(importBatchSize);
+            session.setCacheMode(CacheMode.IGNORE);
 
+            while (notes.hasNext()) {
+                Note note = notes.next();
+                note.setUser(user);
+                batch.add(note);
+                if (batch.size() == importBatchSize) {
+                    imported += persistBatch(session, batch);
+                }
+            }
+            if (!batch.isEmpty()) {
+                imported += persistBatch(session, batch);
+            }
+
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+            logger.info("✅ Imported {} notes for user: {} in {} s ({} notes/s)", imported, user.getUsername(),
+                    String.format("%.2f", seconds), String.format("%.0f", imported / seconds));
+            return new ImportResult(imported, null);
+
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Import for user: {} stopped after {} notes: {}", user.getUsername(), imported, e.getMessage());
+            return new ImportResult(imported, e.getMessage());
+        } catch (Exception e) {
+            logger.error("❌ Error importing notes for user: {} after {} notes", user.getUsername(), imported, e);
+            return new ImportResult(imported, "Could not save notes");
+        } finally {
+            if (imported > 0) {
+                dashboardCache.invalidate(user.getId());
+                HibernateUtil.getReadRouter().recordWrite(user.getId());
+            }
+            if (session != null) {
+                try {
+                    session.close();
+                } catch (Exception closeEx) {
+                    logger.error("❌ Error closing session", closeEx);
+                }
+            }
+        }
+    }
+
+    /**
+     * Persist and commit one import batch, then detach it and add it to the search index
+     */
+    private int persistBatch(Session session, List<Note> batch) {
+        Transaction transaction = session.beginTransaction();
+        try {
+            Map<Note, byte[]> largeBodies = new IdentityHashMap<>();
+            for (Note note : batch) {
+                byte[] body = note.getContent() != null && note.getContent().length() * 3L > INLINE_MAX_BYTES
+                        ? note.getContent().getBytes(StandardCharsets.UTF_8) : null;
+                if (body != null && body.length > INLINE_MAX_BYTES) {
+                    // Set before the INSERT, so the imported updatedAt is never touched by an UPDATE
+                    note.setChunkedContent(body.length, Note.previewOf(note.getContent()));
+                    largeBodies.put(note, body);
+                }
+                session.persist(note);
+            }
+            if (!largeBodies.isEmpty()) {
+                // The chunks reference their notes, so the rows go in first
+                session.flush();
+                for (Map.Entry<Note, byte[]> large : largeBodies.entrySet()) {
+                    Long noteId = large.getKey().getId();
+                    session.doWork(connection -> {
+                        try {
+                            NoteChunkStore.write(connection, noteId,
+                                    new ByteArrayInputStream(large.getValue()), uploadMaxBytes);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            }
+            adjustNoteCount(session, batch.get(0).getUser().getId(), batch.size());
+            transaction.commit();
+        } catch (RuntimeException e) {
+            rollback(transaction);
+            throw e;
+        } finally {
+            session.clear();
+        }
+
+        for (Note note : batch) {
+            // Large notes are indexed by title and preview, as after an upload
+            searchIndex.index(note.getId(), note.getUser().getId(), note.getTitle(),
+                    note.isChunked() ? note.getContentPreview() : note.getContent(),
+                    note.getUpdatedAt(), note.getVersion());
+        }
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    /**
+     * Get notes count for a user, from the user_stats counter (a primary key lookup)
+     */
+    public long getNoteCountByUser(User user) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("📊 Getting note count for user: {} at: {}", user.getUsername(), currentTime);
+
+        try {
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
+            long count = readNoteCount(session, user);
+            logger.info("✅ User {} has {} notes", user.getUsername(), count);
+            UnitOfWork.finish(owner);
+            return count;
+
+        } catch (Exception e) {
+            logger.error("❌ Error getting note count for user: {}", user.getUsername(), e);
+            UnitOfWork.rollback();
+            return 0L;
+        }
+    }
+
+    /**
+     * Get summaries of a user's most recently updated notes (limit specified)
+     */
+    public List<NoteSummary> getRecentNotes(User user, int limit) {
         String currentTime = getCurrentUTCTime();
         logger.info("📋 Fetching {} recent notes for user: {} at: {}",
                 limit, user.getUsername(), currentTime);
 
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            Query<Note> query = session.createQuery(
-                    "FROM Note WHERE user = :user ORDER BY updatedAt DESC",
-                    Note.class
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
+            Query<NoteSummary> query = session.createQuery(
+                    SUMMARY_SELECT + "WHERE n.user = :user ORDER BY n.updatedAt DESC, n.id DESC",
+                    NoteSummary.class
             );
             query.setParameter("user", user);
+            query.setReadOnly(true);
             query.setMaxResults(limit);
 
-            List<Note> notes = query.list();
+            List<NoteSummary> notes = query.list();
             logger.info("✅ Retrieved {} recent notes for user: {}", notes.size(), user.getUsername());
+            UnitOfWork.finish(owner);
             return notes;
 
         } catch (Exception e) {
             logger.error("❌ Error fetching recent notes for user: {}", user.getUsername(), e);
+            UnitOfWork.rollback();
             return new ArrayList<>();
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    logger.error("❌ Error closing session", closeEx);
-                }
-            }
         }
     }
 
@@ -356,10 +1327,9 @@ public class NoteDAO {
      * Check if a note belongs to a specific user
      */
     public boolean isNoteOwnedByUser(Long noteId, User user) {
-        Session session = null;
-
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
+            boolean owner = UnitOfWork.beginRead(user.getId());
+            Session session = UnitOfWork.currentSession();
             Query<Long> query = session.createQuery(
                     "SELECT COUNT(*) FROM Note WHERE id = :noteId AND user = :user",
                     Long.class
@@ -373,12 +1343,70 @@ public class NoteDAO {
             logger.info("🔒 Note ownership check - Note ID: {}, User: {}, Owned: {}",
                     noteId, user.getUsername(), isOwned);
 
+            UnitOfWork.finish(owner);
             return isOwned;
 
         } catch (Exception e) {
             logger.error("❌ Error checking note ownership - Note ID: {}, User: {}",
                     noteId, user.getUsername(), e);
+            UnitOfWork.rollback();
             return false;
+        }
+    }
+
+    /**
+     * The version of a user's notes (UserStats.version), which changes with every
+     * note write: from the dashboard cache when it holds the user, otherwise with a
+     * primary key lookup. Returns -1 on error.
+     */
+    public long getNoteVersion(Long userId) {
+        DashboardCache.Entry cached = dashboardCache.getIfPresent(userId);
+        if (cached != null) {
+            return cached.getVersion();
+        }
+
+        try {
+            boolean owner = UnitOfWork.beginRead(userId);
+            long version = readNoteVersion(UnitOfWork.currentSession(), userId);
+            UnitOfWork.finish(owner);
+            return version;
+
+        } catch (Exception e) {
+            logger.error("❌ Error reading notes version for user ID: {}", userId, e);
+            UnitOfWork.rollback();
+            return -1;
+        }
+    }
+
+    /**
+     * Load what the dashboard cache keeps for a user (first summary page and note count)
+     * in one session. Runs in a short transaction of its own on the user's shard, never
+     * in the request's: the request may have started reading before a note write that
+     * has since committed and invalidated the cache, and a load from that older snapshot
+     * would cache the dashboard from before the write. Cache loads therefore never go to
+     * a read replica either. Returns null on failure so errors are never cached.
+     */
+    public DashboardCache.Entry loadDashboard(User user, int pageSize) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🗂️ Loading dashboard for user: {} at: {}", user.getUsername(), currentTime);
+
+        Session session = null;
+        Transaction transaction = null;
+
+        try {
+            session = HibernateUtil.getSessionFactoryForUser(user.getId()).openSession();
+            session.setDefaultReadOnly(true);
+            transaction = session.beginTransaction();
+            NotePage<NoteSummary> firstPage = querySummaryPage(session, user, null, pageSize);
+            long count = readNoteCount(session, user);
+            long version = readNoteVersion(session, user.getId());
+            transaction.commit();
+            return new DashboardCache.Entry(firstPage, count, version);
+
+        } catch (Exception e) {
+            logger.error("❌ Error loading dashboard for user: {}", user.getUsername(), e);
+            rollback(transaction);
+            return null;
         } finally {
             if (session != null) {
                 try {
@@ -390,6 +1418,256 @@ public class NoteDAO {
         }
     }
 
+    /**
+     * Run the keyset page query for a user's note summaries in the given session
+     */
+    private NotePage<NoteSummary> querySummaryPage(Session session, User user, NoteCursor cursor, int pageSize) {
+        Query<NoteSummary> query;
+        if (cursor == null) {
+            query = session.createQuery(
+                    SUMMARY_SELECT + "WHERE n.user = :user ORDER BY n.updatedAt DESC, n.id DESC",
+                    NoteSummary.class
+            );
+        } else {
+            query = session.createQuery(
+                    SUMMARY_SELECT + "WHERE n.user = :user " +
+                            // The leading range keeps the seek on idx_notes_user_updated
+                            "AND n.updatedAt <= :updatedAt AND (n.updatedAt < :updatedAt OR n.id < :id) " +
+                            "ORDER BY n.updatedAt DESC, n.id DESC",
+                    NoteSummary.class
+            );
+            query.setParameter("updatedAt", cursor.getUpdatedAt());
+            query.setParameter("id", cursor.getId());
+        }
+        query.setParameter("user", user);
+        query.setReadOnly(true);
+        // Fetch one extra row to learn whether another page exists
+        query.setMaxResults(pageSize + 1);
+
+        List<NoteSummary> notes = query.list();
+        NoteCursor nextCursor = null;
+        if (notes.size() > pageSize) {
+            notes = new ArrayList<>(notes.subList(0, pageSize));
+            NoteSummary last = notes.get(notes.size() - 1);
+            nextCursor = new NoteCursor(last.getUpdatedAt(), last.getId());
+        }
+        return new NotePage<>(notes, nextCursor);
+    }
+
+    /**
+     * Read a user's note counter in the given session, counting the notes when the
+     * user has no counter row yet. A scalar query is used on purpose: a managed
+     * UserStats entity would not see the counter updates made by bulk statements.
+     */
+    private long readNoteCount(Session session, User user) {
+        Long count = session.createQuery(
+                        "SELECT s.noteCount FROM UserStats s WHERE s.userId = :userId", Long.class)
+                .setParameter("userId", user.getId())
+                .uniqueResult();
+        return count != null ? count : countNotes(session, user.getId());
+    }
+
+    /**
+     * Read a user's notes version in the given session, 0 when the user has no counter row yet
+     */
+    private long readNoteVersion(Session session, Long userId) {
+        Long version = session.createQuery(
+                        "SELECT s.version FROM UserStats s WHERE s.userId = :userId", Long.class)
+                .setParameter("userId", userId)
+                .uniqueResult();
+        return version != null ? version : 0L;
+    }
+
+    /**
+     * Whether the user has a note with this id, in the given session
+     */
+    private boolean isOwned(Session session, Long id, Long userId) {
+        Long count = session.createQuery(
+                        "SELECT COUNT(*) FROM Note n WHERE n.id = :id AND n.user.id = :userId", Long.class)
+                .setParameter("id", id)
+                .setParameter("userId", userId)
+                .uniqueResult();
+        return count != null && count > 0;
+    }
+
+    /**
+     * Count a user's notes in the given session
+     */
+    private long countNotes(Session session, Long userId) {
+        Query<Long> query = session.createQuery(
+                "SELECT COUNT(*) FROM Note n WHERE n.user.id = :userId",
+                Long.class
+        );
+        query.setParameter("userId", userId);
+
+        Long count = query.uniqueResult();
+        return count != null ? count : 0L;
+    }
+
+    /**
+     * Move a user's note counter by delta in the current transaction and mark the
+     * change in the user's notes version; every note write calls this, updates with
+     * a delta of 0. Users created before the counter existed get their row here,
+     * started from the real count (the COUNT flushes this transaction's own
+     * inserts/deletes first).
+     */
+    private void adjustNoteCount(Session session, Long userId, long delta) {
+        int updated = session.createMutationQuery(
+                        "UPDATE UserStats s SET s.noteCount = s.noteCount + :delta, " +
+                                "s.version = GREATEST(s.version + 1, :now) WHERE s.userId = :userId")
+                .setParameter("delta", delta)
+                .setParameter("now", System.currentTimeMillis())
+                .setParameter("userId", userId)
+                .executeUpdate();
+        if (updated == 0) {
+            session.persist(new UserStats(userId, countNotes(session, userId)));
+        }
+    }
+
+    /**
+     * Repair drift between the user_stats counters and the notes table. Each user is
+     * checked in its own short transaction that first locks the counter row, so
+     * concurrent note writes (which update that row too) are either fully counted
+     * or wait for the check to finish. Returns the number of counters corrected.
+     */
+    public int reconcileNoteCounts() {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🧮 Reconciling note counters at: {}", currentTime);
+
+        int repaired = 0;
+        Long lastId = 0L;
+        while (true) {
+            List<Long> userIds;
+            try {
+                boolean owner = UnitOfWork.begin();
+                userIds = UnitOfWork.currentSession().createQuery(
+                                "SELECT u.id FROM User u WHERE u.id > :lastId ORDER BY u.id", Long.class)
+                        .setParameter("lastId", lastId)
+                        .setMaxResults(INDEX_BATCH_SIZE)
+                        .list();
+                UnitOfWork.finish(owner);
+            } catch (Exception e) {
+                logger.error("❌ Error listing users for counter reconciliation", e);
+                UnitOfWork.rollback();
+                return repaired;
+            }
+
+            for (Long userId : userIds) {
+                if (reconcileNoteCount(userId)) {
+                    repaired++;
+                }
+                lastId = userId;
+            }
+            if (userIds.size() < INDEX_BATCH_SIZE) {
+                break;
+            }
+        }
+
+        logger.info("✅ Note counter reconciliation done - {} counter(s) repaired", repaired);
+        return repaired;
+    }
+
+    private boolean reconcileNoteCount(Long userId) {
+        try {
+            boolean owner = UnitOfWork.begin(userId);
+            Session session = UnitOfWork.currentSession();
+
+            UserStats stats = session.find(UserStats.class, userId, LockModeType.PESSIMISTIC_WRITE);
+            long actual = countNotes(session, userId);
+            boolean repaired = false;
+            if (stats == null) {
+                session.persist(new UserStats(userId, actual));
+                repaired = true;
+            } else if (stats.getNoteCount() != actual) {
+                logger.warn("⚠️ Note counter drift for user ID: {} - counter: {}, actual: {}",
+                        userId, stats.getNoteCount(), actual);
+                stats.setNoteCount(actual);
+                stats.touch();
+                repaired = true;
+            }
+            if (repaired) {
+                UnitOfWork.afterCommit(() -> dashboardCache.invalidate(userId));
+            }
+            UnitOfWork.commit(owner);
+            return repaired;
+
+        } catch (Exception e) {
+            logger.error("❌ Error reconciling note counter for user ID: {}", userId, e);
+            UnitOfWork.rollback();
+            return false;
+        }
+    }
+
+    /**
+     * Fill content_preview for notes written before the column existed, on every
+     * shard, in id batches. Plain JDBC on purpose: a Hibernate bulk update would
+     * evict the whole notes cache region on every batch. Notes saved meanwhile get
+     * their preview from the entity callbacks and are skipped. Stops early when the
+     * thread is interrupted. Returns the number of notes filled.
+     */
+    public long backfillContentPreviews(int batchSize) {
+        String currentTime = getCurrentUTCTime();
+        logger.info("🖼️ Backfilling note content previews at: {}", currentTime);
+
+        long filled = 0;
+        for (int shard = 0; shard < HibernateUtil.getShardRouter().getShardCount(); shard++) {
+            try (Connection connection = HibernateUtil.getDataSource(shard).getConnection();
+                 PreparedStatement select = connection.prepareStatement(
+                         "SELECT id FROM notes WHERE id > ? AND content_preview IS NULL ORDER BY id LIMIT " + batchSize);
+                 PreparedStatement update = connection.prepareStatement(
+                         "UPDATE notes SET content_preview = COALESCE(SUBSTRING(content, 1, " +
+                                 (NoteSummary.PREVIEW_LENGTH + 1) + "), '') " +
+                                 "WHERE id BETWEEN ? AND ? AND content_preview IS NULL")) {
+                long lastId = 0L;
+                while (!Thread.currentThread().isInterrupted()) {
+                    long firstId = -1L;
+                    int found = 0;
+                    select.setLong(1, lastId);
+                    try (ResultSet rows = select.executeQuery()) {
+                        while (rows.next()) {
+                            if (firstId < 0) {
+                                firstId = rows.getLong(1);
+                            }
+                            lastId = rows.getLong(1);
+                            found++;
+                        }
+                    }
+                    if (found == 0) {
+                        connection.commit();
+                        break;
+                    }
+                    update.setLong(1, firstId);
+                    update.setLong(2, lastId);
+                    filled += update.executeUpdate();
+                    connection.commit();
+                    if (found < batchSize) {
+                        break;
+                    }
+                }
+            } catch (SQLException e) {
+                logger.error("❌ Error backfilling content previews on shard {} after {} notes", shard, filled, e);
+                return filled;
+            }
+        }
+
+        logger.info("✅ Content previews backfilled for {} notes", filled);
+        return filled;
+    }
+
+    /**
+     * Roll back a StatelessSession transaction, logging instead of throwing
+     */
+    private void rollback(Transaction transaction) {
+        if (transaction != null && transaction.isActive()) {
+            try {
+                transaction.rollback();
+                logger.info("🔄 Transaction rolled back");
+            } catch (Exception rollbackEx) {
+                logger.error("❌ Error during rollback", rollbackEx);
+            }
+        }
+    }
+
     /**
      * Get current UTC time formatted
      */
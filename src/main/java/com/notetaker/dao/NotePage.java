@@ -0,0 +1,33 @@
+package com.notetaker.dao;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated note listing
+ * Purpose: Carry the page items together with the cursor of the next page
+ * (null when this is the last page).
+ */
+public final class NotePage<T> {
+    private final List<T> items;
+    private final NoteCursor nextCursor;
+
+    public NotePage(List<T> items, NoteCursor nextCursor) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextCursor = nextCursor;
+    }
+
+    public static <T> NotePage<T> empty() {
+        return new NotePage<>(Collections.emptyList(), null);
+    }
+
+    public List<T> getItems() { return items; }
+
+    public NoteCursor getNextCursor() { return nextCursor; }
+
+    public String getNextToken() { return nextCursor != null ? nextCursor.toToken() : null; }
+
+    public boolean isHasMore() { return nextCursor != null; }
+
+    public int getSize() { return items.size(); }
+}
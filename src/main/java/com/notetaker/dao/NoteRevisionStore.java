@@ -0,0 +1,421 @@
+package com.notetaker.dao;
+
+import com.notetaker.model.CompressedTextConverter;
+import com.notetaker.model.NoteRevision;
+import com.notetaker.util.AppConfig;
+import com.notetaker.util.LineDiff;
+import com.notetaker.util.TextPatch;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Note Revision Store - the history of a note as rows of note_revisions
+ * Purpose: Record every saved state of a note compactly and rebuild any of them.
+ * A revision is stored either as the full text (snapshot) or as the edits from
+ * the previous revision (delta, a TextPatch from LineDiff), both Deflate-compressed.
+ * A snapshot is taken at least every notes.revisions.snapshotInterval revisions,
+ * so rebuilding one never applies more deltas than that; every step is checked
+ * against the stored length and hash of its text.
+ *
+ * Storage grows with the size of the edits: compact() drops and merges revisions
+ * by the retention settings (notes.revisions.*) and re-encodes the ones left.
+ * Works on the JDBC connection (and transaction) of the caller; callers hold the
+ * note's row lock while they write (taken by their UPDATE of the note or by
+ * lockCurrent), which orders the revisions of one note.
+ */
+final class NoteRevisionStore {
+    static final boolean ENABLED = AppConfig.getBoolean("notes.revisions.enabled", true);
+    private static final int SNAPSHOT_INTERVAL = Math.max(1, AppConfig.getInt("notes.revisions.snapshotInterval", 20));
+    private static final int MAX_PER_NOTE = Math.max(1, AppConfig.getInt("notes.revisions.maxPerNote", 200));
+    private static final long KEEP_MILLIS = AppConfig.getLong("notes.revisions.keepDays", 90L) * 24 * 3600 * 1000;
+    private static final long MERGE_AFTER_MILLIS = AppConfig.getLong("notes.revisions.mergeAfterHours", 24L) * 3600 * 1000;
+    private static final long MERGE_WINDOW_MILLIS = AppConfig.getLong("notes.revisions.mergeWindowMinutes", 30L) * 60 * 1000;
+
+    private NoteRevisionStore() {}
+
+    /**
+     * The note as it is before an update, with its row locked until the transaction
+     * ends; null when the user has no such note
+     */
+    static Current lockCurrent(Connection connection, Long noteId, Long userId) throws SQLException {
+        return selectCurrent(connection, noteId, userId, " FOR UPDATE");
+    }
+
+    /**
+     * The note as it is before an update, without a lock: the caller updates the row
+     * only if it is still at this version. Null when the user has no such note.
+     */
+    static Current readCurrent(Connection connection, Long noteId, Long userId) throws SQLException {
+        return selectCurrent(connection, noteId, userId, "");
+    }
+
+    private static Current selectCurrent(Connection connection, Long noteId, Long userId, String lock)
+            throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT title, content, chunked, updated_at, version FROM notes WHERE id = ? AND user_id = ?" + lock)) {
+            select.setLong(1, noteId);
+            select.setLong(2, userId);
+            try (ResultSet row = select.executeQuery()) {
+                if (!row.next()) {
+                    return null;
+                }
+                return new Current(row.getString(1), CompressedTextConverter.decode(row.getString(2)),
+                        row.getBoolean(3), row.getTimestamp(4), row.getLong(5));
+            }
+        }
+    }
+
+    /**
+     * Record the state an update left the note in (a null content keeps the text of
+     * before). The first revision of a note also records the state it replaced.
+     * Large notes have no history: their bodies are not recorded. Returns the new
+     * revision number, or 0 when nothing was recorded.
+     */
+    static int record(Connection connection, Long noteId, Current before, String title, String content,
+                      Timestamp now) throws SQLException {
+        String previous = before.chunked() ? null : nullToEmpty(before.content());
+        String text = content != null ? content : previous;
+        if (text == null) {
+            return 0;
+        }
+
+        Head head = head(connection, noteId);
+        if (head == null && previous != null) {
+            Timestamp savedAt = before.updatedAt() != null ? before.updatedAt() : now;
+            insert(connection, noteId, 1, before.title(), previous, true, encodeText(previous), savedAt);
+            head = new Head(1, 1, previous.length(), TextPatch.fingerprint(previous));
+        }
+
+        int revision = head != null ? head.revision() + 1 : 1;
+        // Only chain a delta onto a revision that holds exactly the text it was made from
+        boolean continues = head != null && previous != null
+                && head.length() == previous.length() && head.hash().equals(TextPatch.fingerprint(previous));
+        byte[] data = null;
+        if (continues && revision - head.lastSnapshot() < SNAPSHOT_INTERVAL) {
+            data = smallDelta(previous, text);
+        }
+        insert(connection, noteId, revision, title, text, data == null, data != null ? data : encodeText(text), now);
+        return revision;
+    }
+
+    /**
+     * The note's revisions, newest first, without their texts
+     */
+    static List<NoteRevision> list(Connection connection, Long noteId) throws SQLException {
+        List<NoteRevision> revisions = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT revision, title, content_length, snapshot, OCTET_LENGTH(data), created_at " +
+                        "FROM note_revisions WHERE note_id = ? ORDER BY revision DESC")) {
+            select.setLong(1, noteId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    revisions.add(new NoteRevision(noteId, rows.getInt(1), rows.getString(2), rows.getInt(3),
+                            rows.getBoolean(4), rows.getInt(5), rows.getTimestamp(6), null));
+                }
+            }
+        }
+        return revisions;
+    }
+
+    /**
+     * One revision with its text, rebuilt from the snapshot at or before it; null
+     * when the note has no such revision
+     */
+    static NoteRevision load(Connection connection, Long noteId, int revision) throws SQLException {
+        Integer base;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT MAX(revision) FROM note_revisions WHERE note_id = ? AND revision <= ? AND snapshot = TRUE")) {
+            select.setLong(1, noteId);
+            select.setInt(2, revision);
+            try (ResultSet row = select.executeQuery()) {
+                base = row.next() ? row.getObject(1, Integer.class) : null;
+            }
+        }
+        if (base == null) {
+            return null;
+        }
+
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT revision, title, snapshot, content_length, content_hash, data, created_at " +
+                        "FROM note_revisions WHERE note_id = ? AND revision BETWEEN ? AND ? ORDER BY revision")) {
+            select.setLong(1, noteId);
+            select.setInt(2, base);
+            select.setInt(3, revision);
+            try (ResultSet rows = select.executeQuery()) {
+                String text = null;
+                while (rows.next()) {
+                    text = rebuild(noteId, text, rows.getInt(1), rows.getBoolean(3), rows.getInt(4),
+                            rows.getString(5), rows.getBytes(6));
+                    if (rows.getInt(1) == revision) {
+                        return new NoteRevision(noteId, revision, rows.getString(2), rows.getInt(4),
+                                rows.getBoolean(3), rows.getBytes(6).length, rows.getTimestamp(7), text);
+                    }
+                }
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Notes on this database whose history may have revisions to drop or merge:
+     * pairs of note id and user id, in note id order after the given id
+     */
+    static List<long[]> compactionCandidates(Connection connection, long afterNoteId, int limit, long now)
+            throws SQLException {
+        long cutoff = now - (KEEP_MILLIS > 0 ? Math.min(KEEP_MILLIS, MERGE_AFTER_MILLIS) : MERGE_AFTER_MILLIS);
+        List<long[]> notes = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT r.note_id, n.user_id FROM note_revisions r JOIN notes n ON n.id = r.note_id " +
+                        "WHERE r.note_id > ? GROUP BY r.note_id, n.user_id " +
+                        "HAVING COUNT(*) > ? OR (COUNT(*) > 1 AND MIN(r.created_at) < ?) " +
+                        "ORDER BY r.note_id LIMIT " + limit)) {
+            select.setLong(1, afterNoteId);
+            select.setInt(2, MAX_PER_NOTE);
+            select.setTimestamp(3, new Timestamp(cutoff));
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    notes.add(new long[]{rows.getLong(1), rows.getLong(2)});
+                }
+            }
+        }
+        return notes;
+    }
+
+    /**
+     * Apply the retention settings to one note's history: drop the revisions past
+     * keepDays and beyond maxPerNote, merge old revisions into the next one kept, and
+     * re-encode what is left so every revision can still be rebuilt. The newest
+     * revision always stays. Returns the number of revisions removed.
+     */
+    static int compact(Connection connection, Long noteId, long now) throws SQLException {
+        List<long[]> revisions = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT revision, created_at FROM note_revisions WHERE note_id = ? ORDER BY revision")) {
+            select.setLong(1, noteId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    revisions.add(new long[]{rows.getInt(1), rows.getTimestamp(2).getTime()});
+                }
+            }
+        }
+        Set<Integer> keep = retained(revisions, now);
+        if (keep.size() == revisions.size()) {
+            return 0;
+        }
+
+        List<StoredRow> rows = new ArrayList<>();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT revision, snapshot, content_length, content_hash, data FROM note_revisions " +
+                        "WHERE note_id = ? ORDER BY revision")) {
+            select.setLong(1, noteId);
+            try (ResultSet result = select.executeQuery()) {
+                while (result.next()) {
+                    rows.add(new StoredRow(result.getInt(1), result.getBoolean(2), result.getInt(3),
+                            result.getString(4), result.getBytes(5)));
+                }
+            }
+        }
+
+        int removed = 0;
+        String text = null;
+        String keptText = null;
+        int sinceSnapshot = 0;
+        boolean predecessorDropped = false;
+        try (PreparedStatement delete = connection.prepareStatement(
+                "DELETE FROM note_revisions WHERE note_id = ? AND revision = ?");
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE note_revisions SET snapshot = ?, data = ? WHERE note_id = ? AND revision = ?")) {
+            for (StoredRow row : rows) {
+                text = rebuild(noteId, text, row.revision(), row.snapshot(), row.length(), row.hash(), row.data());
+                if (!keep.contains(row.revision())) {
+                    delete.setLong(1, noteId);
+                    delete.setInt(2, row.revision());
+                    delete.executeUpdate();
+                    removed++;
+                    predecessorDropped = true;
+                    continue;
+                }
+
+                // Kept deltas stay as they are unless the text they start from is gone,
+                // or the chain of deltas since the last snapshot would get too long
+                boolean snapshot = row.snapshot();
+                if (!snapshot && (keptText == null || predecessorDropped || sinceSnapshot + 1 >= SNAPSHOT_INTERVAL)) {
+                    byte[] data = keptText != null && sinceSnapshot + 1 < SNAPSHOT_INTERVAL
+                            ? smallDelta(keptText, text) : null;
+                    snapshot = data == null;
+                    update.setBoolean(1, snapshot);
+                    update.setBytes(2, snapshot ? encodeText(text) : data);
+                    update.setLong(3, noteId);
+                    update.setInt(4, row.revision());
+                    update.executeUpdate();
+                }
+                sinceSnapshot = snapshot ? 0 : sinceSnapshot + 1;
+                keptText = text;
+                predecessorDropped = false;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * The revisions the retention settings keep, from a history in revision order
+     * (pairs of revision number and save time)
+     */
+    private static Set<Integer> retained(List<long[]> revisions, long now) {
+        Set<Integer> keep = new HashSet<>();
+        long nextKeptAt = -1;
+        for (int i = revisions.size() - 1; i >= 0 && keep.size() < MAX_PER_NOTE; i--) {
+            int revision = (int) revisions.get(i)[0];
+            long savedAt = revisions.get(i)[1];
+            if (nextKeptAt >= 0) {
+                long age = now - savedAt;
+                if (KEEP_MILLIS > 0 && age > KEEP_MILLIS) {
+                    break;
+                }
+                if (age > MERGE_AFTER_MILLIS && nextKeptAt - savedAt < MERGE_WINDOW_MILLIS) {
+                    continue;
+                }
+            }
+            keep.add(revision);
+            nextKeptAt = savedAt;
+        }
+        return keep;
+    }
+
+    /**
+     * The text of a stored revision, given the text of the one before it
+     */
+    private static String rebuild(Long noteId, String previous, int revision, boolean snapshot, int length,
+                                  String hash, byte[] data) {
+        String text;
+        if (snapshot) {
+            text = new String(inflate(data), StandardCharsets.UTF_8);
+        } else if (previous == null) {
+            throw new IllegalStateException("Revision " + revision + " of note " + noteId + " has no base");
+        } else {
+            try {
+                text = TextPatch.read(new DataInputStream(new ByteArrayInputStream(inflate(data)))).apply(previous);
+            } catch (IOException | IllegalArgumentException e) {
+                throw new IllegalStateException("Revision " + revision + " of note " + noteId + " does not apply", e);
+            }
+        }
+        if (text.length() != length || !TextPatch.fingerprint(text).equals(hash)) {
+            throw new IllegalStateException("Revision " + revision + " of note " + noteId + " fails its checksum");
+        }
+        return text;
+    }
+
+    /**
+     * The encoded delta from one text to the next, or null when a snapshot is about
+     * as small (then the delta would only lengthen every rebuild)
+     */
+    private static byte[] smallDelta(String from, String to) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            LineDiff.patch(from, to).write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        byte[] delta = deflate(raw.toByteArray());
+        return delta.length * 2 <= to.length() ? delta : null;
+    }
+
+    private static byte[] encodeText(String text) {
+        return deflate(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Head head(Connection connection, Long noteId) throws SQLException {
+        Head head = null;
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT revision, content_length, content_hash FROM note_revisions " +
+                        "WHERE note_id = ? ORDER BY revision DESC LIMIT 1")) {
+            select.setLong(1, noteId);
+            try (ResultSet row = select.executeQuery()) {
+                if (row.next()) {
+                    head = new Head(row.getInt(1), 0, row.getInt(2), row.getString(3));
+                }
+            }
+        }
+        if (head == null) {
+            return null;
+        }
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT MAX(revision) FROM note_revisions WHERE note_id = ? AND snapshot = TRUE")) {
+            select.setLong(1, noteId);
+            try (ResultSet row = select.executeQuery()) {
+                int lastSnapshot = row.next() ? row.getInt(1) : 0;
+                return new Head(head.revision(), lastSnapshot, head.length(), head.hash());
+            }
+        }
+    }
+
+    private static void insert(Connection connection, Long noteId, int revision, String title, String text,
+                               boolean snapshot, byte[] data, Timestamp createdAt) throws SQLException {
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO note_revisions (note_id, revision, title, snapshot, content_length, content_hash, " +
+                        "data, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            insert.setLong(1, noteId);
+            insert.setInt(2, revision);
+            insert.setString(3, title);
+            insert.setBoolean(4, snapshot);
+            insert.setInt(5, text.length());
+            insert.setString(6, TextPatch.fingerprint(text));
+            insert.setBytes(7, data);
+            insert.setTimestamp(8, createdAt);
+            insert.executeUpdate();
+        }
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        ByteArrayOutputStream packed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream out = new DeflaterOutputStream(packed, deflater)) {
+            out.write(raw);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return packed.toByteArray();
+    }
+
+    private static byte[] inflate(byte[] packed) {
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(packed))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Stored revision is not a valid compressed body", e);
+        }
+    }
+
+    private static String nullToEmpty(String text) {
+        return text != null ? text : "";
+    }
+
+    /**
+     * A note as it was before an update
+     */
+    record Current(String title, String content, boolean chunked, Timestamp updatedAt, long version) {}
+
+    // The newest revision of a note, with the newest snapshot at or before it
+    private record Head(int revision, int lastSnapshot, int length, String hash) {}
+
+    private record StoredRow(int revision, boolean snapshot, int length, String hash, byte[] data) {}
+}
@@ -0,0 +1,15 @@
+package com.notetaker.dao;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Date;
+
+/**
+ * Receives notes one row at a time from NoteDAO.streamNotesByUser.
+ * The content Reader (null for a note without content) is only valid during the call;
+ * for large notes it reads their chunks as it goes.
+ */
+@FunctionalInterface
+public interface NoteRowHandler {
+    void handle(Long id, String title, Reader content, Date createdAt, Date updatedAt) throws IOException;
+}
@@ -0,0 +1,39 @@
+package com.notetaker.dao;
+
+/**
+ * Outcome of a note update
+ * Purpose: Tell an editor whether their change was applied and which version
+ * the note has now: after the update, or the newer one that made it conflict,
+ * so the client can show the current note and let the user decide.
+ */
+public final class UpdateResult {
+    public enum Status {
+        /** The note was changed */
+        UPDATED,
+        /** The change was accepted by the draft buffer and is written later (see DraftBuffer) */
+        BUFFERED,
+        /** No note with that id belongs to the user */
+        NOT_FOUND,
+        /** The note was changed by someone else since the expected version */
+        CONFLICT,
+        /** The statement failed and was rolled back */
+        FAILED
+    }
+
+    private final Status status;
+    private final long version;
+
+    public UpdateResult(Status status, long version) {
+        this.status = status;
+        this.version = version;
+    }
+
+    public Status getStatus() { return status; }
+
+    /**
+     * The note's current version; -1 when it is not known (not found, failed)
+     */
+    public long getVersion() { return version; }
+
+    public boolean isUpdated() { return status == Status.UPDATED; }
+}
@@ -1,101 +1,92 @@
 package com.notetaker.dao;
 
 import com.notetaker.model.User;
+import com.notetaker.model.UserStats;
 import com.notetaker.util.HibernateUtil;
+import com.notetaker.util.UnitOfWork;
 import org.hibernate.Session;
-import org.hibernate.Transaction;
 import org.hibernate.query.Query;
 
 public class UserDAO {
 
     public boolean saveUser(User user) {
-        Session session = null;
-        Transaction transaction = null;
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            transaction = session.beginTransaction();
+            boolean owner = UnitOfWork.begin();
+            Session session = UnitOfWork.currentSession();
             session.persist(user);
-            transaction.commit();
+            int shard = HibernateUtil.getShardRouter().shardFor(user.getId());
+            if (shard == 0) {
+                session.persist(new UserStats(user.getId(), 0));
+            } else {
+                // The user's notes live on another shard, which needs its own copy of the user.
+                // Should this fail, the first write of a note makes the copy (ShardRouter.prepareWrite).
+                UnitOfWork.afterCommit(() -> HibernateUtil.getShardRouter().copyUser(user.getId(), shard));
+            }
+            UnitOfWork.recordWrite(user.getId());
+            UnitOfWork.commit(owner);
             return true;
         } catch (Exception e) {
-            if (transaction != null) {
-                try {
-                    transaction.rollback();
-                } catch (Exception rollbackEx) {
-                    System.err.println("Error during rollback: " + rollbackEx.getMessage());
-                }
-            }
+            UnitOfWork.rollback();
             e.printStackTrace();
             return false;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    System.err.println("Error closing session: " + closeEx.getMessage());
-                }
-            }
         }
     }
 
     public User getUserByUsername(String username) {
-        Session session = null;
+        return findUserByUsername(username, true);
+    }
+
+    private User findUserByUsername(String username, boolean replicaAllowed) {
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
+            boolean owner = replicaAllowed ? UnitOfWork.beginRead(null) : UnitOfWork.begin();
+            boolean replica = UnitOfWork.isReplicaRead();
+            Session session = UnitOfWork.currentSession();
             Query<User> query = session.createQuery("FROM User WHERE username = :username", User.class);
             query.setParameter("username", username);
-            return query.uniqueResult();
+            // Replica results must not end up in the shared query cache
+            query.setCacheable(!replica);
+            User user = query.uniqueResult();
+            UnitOfWork.finish(owner);
+            if (user == null && replica) {
+                // A user who has just registered may not have reached the replica yet
+                return findUserByUsername(username, false);
+            }
+            return user;
         } catch (Exception e) {
+            UnitOfWork.rollback();
             e.printStackTrace();
             return null;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    System.err.println("Error closing session: " + closeEx.getMessage());
-                }
-            }
         }
     }
 
     public User getUserByEmail(String email) {
-        Session session = null;
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
+            boolean owner = UnitOfWork.begin();
+            Session session = UnitOfWork.currentSession();
             Query<User> query = session.createQuery("FROM User WHERE email = :email", User.class);
             query.setParameter("email", email);
-            return query.uniqueResult();
+            query.setCacheable(true);
+            User user = query.uniqueResult();
+            UnitOfWork.finish(owner);
+            return user;
         } catch (Exception e) {
+            UnitOfWork.rollback();
             e.printStackTrace();
             return null;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    System.err.println("Error closing session: " + closeEx.getMessage());
-                }
-            }
         }
     }
 
     public User getUserById(Long id) {
-        Session session = null;
         try {
-            session = HibernateUtil.getSessionFactory().openSession();
-            return session.get(User.class, id);
+            boolean owner = UnitOfWork.begin();
+            Session session = UnitOfWork.currentSession();
+            User user = session.get(User.class, id);
+            UnitOfWork.finish(owner);
+            return user;
         } catch (Exception e) {
+            UnitOfWork.rollback();
             e.printStackTrace();
             return null;
-        } finally {
-            if (session != null) {
-                try {
-                    session.close();
-                } catch (Exception closeEx) {
-                    System.err.println("Error closing session: " + closeEx.getMessage());
-                }
-            }
         }
     }
 }
\ No newline at end of file
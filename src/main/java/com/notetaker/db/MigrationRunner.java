@@ -0,0 +1,258 @@
+package com.notetaker.db;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * Schema Migration Runner - versioned DDL applied at startup
+ * Purpose: Bring the database schema up to date from the numbered scripts in
+ * db/migration (listed in migrations.txt, named V{version}__{description}.sql).
+ * Applied versions are recorded with a checksum in schema_version, so every
+ * script runs exactly once per database. A MySQL named lock keeps two nodes
+ * starting at the same time from migrating concurrently.
+ *
+ * Scripts written before migrations existed may meet objects that are already
+ * there (created by hbm2ddl or by hand); "already exists" errors are logged and
+ * skipped so those databases can adopt the migration history.
+ */
+public class MigrationRunner {
+    private static final Logger logger = LoggerFactory.getLogger(MigrationRunner.class);
+
+    private static final String LOCATION = "db/migration/";
+    private static final String INDEX = LOCATION + "migrations.txt";
+    private static final Pattern SCRIPT_NAME = Pattern.compile("V(\\d+)__(.+)\\.sql");
+    private static final String LOCK_NAME = "notetaker_schema_migration";
+    private static final int LOCK_TIMEOUT_SECONDS = 300;
+
+    // MySQL errors for objects that already exist: table, column, key name, primary key, foreign key
+    private static final Set<Integer> ALREADY_EXISTS_ERRORS = Set.of(1050, 1060, 1061, 1068, 1826);
+
+    private final DataSource dataSource;
+
+    public MigrationRunner(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Apply every pending migration. Returns the number of scripts applied.
+     */
+    public int migrate() throws SQLException, IOException {
+        List<Migration> migrations = loadMigrations();
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            boolean mysql = connection.getMetaData().getDatabaseProductName().toLowerCase().contains("mysql");
+            if (mysql) {
+                acquireLock(connection);
+            }
+            try {
+                createVersionTable(connection);
+                Map<Integer, Long> applied = appliedVersions(connection);
+
+                int count = 0;
+                for (Migration migration : migrations) {
+                    Long checksum = applied.get(migration.version);
+                    if (checksum != null) {
+                        if (checksum != migration.checksum) {
+                            logger.warn("⚠️ Migration {} was changed after it was applied (checksum {} != {})",
+                                    migration.script, migration.checksum, checksum);
+                        }
+                        continue;
+                    }
+                    apply(connection, migration);
+                    count++;
+                }
+
+                logger.info("✅ Schema is up to date - {} migration(s) applied, {} known",
+                        count, migrations.size());
+                return count;
+            } finally {
+                if (mysql) {
+                    releaseLock(connection);
+                }
+            }
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        logger.info("🛠️ Applying migration {}", migration.script);
+        long start = System.currentTimeMillis();
+
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : migration.statements) {
+                try {
+                    statement.execute(sql);
+                } catch (SQLException e) {
+                    if (!ALREADY_EXISTS_ERRORS.contains(e.getErrorCode())) {
+                        logger.error("❌ Migration {} failed on statement:\n{}", migration.script, sql);
+                        throw e;
+                    }
+                    logger.info("ℹ️ Migration {}: {} - skipped", migration.script, e.getMessage());
+                }
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO schema_version (version, description, script, checksum, installed_at, execution_ms) " +
+                        "VALUES (?, ?, ?, ?, ?, ?)")) {
+            insert.setInt(1, migration.version);
+            insert.setString(2, migration.description);
+            insert.setString(3, migration.script);
+            insert.setLong(4, migration.checksum);
+            insert.setTimestamp(5, new Timestamp(System.currentTimeMillis()));
+            insert.setLong(6, elapsed);
+            insert.executeUpdate();
+        }
+        logger.info("✅ Migration {} applied in {} ms", migration.script, elapsed);
+    }
+
+    private void createVersionTable(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INT NOT NULL PRIMARY KEY, " +
+                    "description VARCHAR(200) NOT NULL, " +
+                    "script VARCHAR(255) NOT NULL, " +
+                    "checksum BIGINT NOT NULL, " +
+                    "installed_at TIMESTAMP NOT NULL, " +
+                    "execution_ms BIGINT NOT NULL)");
+        }
+    }
+
+    private Map<Integer, Long> appliedVersions(Connection connection) throws SQLException {
+        Map<Integer, Long> applied = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT version, checksum FROM schema_version")) {
+            while (rows.next()) {
+                applied.put(rows.getInt(1), rows.getLong(2));
+            }
+        }
+        return applied;
+    }
+
+    private void acquireLock(Connection connection) throws SQLException {
+        try (PreparedStatement lock = connection.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            lock.setString(1, LOCK_NAME);
+            lock.setInt(2, LOCK_TIMEOUT_SECONDS);
+            try (ResultSet result = lock.executeQuery()) {
+                if (!result.next() || result.getInt(1) != 1) {
+                    throw new SQLException("Timed out waiting for the schema migration lock");
+                }
+            }
+        }
+    }
+
+    private void releaseLock(Connection connection) {
+        try (PreparedStatement unlock = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            unlock.setString(1, LOCK_NAME);
+            unlock.executeQuery().close();
+        } catch (SQLException e) {
+            logger.warn("⚠️ Could not release the schema migration lock: {}", e.getMessage());
+        }
+    }
+
+    private List<Migration> loadMigrations() throws IOException {
+        List<Migration> migrations = new ArrayList<>();
+        int lastVersion = 0;
+        for (String script : readLines(INDEX)) {
+            Matcher name = SCRIPT_NAME.matcher(script);
+            if (!name.matches()) {
+                throw new IOException("Migration script name must look like V1__description.sql: " + script);
+            }
+            int version = Integer.parseInt(name.group(1));
+            if (version <= lastVersion) {
+                throw new IOException("Migrations must be listed in increasing version order: " + script);
+            }
+            lastVersion = version;
+
+            List<String> lines = readLines(LOCATION + script);
+            CRC32 crc = new CRC32();
+            for (String line : lines) {
+                crc.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            migrations.add(new Migration(version, name.group(2).replace('_', ' '), script,
+                    crc.getValue(), splitStatements(lines)));
+        }
+        return migrations;
+    }
+
+    /**
+     * Split a script into statements at lines ending with ';', dropping comment lines
+     */
+    private static List<String> splitStatements(List<String> lines) {
+        List<String> statements = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.endsWith(";")) {
+                current.append(trimmed, 0, trimmed.length() - 1);
+                statements.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(trimmed).append('\n');
+            }
+        }
+        if (!current.toString().isBlank()) {
+            statements.add(current.toString().trim());
+        }
+        return statements;
+    }
+
+    /**
+     * Non-empty, non-comment lines of a classpath resource
+     */
+    private static List<String> readLines(String resource) throws IOException {
+        InputStream in = MigrationRunner.class.getClassLoader().getResourceAsStream(resource);
+        if (in == null) {
+            throw new IOException("Missing migration resource: " + resource);
+        }
+        List<String> lines = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("--") && !trimmed.startsWith("#")) {
+                    lines.add(line);
+                }
+            }
+        }
+        return lines;
+    }
+
+    private static final class Migration {
+        final int version;
+        final String description;
+        final String script;
+        final long checksum;
+        final List<String> statements;
+
+        Migration(int version, String description, String script, long checksum, List<String> statements) {
+            this.version = version;
+            this.description = description;
+            this.script = script;
+            this.checksum = checksum;
+            this.statements = statements;
+        }
+    }
+}
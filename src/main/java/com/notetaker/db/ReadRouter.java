@@ -0,0 +1,155 @@
+package com.notetaker.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notetaker.util.AppConfig;
+import com.notetaker.util.PooledDataSourceFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Read Router - send read-only work to replica databases
+ * Purpose: Hold one connection pool per read replica (db.replica.urls) and hand
+ * out replica connections for reads, chosen round-robin or by the fewest busy
+ * connections (db.replica.selection). With no replicas configured every read
+ * stays on the primary.
+ *
+ * Replicas lag behind the primary, so a user who has just changed their notes
+ * keeps reading from the primary for db.replica.readYourWritesMs after the
+ * write committed and sees their own change. Other users may briefly see the
+ * replica's older state.
+ */
+public class ReadRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ReadRouter.class);
+
+    public enum Selection {
+        ROUND_ROBIN, LEAST_LOADED;
+
+        static Selection fromConfig() {
+            String value = AppConfig.getString("db.replica.selection", "round-robin");
+            try {
+                return valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+            } catch (IllegalArgumentException e) {
+                logger.warn("⚠️ Unknown db.replica.selection '{}', using round-robin", value);
+                return ROUND_ROBIN;
+            }
+        }
+    }
+
+    private final List<HikariDataSource> replicas;
+    private final Selection selection;
+    private final Cache<Long, Boolean> recentWriters;
+    private final AtomicInteger next = new AtomicInteger();
+
+    ReadRouter(List<HikariDataSource> replicas, Selection selection, long readYourWritesMillis) {
+        this.replicas = replicas;
+        this.selection = selection;
+        this.recentWriters = readYourWritesMillis > 0
+                ? Caffeine.newBuilder().expireAfterWrite(Duration.ofMillis(readYourWritesMillis)).build()
+                : null;
+    }
+
+    /**
+     * Build the replica pools from db.replica.* in notetaker.properties. Driver
+     * and credentials default to the primary's.
+     */
+    public static ReadRouter fromConfig(String driverClass, String username, String password) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        String urls = AppConfig.getString("db.replica.urls", "");
+        for (String url : urls.split(",")) {
+            if (!url.isBlank()) {
+                replicas.add(PooledDataSourceFactory.create("notetaker-replica-" + (replicas.size() + 1),
+                        AppConfig.getString("db.replica.driver", driverClass),
+                        url.trim(),
+                        AppConfig.getString("db.replica.username", username),
+                        AppConfig.getString("db.replica.password", password)));
+            }
+        }
+
+        Selection selection = Selection.fromConfig();
+        long window = AppConfig.getLong("db.replica.readYourWritesMs", 5_000L);
+        if (replicas.isEmpty()) {
+            logger.info("📖 No read replicas configured, reads use the primary");
+        } else {
+            logger.info("📖 Routing reads to {} replica(s) - selection: {}, read-your-writes window: {} ms",
+                    replicas.size(), selection, window);
+        }
+        return new ReadRouter(replicas, selection, window);
+    }
+
+    /**
+     * Whether a read for this user (null when unknown) may be served by a replica
+     */
+    public boolean canRouteToReplica(Long userId) {
+        if (replicas.isEmpty()) {
+            return false;
+        }
+        return userId == null || recentWriters == null || recentWriters.getIfPresent(userId) == null;
+    }
+
+    /**
+     * Remember that the user's data just changed on the primary; call after commit
+     */
+    public void recordWrite(Long userId) {
+        if (recentWriters != null && userId != null && !replicas.isEmpty()) {
+            recentWriters.put(userId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Borrow a connection from the selected replica. If it cannot be reached the
+     * other replicas are tried in turn; the last failure is rethrown.
+     */
+    public Connection getReplicaConnection() throws SQLException {
+        int first = selectReplica();
+        SQLException failure = null;
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get((first + i) % replicas.size());
+            try {
+                return replica.getConnection();
+            } catch (SQLException e) {
+                logger.warn("⚠️ Read replica '{}' unavailable: {}", replica.getPoolName(), e.getMessage());
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (selection == Selection.ROUND_ROBIN) {
+            return start;
+        }
+        // Fewest connections in use or waited for; ties go round-robin
+        int best = start;
+        int bestLoad = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            HikariPoolMXBean pool = replicas.get(index).getHikariPoolMXBean();
+            int load = pool != null
+                    ? pool.getActiveConnections() + pool.getThreadsAwaitingConnection()
+                    : 0;
+            if (load < bestLoad) {
+                best = index;
+                bestLoad = load;
+            }
+        }
+        return best;
+    }
+
+    public void close() {
+        for (HikariDataSource replica : replicas) {
+            PooledDataSourceFactory.close(replica);
+        }
+    }
+}
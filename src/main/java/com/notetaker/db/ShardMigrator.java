@@ -0,0 +1,544 @@
+package com.notetaker.db;
+
+import com.notetaker.util.HibernateUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Shard Migrator - place and move users' notes between shards
+ * Purpose: Operator tool for the note shards configured in db.shards.urls.
+ *
+ *   pin                   record every user's current shard in the directory where it
+ *                         differs from the hash ring (run after adding a shard to
+ *                         db.shards.urls, before the application uses the new list),
+ *                         and copy users onto the shards that hold their notes
+ *   move USER_ID SHARD    move one user's notes to another shard while the
+ *                         application keeps running
+ *   rebalance             move every pinned user to the shard the ring assigns
+ *
+ * A move copies the notes in id batches, then repeats the copy for notes changed
+ * since the previous pass until few are left. Only then are the user's writes
+ * frozen (ShardRouter.checkWritable) for the last pass, the deletions and a count
+ * check, which usually takes a few seconds; reads keep working throughout. If the
+ * counts differ the move is abandoned and the user stays on the old shard.
+ *
+ * Usage (after mvn package):
+ *   java -cp "target/classes:target/lib/*" com.notetaker.db.ShardMigrator move 42 1
+ */
+public class ShardMigrator {
+    private static final Logger logger = LoggerFactory.getLogger(ShardMigrator.class);
+
+    private static final int BATCH_SIZE = 500;
+    private static final int MAX_CATCH_UP_PASSES = 5;
+    // Allowance for clock differences between application nodes and the database
+    private static final long CLOCK_MARGIN_MILLIS = 2000L;
+
+    private final ShardRouter router;
+
+    public ShardMigrator(ShardRouter router) {
+        this.router = router;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.println("Usage: ShardMigrator pin | move USER_ID SHARD | rebalance");
+            System.exit(2);
+        }
+        try {
+            ShardMigrator migrator = new ShardMigrator(HibernateUtil.getShardRouter());
+            switch (args[0]) {
+                case "pin" -> migrator.pinAll();
+                case "move" -> migrator.move(Long.parseLong(args[1]), Integer.parseInt(args[2]));
+                case "rebalance" -> migrator.rebalance();
+                default -> {
+                    System.err.println("Unknown command: " + args[0]);
+                    System.exit(2);
+                }
+            }
+        } finally {
+            HibernateUtil.shutdown();
+        }
+    }
+
+    /**
+     * Pin users whose notes are not on their ring shard and make sure every shard
+     * has the users it holds notes for. Returns the number of users pinned.
+     */
+    public int pinAll() throws SQLException {
+        int pinned = 0;
+        for (int shard = 0; shard < router.getShardCount(); shard++) {
+            for (Long userId : usersWithNotes(HibernateUtil.getDataSource(shard))) {
+                ShardRouter.Placement placement = router.lookup(userId);
+                if (placement.getShard() != shard) {
+                    router.place(userId, shard, false);
+                    pinned++;
+                    logger.info("📌 User ID: {} pinned to shard {} (ring: {})", userId, shard, router.ringShard(userId));
+                }
+            }
+        }
+
+        int mirrored = 0;
+        Long lastId = 0L;
+        while (true) {
+            List<UserRow> users = readUsers(lastId);
+            for (UserRow user : users) {
+                int shard = router.lookup(user.id).getShard();
+                if (shard != 0) {
+                    prepare(HibernateUtil.getDataSource(shard), user);
+                    mirrored++;
+                }
+                lastId = user.id;
+            }
+            if (users.size() < BATCH_SIZE) {
+                break;
+            }
+        }
+
+        logger.info("✅ Pinned {} user(s); {} user(s) checked on other shards", pinned, mirrored);
+        return pinned;
+    }
+
+    /**
+     * Move every pinned user whose shard differs from the ring's choice
+     */
+    public int rebalance() throws SQLException, InterruptedException {
+        List<long[]> pinned = new ArrayList<>();
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT user_id, shard_id FROM user_shards ORDER BY user_id");
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                pinned.add(new long[]{rows.getLong(1), rows.getInt(2)});
+            }
+            connection.commit();
+        }
+
+        int moved = 0;
+        for (long[] entry : pinned) {
+            int target = router.ringShard(entry[0]);
+            if (target != entry[1]) {
+                move(entry[0], target);
+                moved++;
+            }
+        }
+        logger.info("✅ Rebalance done - {} user(s) moved", moved);
+        return moved;
+    }
+
+    /**
+     * Move one user's notes to the target shard
+     */
+    public void move(Long userId, int target) throws SQLException, InterruptedException {
+        if (target < 0 || target >= router.getShardCount()) {
+            throw new IllegalArgumentException("No shard " + target + " configured");
+        }
+        ShardRouter.Placement placement = router.lookup(userId);
+        int source = placement.getShard();
+        if (source == target) {
+            logger.info("ℹ️ Notes of user ID: {} are already on shard {}", userId, target);
+            return;
+        }
+        if (placement.isMoving()) {
+            logger.warn("⚠️ User ID: {} was left frozen by an earlier move, resuming", userId);
+        }
+        UserRow user = readUser(userId);
+        if (user == null) {
+            throw new IllegalArgumentException("No user with ID " + userId);
+        }
+
+        DataSource from = HibernateUtil.getDataSource(source);
+        DataSource to = HibernateUtil.getDataSource(target);
+        logger.info("🚚 Moving notes of user ID: {} from shard {} to shard {}", userId, source, target);
+        prepare(to, user);
+
+        // Bulk copy, then catch up with the notes changed meanwhile
+        long passStart = System.currentTimeMillis();
+        long copied = copyNotes(from, to, userId, null);
+        logger.info("📦 Copied {} notes", copied);
+        for (int pass = 1; pass <= MAX_CATCH_UP_PASSES; pass++) {
+            Timestamp since = new Timestamp(passStart - CLOCK_MARGIN_MILLIS);
+            passStart = System.currentTimeMillis();
+            long changed = copyNotes(from, to, userId, since);
+            logger.info("📦 Catch-up pass {} copied {} changed notes", pass, changed);
+            if (changed < BATCH_SIZE) {
+                break;
+            }
+        }
+
+        // Freeze writes and wait until every node has seen it
+        router.place(userId, source, true);
+        waitForDirectory();
+        long count;
+        try {
+            copyNotes(from, to, userId, new Timestamp(passStart - CLOCK_MARGIN_MILLIS));
+            deleteMissing(from, to, userId);
+            count = countNotes(from, userId);
+            long copiedCount = countNotes(to, userId);
+            if (count != copiedCount) {
+                throw new IllegalStateException("Note count mismatch after copy: " + count + " on shard " +
+                        source + ", " + copiedCount + " on shard " + target);
+            }
+            setNoteCount(to, userId, count);
+        } catch (SQLException | RuntimeException e) {
+            logger.error("❌ Move of user ID: {} abandoned, notes stay on shard {}", userId, source, e);
+            router.place(userId, source, false);
+            throw e;
+        }
+
+        router.place(userId, target, false);
+        logger.info("✅ User ID: {} now reads and writes {} notes on shard {}", userId, count, target);
+
+        // Reads that still use the old placement finish on the source before it is cleaned up
+        waitForDirectory();
+        long removed = deleteUserData(from, userId, source != 0);
+        logger.info("🧹 Removed {} notes of user ID: {} from shard {}", removed, userId, source);
+    }
+
+    /**
+     * Upsert the user's notes (optionally only those updated since the given time)
+     * from one shard into another, in id batches, with the chunks of large notes
+     * and the revision histories.
+     * Returns the number of rows copied.
+     */
+    private long copyNotes(DataSource from, DataSource to, Long userId, Timestamp since) throws SQLException {
+        String select = "SELECT * FROM notes WHERE user_id = ? AND id > ? " +
+                (since != null ? "AND updated_at >= ? " : "") + "ORDER BY id LIMIT " + BATCH_SIZE;
+        long copied = 0;
+        long lastId = 0L;
+
+        try (Connection source = from.getConnection();
+             Connection destination = to.getConnection()) {
+            while (true) {
+                int rows = 0;
+                List<Long> copiedIds = new ArrayList<>();
+                List<Long> chunkedIds = new ArrayList<>();
+                try (PreparedStatement query = source.prepareStatement(select)) {
+                    query.setLong(1, userId);
+                    query.setLong(2, lastId);
+                    if (since != null) {
+                        query.setTimestamp(3, since);
+                    }
+                    try (ResultSet notes = query.executeQuery()) {
+                        ResultSetMetaData columns = notes.getMetaData();
+                        try (PreparedStatement upsert = destination.prepareStatement(upsertSql(columns))) {
+                            while (notes.next()) {
+                                for (int i = 1; i <= columns.getColumnCount(); i++) {
+                                    upsert.setObject(i, notes.getObject(i));
+                                }
+                                upsert.addBatch();
+                                lastId = notes.getLong("id");
+                                copiedIds.add(lastId);
+                                if (notes.getBoolean("chunked")) {
+                                    chunkedIds.add(lastId);
+                                }
+                                rows++;
+                            }
+                            if (rows > 0) {
+                                upsert.executeBatch();
+                            }
+                        }
+                    }
+                }
+                if (rows > 0) {
+                    copyChunks(source, destination, copiedIds, chunkedIds);
+                    copyRevisions(source, destination, copiedIds);
+                }
+                source.commit();
+                destination.commit();
+                copied += rows;
+                if (rows < BATCH_SIZE) {
+                    return copied;
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the target's chunks of the copied notes with the source's, one chunk
+     * row at a time. Notes that are no longer large just lose their old chunks.
+     */
+    private void copyChunks(Connection source, Connection destination, List<Long> copiedIds, List<Long> chunkedIds)
+            throws SQLException {
+        try (PreparedStatement delete = destination.prepareStatement("DELETE FROM note_chunks WHERE note_id = ?")) {
+            for (Long id : copiedIds) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        if (chunkedIds.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement select = source.prepareStatement(
+                "SELECT data FROM note_chunks WHERE note_id = ? AND seq = ?");
+             PreparedStatement insert = destination.prepareStatement(
+                     "INSERT INTO note_chunks (note_id, seq, data) VALUES (?, ?, ?)")) {
+            for (Long id : chunkedIds) {
+                for (int seq = 0; ; seq++) {
+                    select.setLong(1, id);
+                    select.setInt(2, seq);
+                    try (ResultSet chunk = select.executeQuery()) {
+                        if (!chunk.next()) {
+                            break;
+                        }
+                        insert.setLong(1, id);
+                        insert.setInt(2, seq);
+                        insert.setBytes(3, chunk.getBytes(1));
+                        insert.executeUpdate();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace the target's revision history of the copied notes with the source's.
+     * Every save adds a revision and moves updated_at, so catch-up passes bring the
+     * histories of changed notes along.
+     */
+    private void copyRevisions(Connection source, Connection destination, List<Long> copiedIds) throws SQLException {
+        try (PreparedStatement delete = destination.prepareStatement("DELETE FROM note_revisions WHERE note_id = ?")) {
+            for (Long id : copiedIds) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+        }
+        String columns = "note_id, revision, title, snapshot, content_length, content_hash, data, created_at";
+        try (PreparedStatement select = source.prepareStatement(
+                "SELECT " + columns + " FROM note_revisions WHERE note_id = ?");
+             PreparedStatement insert = destination.prepareStatement(
+                     "INSERT INTO note_revisions (" + columns + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (Long id : copiedIds) {
+                select.setLong(1, id);
+                int rows = 0;
+                try (ResultSet revisions = select.executeQuery()) {
+                    while (revisions.next()) {
+                        for (int i = 1; i <= 8; i++) {
+                            insert.setObject(i, revisions.getObject(i));
+                        }
+                        insert.addBatch();
+                        rows++;
+                    }
+                }
+                if (rows > 0) {
+                    insert.executeBatch();
+                }
+            }
+        }
+    }
+
+    /**
+     * INSERT ... ON DUPLICATE KEY UPDATE over every column of the result, so columns
+     * added by later migrations are copied without changes here
+     */
+    private static String upsertSql(ResultSetMetaData columns) throws SQLException {
+        StringBuilder names = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        StringBuilder updates = new StringBuilder();
+        for (int i = 1; i <= columns.getColumnCount(); i++) {
+            String name = columns.getColumnLabel(i).toLowerCase();
+            if (i > 1) {
+                names.append(", ");
+                values.append(", ");
+            }
+            names.append(name);
+            values.append('?');
+            if (!name.equals("id")) {
+                if (updates.length() > 0) {
+                    updates.append(", ");
+                }
+                updates.append(name).append(" = VALUES(").append(name).append(')');
+            }
+        }
+        return "INSERT INTO notes (" + names + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    /**
+     * Delete notes from the target that no longer exist on the source
+     */
+    private void deleteMissing(DataSource from, DataSource to, Long userId) throws SQLException {
+        Set<Long> kept = new HashSet<>(noteIds(from, userId));
+        List<Long> gone = new ArrayList<>();
+        for (Long id : noteIds(to, userId)) {
+            if (!kept.contains(id)) {
+                gone.add(id);
+            }
+        }
+        if (gone.isEmpty()) {
+            return;
+        }
+        try (Connection connection = to.getConnection();
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM notes WHERE id = ?")) {
+            for (Long id : gone) {
+                delete.setLong(1, id);
+                delete.addBatch();
+            }
+            delete.executeBatch();
+            connection.commit();
+        }
+        logger.info("🧹 Removed {} notes deleted during the copy", gone.size());
+    }
+
+    private List<Long> noteIds(DataSource shard, Long userId) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Connection connection = shard.getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT id FROM notes WHERE user_id = ? ORDER BY id")) {
+            select.setLong(1, userId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    ids.add(rows.getLong(1));
+                }
+            }
+            connection.commit();
+        }
+        return ids;
+    }
+
+    private long countNotes(DataSource shard, Long userId) throws SQLException {
+        try (Connection connection = shard.getConnection();
+             PreparedStatement count = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM notes WHERE user_id = ?")) {
+            count.setLong(1, userId);
+            try (ResultSet row = count.executeQuery()) {
+                row.next();
+                long notes = row.getLong(1);
+                connection.commit();
+                return notes;
+            }
+        }
+    }
+
+    /**
+     * Set the counter on the target shard; its version moves past anything the source
+     * handed out, so no page rendered before the move is taken for current
+     */
+    private void setNoteCount(DataSource shard, Long userId, long count) throws SQLException {
+        try (Connection connection = shard.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE user_stats SET note_count = ?, version = GREATEST(version + 1, ?) WHERE user_id = ?")) {
+            update.setLong(1, count);
+            update.setLong(2, System.currentTimeMillis());
+            update.setLong(3, userId);
+            update.executeUpdate();
+            connection.commit();
+        }
+    }
+
+    /**
+     * Remove the user's notes and counter (and, off the primary, the user copy) from a shard
+     */
+    private long deleteUserData(DataSource shard, Long userId, boolean dropUserCopy) throws SQLException {
+        long removed = 0;
+        try (Connection connection = shard.getConnection();
+             PreparedStatement delete = connection.prepareStatement(
+                     "DELETE FROM notes WHERE user_id = ? LIMIT " + BATCH_SIZE)) {
+            delete.setLong(1, userId);
+            int deleted;
+            do {
+                deleted = delete.executeUpdate();
+                connection.commit();
+                removed += deleted;
+            } while (deleted == BATCH_SIZE);
+
+            try (PreparedStatement stats = connection.prepareStatement("DELETE FROM user_stats WHERE user_id = ?")) {
+                stats.setLong(1, userId);
+                stats.executeUpdate();
+            }
+            if (dropUserCopy) {
+                try (PreparedStatement user = connection.prepareStatement("DELETE FROM users WHERE id = ?")) {
+                    user.setLong(1, userId);
+                    user.executeUpdate();
+                }
+            }
+            connection.commit();
+        }
+        return removed;
+    }
+
+    /**
+     * Distinct ids of the users with notes on a shard
+     */
+    private List<Long> usersWithNotes(DataSource shard) throws SQLException {
+        List<Long> userIds = new ArrayList<>();
+        try (Connection connection = shard.getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT DISTINCT user_id FROM notes ORDER BY user_id");
+             ResultSet rows = select.executeQuery()) {
+            while (rows.next()) {
+                userIds.add(rows.getLong(1));
+            }
+            connection.commit();
+        }
+        return userIds;
+    }
+
+    private void prepare(DataSource shard, UserRow user) throws SQLException {
+        if (shard != HibernateUtil.getDataSource()) {
+            ShardRouter.prepareUser(shard, user.id, user.username, user.email, user.createdAt, user.updatedAt);
+        }
+    }
+
+    private UserRow readUser(Long userId) throws SQLException {
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, username, email, created_at, updated_at FROM users WHERE id = ?")) {
+            select.setLong(1, userId);
+            try (ResultSet row = select.executeQuery()) {
+                UserRow user = row.next() ? new UserRow(row) : null;
+                connection.commit();
+                return user;
+            }
+        }
+    }
+
+    private List<UserRow> readUsers(Long afterId) throws SQLException {
+        List<UserRow> users = new ArrayList<>();
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT id, username, email, created_at, updated_at FROM users WHERE id > ? " +
+                             "ORDER BY id LIMIT " + BATCH_SIZE)) {
+            select.setLong(1, afterId);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    users.add(new UserRow(rows));
+                }
+            }
+            connection.commit();
+        }
+        return users;
+    }
+
+    private void waitForDirectory() throws InterruptedException {
+        Thread.sleep(router.getDirectoryCacheMillis() + CLOCK_MARGIN_MILLIS);
+    }
+
+    private static final class UserRow {
+        final Long id;
+        final String username;
+        final String email;
+        final Timestamp createdAt;
+        final Timestamp updatedAt;
+
+        UserRow(ResultSet row) throws SQLException {
+            this.id = row.getLong("id");
+            this.username = row.getString("username");
+            this.email = row.getString("email");
+            this.createdAt = row.getTimestamp("created_at");
+            this.updatedAt = row.getTimestamp("updated_at");
+        }
+    }
+}
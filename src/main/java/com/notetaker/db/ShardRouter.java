@@ -0,0 +1,298 @@
+package com.notetaker.db;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.notetaker.model.Note;
+import com.notetaker.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Shard Router - which database holds a user's notes
+ * Purpose: Map a user id to one of the note shards. Shard 0 is the primary
+ * database from hibernate.cfg.xml (which also keeps the users table and this
+ * directory); shards 1..n come from db.shards.urls.
+ *
+ * Placement uses a consistent hash ring with db.shards.virtualNodes points per
+ * shard, so adding a shard only remaps the users that fall on its new points.
+ * The user_shards directory on the primary overrides the ring for single users:
+ * ShardMigrator pins users to where their data is before the ring changes and
+ * records the new shard once it has moved them. Directory lookups are cached
+ * for db.shards.directoryCacheSeconds; the migrator waits that long before it
+ * relies on a change being seen.
+ *
+ * Note ids stay unique across shards: shard k hands out ids from k << 40 on.
+ *
+ * A shard other than 0 needs a copy of the user's row before it can hold their
+ * notes. Registration makes it; every write checks for it first (prepareWrite)
+ * and makes it when it is missing, so a copy that failed at registration never
+ * keeps the user from saving notes.
+ */
+public class ShardRouter {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+
+    public static final int SHARD_ID_BITS = 40;
+
+    // Hibernate's pooled optimizer treats next_val as the top of the next id block
+    // (see V3__note_id_generator.sql), so the seed is one allocation above the floor
+    private static final long NOTE_ID_SEED_OFFSET = Note.ID_ALLOCATION_SIZE + 1;
+
+    private final DataSource directory;
+    private final List<? extends DataSource> shards;
+    private final int shardCount;
+    private final TreeMap<Long, Integer> ring = new TreeMap<>();
+    private final Cache<Long, Placement> placements;
+    // The shard each user was last copied to by this process
+    private final Cache<Long, Integer> copiedUsers;
+    private final long directoryCacheMillis;
+
+    /**
+     * @param directory the primary database, holding users and user_shards
+     * @param shards    the note shards, the primary first
+     */
+    public ShardRouter(DataSource directory, List<? extends DataSource> shards) {
+        this.directory = directory;
+        this.shards = shards;
+        this.shardCount = shards.size();
+        this.directoryCacheMillis = AppConfig.getLong("db.shards.directoryCacheSeconds", 5L) * 1000L;
+        this.placements = Caffeine.newBuilder()
+                .maximumSize(AppConfig.getLong("db.shards.directoryCacheSize", 100_000L))
+                .expireAfterWrite(Duration.ofMillis(directoryCacheMillis))
+                .build();
+        this.copiedUsers = Caffeine.newBuilder()
+                .maximumSize(AppConfig.getLong("db.shards.directoryCacheSize", 100_000L))
+                .build();
+
+        int virtualNodes = AppConfig.getInt("db.shards.virtualNodes", 128);
+        for (int shard = 0; shard < shardCount; shard++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                ring.put(mix(((long) shard << 32) | point), shard);
+            }
+        }
+        if (shardCount > 1) {
+            logger.info("🧩 Notes are sharded over {} databases ({} ring points each)", shardCount, virtualNodes);
+        }
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * The shard holding the user's notes
+     */
+    public int shardFor(Long userId) {
+        if (shardCount == 1) {
+            return 0;
+        }
+        return placements.get(userId, this::lookup).shard;
+    }
+
+    /**
+     * Fail when the user's notes are being moved to another shard. Reads go on
+     * from the old shard meanwhile; only writes are held back.
+     */
+    public void checkWritable(Long userId) {
+        if (shardCount > 1 && placements.get(userId, this::lookup).moving) {
+            throw new IllegalStateException("Notes of user " + userId + " are being moved to another shard");
+        }
+    }
+
+    /**
+     * Call before writing the user's notes: fails like checkWritable, and copies the
+     * user to their shard when this process has not seen that done yet
+     */
+    public void prepareWrite(Long userId) {
+        checkWritable(userId);
+        int shard = shardFor(userId);
+        if (shard != 0 && !Integer.valueOf(shard).equals(copiedUsers.getIfPresent(userId))) {
+            copyUser(userId, shard);
+        }
+    }
+
+    /**
+     * Copy the user's row from the primary to a shard (see prepareUser); safe to
+     * repeat. Fails when the user does not exist or the shard cannot be written.
+     */
+    public void copyUser(Long userId, int shard) {
+        if (shard == 0) {
+            return;
+        }
+        try {
+            String username;
+            String email;
+            Date createdAt;
+            Date updatedAt;
+            try (Connection connection = directory.getConnection();
+                 PreparedStatement select = connection.prepareStatement(
+                         "SELECT username, email, created_at, updated_at FROM users WHERE id = ?")) {
+                select.setLong(1, userId);
+                try (ResultSet row = select.executeQuery()) {
+                    if (!row.next()) {
+                        connection.commit();
+                        throw new IllegalStateException("User " + userId + " does not exist");
+                    }
+                    username = row.getString(1);
+                    email = row.getString(2);
+                    createdAt = row.getTimestamp(3);
+                    updatedAt = row.getTimestamp(4);
+                    connection.commit();
+                }
+            }
+            prepareUser(shards.get(shard), userId, username, email, createdAt, updatedAt);
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not copy user " + userId + " to shard " + shard, e);
+        }
+        copiedUsers.put(userId, shard);
+    }
+
+    /**
+     * The shard the hash ring assigns, ignoring the directory
+     */
+    public int ringShard(Long userId) {
+        Map.Entry<Long, Integer> point = ring.ceilingEntry(mix(userId));
+        return point != null ? point.getValue() : ring.firstEntry().getValue();
+    }
+
+    /**
+     * Read the user's placement from the directory, bypassing the cache
+     */
+    public Placement lookup(Long userId) {
+        try (Connection connection = directory.getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT shard_id, moving FROM user_shards WHERE user_id = ?")) {
+            select.setLong(1, userId);
+            try (ResultSet row = select.executeQuery()) {
+                Placement placement = row.next()
+                        ? new Placement(row.getInt(1), row.getBoolean(2))
+                        : new Placement(ringShard(userId), false);
+                connection.commit();
+                return placement;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not read the shard directory for user " + userId, e);
+        }
+    }
+
+    /**
+     * Pin a user to a shard in the directory, optionally marking their notes as moving
+     */
+    public void place(Long userId, int shard, boolean moving) throws SQLException {
+        try (Connection connection = directory.getConnection();
+             PreparedStatement upsert = connection.prepareStatement(
+                     "INSERT INTO user_shards (user_id, shard_id, moving, updated_at) VALUES (?, ?, ?, ?) " +
+                             "ON DUPLICATE KEY UPDATE shard_id = VALUES(shard_id), moving = VALUES(moving), " +
+                             "updated_at = VALUES(updated_at)")) {
+            upsert.setLong(1, userId);
+            upsert.setInt(2, shard);
+            upsert.setBoolean(3, moving);
+            upsert.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+            upsert.executeUpdate();
+            connection.commit();
+        }
+        placements.invalidate(userId);
+    }
+
+    /**
+     * How long another process may keep using a placement it read before a change
+     */
+    public long getDirectoryCacheMillis() {
+        return directoryCacheMillis;
+    }
+
+    /**
+     * Make sure the shard can hold notes of this user: copy the user's row from the
+     * primary (the notes foreign key needs it; the copy carries no password) and
+     * start their counter. Not needed on shard 0; rows already there are kept, so
+     * running it again for the same user changes nothing.
+     */
+    public static void prepareUser(DataSource shard, Long userId, String username, String email,
+                                   Date createdAt, Date updatedAt) throws SQLException {
+        try (Connection connection = shard.getConnection()) {
+            try (PreparedStatement user = connection.prepareStatement(
+                    "INSERT INTO users (id, username, email, password, created_at, updated_at) " +
+                            "VALUES (?, ?, ?, '', ?, ?) ON DUPLICATE KEY UPDATE id = id");
+                 PreparedStatement stats = connection.prepareStatement(
+                         "INSERT INTO user_stats (user_id, note_count) VALUES (?, 0) " +
+                                 "ON DUPLICATE KEY UPDATE user_id = user_id")) {
+                user.setLong(1, userId);
+                user.setString(2, username);
+                user.setString(3, email);
+                user.setTimestamp(4, createdAt != null ? new Timestamp(createdAt.getTime()) : null);
+                user.setTimestamp(5, updatedAt != null ? new Timestamp(updatedAt.getTime()) : null);
+                user.executeUpdate();
+                stats.setLong(1, userId);
+                stats.executeUpdate();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Move the shard's note id generator into its own range (see SHARD_ID_BITS)
+     */
+    public static void reserveIdRange(DataSource shard, int shardId) throws SQLException {
+        if (shardId == 0) {
+            return;
+        }
+        long floor = ((long) shardId << SHARD_ID_BITS) + NOTE_ID_SEED_OFFSET;
+        try (Connection connection = shard.getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE id_generators SET next_val = ? WHERE name = 'notes' AND next_val < ?")) {
+            update.setLong(1, floor);
+            update.setLong(2, floor);
+            if (update.executeUpdate() > 0) {
+                logger.info("🧩 Note ids on shard {} now start above {}", shardId, floor);
+            }
+            connection.commit();
+        }
+    }
+
+    /**
+     * 64-bit finalizer from MurmurHash3, spreads sequential ids over the ring
+     */
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    /**
+     * Where a user's notes live and whether they are being moved
+     */
+    public static final class Placement {
+        private final int shard;
+        private final boolean moving;
+
+        Placement(int shard, boolean moving) {
+            this.shard = shard;
+            this.moving = moving;
+        }
+
+        public int getShard() {
+            return shard;
+        }
+
+        public boolean isMoving() {
+            return moving;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.notetaker.filter;
+
+import com.notetaker.util.UnitOfWork;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebFilter;
+import jakarta.servlet.http.HttpFilter;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+
+/**
+ * Unit of Work Filter - session-per-request
+ * Purpose: Bind one Hibernate Session and transaction to each request so every
+ * DAO call made while handling it (and while rendering its JSP) shares one
+ * connection and one consistent snapshot. The transaction is committed before
+ * a redirect is sent, so the browser never follows a redirect to data that is
+ * not committed yet, and otherwise when the request completes.
+ */
+@WebFilter(filterName = "UnitOfWorkFilter", urlPatterns = {"/*"}, dispatcherTypes = {DispatcherType.REQUEST})
+public class UnitOfWorkFilter extends HttpFilter {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWorkFilter.class);
+
+    @Override
+    protected void doFilter(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+
+        UnitOfWork.beginRequest();
+        boolean completed = false;
+        try {
+            chain.doFilter(request, new CommitBeforeRedirectResponse(response));
+            completed = true;
+        } finally {
+            try {
+                UnitOfWork.completeRequest(completed);
+            } catch (RuntimeException e) {
+                logger.error("❌ Error committing request transaction for: {}", request.getRequestURI(), e);
+                if (!response.isCommitted()) {
+                    response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+                }
+            } finally {
+                UnitOfWork.endRequest();
+            }
+        }
+    }
+
+    private static class CommitBeforeRedirectResponse extends HttpServletResponseWrapper {
+        CommitBeforeRedirectResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            UnitOfWork.completeRequest(true);
+            super.sendRedirect(location);
+        }
+    }
+}
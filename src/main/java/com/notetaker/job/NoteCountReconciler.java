@@ -0,0 +1,57 @@
+package com.notetaker.job;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Note Count Reconciler - periodic repair of the per-user note counters
+ * Purpose: Recount every user's notes on a schedule (stats.reconcile.*) and fix
+ * user_stats rows that drifted, e.g. after manual SQL against the notes table.
+ */
+public class NoteCountReconciler implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NoteCountReconciler.class);
+
+    private final NoteDAO noteDAO = new NoteDAO();
+    private ScheduledExecutorService scheduler;
+
+    public synchronized void start() {
+        long initialDelayMinutes = AppConfig.getLong("stats.reconcile.initialDelayMinutes", 5L);
+        long intervalMinutes = AppConfig.getLong("stats.reconcile.intervalMinutes", 360L);
+        if (intervalMinutes <= 0) {
+            logger.info("ℹ️ Note counter reconciliation disabled");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-count-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("🧮 Note counter reconciliation scheduled every {} min (first run in {} min)",
+                intervalMinutes, initialDelayMinutes);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            noteDAO.reconcileNoteCounts();
+        } catch (Exception e) {
+            // Never let an exception cancel the schedule
+            logger.error("❌ Note counter reconciliation failed", e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.notetaker.job;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Note Preview Backfill - one-off fill of the content_preview column
+ * Purpose: Compute the listing preview of notes saved before the column existed
+ * (preview.backfill.*), in the background after startup. Until a note has its
+ * preview the listing queries fall back to a bounded SUBSTRING of the content.
+ * Once every note is filled a run only scans for NULL previews and exits.
+ */
+public class NotePreviewBackfill implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NotePreviewBackfill.class);
+
+    private final NoteDAO noteDAO = new NoteDAO();
+    private Thread thread;
+
+    public synchronized void start() {
+        if (!AppConfig.getBoolean("preview.backfill.enabled", true)) {
+            logger.info("ℹ️ Content preview backfill disabled");
+            return;
+        }
+        thread = new Thread(this, "note-preview-backfill");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            noteDAO.backfillContentPreviews(AppConfig.getInt("preview.backfill.batchSize", 1000));
+        } catch (Exception e) {
+            logger.error("❌ Content preview backfill failed", e);
+        }
+    }
+}
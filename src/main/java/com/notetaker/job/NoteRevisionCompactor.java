@@ -0,0 +1,58 @@
+package com.notetaker.job;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.util.AppConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Note Revision Compactor - periodic retention of the note histories
+ * Purpose: Drop and merge old note revisions on a schedule
+ * (notes.revisions.compact.*) by the notes.revisions.* retention settings, so
+ * the history of a note stays bounded however often it is saved.
+ */
+public class NoteRevisionCompactor implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionCompactor.class);
+
+    private final NoteDAO noteDAO = new NoteDAO();
+    private ScheduledExecutorService scheduler;
+
+    public synchronized void start() {
+        long initialDelayMinutes = AppConfig.getLong("notes.revisions.compact.initialDelayMinutes", 15L);
+        long intervalMinutes = AppConfig.getLong("notes.revisions.compact.intervalMinutes", 720L);
+        if (intervalMinutes <= 0 || !AppConfig.getBoolean("notes.revisions.enabled", true)) {
+            logger.info("ℹ️ Note revision compaction disabled");
+            return;
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "note-revision-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+        logger.info("🗜️ Note revision compaction scheduled every {} min (first run in {} min)",
+                intervalMinutes, initialDelayMinutes);
+    }
+
+    public synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            noteDAO.compactRevisions();
+        } catch (Exception e) {
+            // Never let an exception cancel the schedule
+            logger.error("❌ Note revision compaction failed", e);
+        }
+    }
+}
@@ -1,5 +1,13 @@
 package com.notetaker.listener;
 
+import com.notetaker.cache.DraftBuffer;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.db.MigrationRunner;
+import com.notetaker.db.ShardRouter;
+import com.notetaker.job.NoteCountReconciler;
+import com.notetaker.job.NotePreviewBackfill;
+import com.notetaker.job.NoteRevisionCompactor;
+import com.notetaker.util.AppConfig;
 import com.notetaker.util.HibernateUtil;
 import jakarta.servlet.ServletContextEvent;
 import jakarta.servlet.ServletContextListener;
@@ -21,6 +29,10 @@ import java.time.format.DateTimeFormatter;
 public class AppContextListener implements ServletContextListener {
     private static final Logger logger = LoggerFactory.getLogger(AppContextListener.class);
 
+    private final NoteCountReconciler noteCountReconciler = new NoteCountReconciler();
+    private final NotePreviewBackfill notePreviewBackfill = new NotePreviewBackfill();
+    private final NoteRevisionCompactor noteRevisionCompactor = new NoteRevisionCompactor();
+
     @Override
     public void contextInitialized(ServletContextEvent sce) {
         String currentTime = getCurrentUTCTime();
@@ -36,6 +48,28 @@ public class AppContextListener implements ServletContextListener {
             // Initialize Hibernate
             HibernateUtil.getSessionFactory();
             logger.info("✅ Hibernate initialized successfully");
+
+            // Bring the schema up to date before anything reads from it
+            int shards = HibernateUtil.getShardRouter().getShardCount();
+            if (AppConfig.getBoolean("db.migrate.enabled", true)) {
+                for (int shard = 0; shard < shards; shard++) {
+                    new MigrationRunner(HibernateUtil.getDataSource(shard)).migrate();
+                }
+            }
+            // Every note shard hands out ids from its own range
+            for (int shard = 1; shard < shards; shard++) {
+                ShardRouter.reserveIdRange(HibernateUtil.getDataSource(shard), shard);
+            }
+
+            // Build the in-process search index in the background;
+            // searches fall back to the database until it is ready
+            Thread indexBuilder = new Thread(() -> new NoteDAO().rebuildSearchIndex(), "search-index-rebuild");
+            indexBuilder.setDaemon(true);
+            indexBuilder.start();
+
+            notePreviewBackfill.start();
+            noteCountReconciler.start();
+            noteRevisionCompactor.start();
             logger.info("📊 Application Status: READY (With Database)");
             logger.info("🎯 Status: Full application ready for use!");
         } catch (Exception e) {
@@ -52,6 +86,17 @@ public class AppContextListener implements ServletContextListener {
         logger.info("📅 Shutdown Time: {}", currentTime);
         logger.info("👨‍💻 Developer: Sayanduary");
 
+        notePreviewBackfill.stop();
+        noteCountReconciler.stop();
+        noteRevisionCompactor.stop();
+
+        // Autosaved drafts still in memory go to the database while it is there
+        try {
+            DraftBuffer.getInstance().shutdown();
+        } catch (Exception e) {
+            logger.error("❌ Error writing buffered drafts", e);
+        }
+
         try {
             HibernateUtil.shutdown();
             logger.info("✅ Hibernate shutdown completed");
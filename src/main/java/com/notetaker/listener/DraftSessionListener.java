@@ -0,0 +1,20 @@
+package com.notetaker.listener;
+
+import com.notetaker.cache.DraftBuffer;
+import jakarta.servlet.annotation.WebListener;
+import jakarta.servlet.http.HttpSessionEvent;
+import jakarta.servlet.http.HttpSessionListener;
+
+/**
+ * Draft Session Listener - write autosaved drafts when their session ends
+ * Purpose: On logout or session timeout, write the drafts the session left in the
+ * DraftBuffer instead of waiting for their debounce, and drop them from memory.
+ */
+@WebListener
+public class DraftSessionListener implements HttpSessionListener {
+
+    @Override
+    public void sessionDestroyed(HttpSessionEvent se) {
+        DraftBuffer.getInstance().flushSession(se.getSession().getId());
+    }
+}
@@ -0,0 +1,47 @@
+package com.notetaker.metrics;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import java.io.PrintWriter;
+
+/**
+ * Hibernate second-level and query cache metrics
+ * Purpose: Publish per-region hit/miss/put counts and in-memory sizes from
+ * the SessionFactory statistics.
+ */
+public final class CacheMetrics implements MetricsRegistry.MetricsSource {
+    private final SessionFactory sessionFactory;
+
+    public CacheMetrics(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    @Override
+    public void writeMetrics(PrintWriter out) {
+        if (sessionFactory.isClosed()) {
+            return;
+        }
+        Statistics statistics = sessionFactory.getStatistics();
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics regionStatistics = statistics.getCacheRegionStatistics(region);
+            if (regionStatistics == null) {
+                continue;
+            }
+            String labels = "{region=\"" + region + "\"}";
+            out.printf("cache_hits_total%s %d%n", labels, regionStatistics.getHitCount());
+            out.printf("cache_misses_total%s %d%n", labels, regionStatistics.getMissCount());
+            out.printf("cache_puts_total%s %d%n", labels, regionStatistics.getPutCount());
+            long elements = regionStatistics.getElementCountInMemory();
+            if (elements >= 0) {
+                out.printf("cache_elements%s %d%n", labels, elements);
+            }
+        }
+        out.printf("query_cache_hits_total %d%n", statistics.getQueryCacheHitCount());
+        out.printf("query_cache_misses_total %d%n", statistics.getQueryCacheMissCount());
+        out.printf("query_cache_puts_total %d%n", statistics.getQueryCachePutCount());
+        out.printf("update_timestamps_cache_hits_total %d%n", statistics.getUpdateTimestampsCacheHitCount());
+        out.printf("update_timestamps_cache_misses_total %d%n", statistics.getUpdateTimestampsCacheMissCount());
+    }
+}
@@ -0,0 +1,86 @@
+package com.notetaker.metrics;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with fixed exponential buckets
+ * Purpose: Record timings from hot paths (connection acquisition, exports...)
+ * cheaply and print them as Prometheus-style cumulative buckets.
+ */
+public final class LatencyHistogram {
+    // Bucket upper bounds in microseconds, the last bucket is +Inf
+    private static final long[] BOUNDS_MICROS = {
+            50, 100, 250, 500,
+            1_000, 2_500, 5_000, 10_000, 25_000, 50_000, 100_000, 250_000, 500_000,
+            1_000_000, 2_500_000, 5_000_000, 10_000_000, 30_000_000
+    };
+
+    private final LongAdder[] buckets = new LongAdder[BOUNDS_MICROS.length + 1];
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sumMicros = new LongAdder();
+
+    public LatencyHistogram() {
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1_000L);
+    }
+
+    public void recordMillis(long millis) {
+        recordMicros(millis * 1_000L);
+    }
+
+    public void recordMicros(long micros) {
+        int bucket = 0;
+        while (bucket < BOUNDS_MICROS.length && micros > BOUNDS_MICROS[bucket]) {
+            bucket++;
+        }
+        buckets[bucket].increment();
+        count.increment();
+        sumMicros.add(Math.max(micros, 0L));
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * Upper bound (in milliseconds) of the bucket containing the given quantile
+     */
+    public double quantileMillis(double quantile) {
+        long total = count.sum();
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= rank) {
+                return BOUNDS_MICROS[i] / 1_000.0;
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Print the histogram as {name}_bucket / {name}_sum / {name}_count lines (seconds)
+     */
+    public void write(PrintWriter out, String name, String labels) {
+        String prefix = labels == null || labels.isEmpty() ? "" : labels + ",";
+        long cumulative = 0;
+        for (int i = 0; i < BOUNDS_MICROS.length; i++) {
+            cumulative += buckets[i].sum();
+            out.printf("%s_bucket{%sle=\"%s\"} %d%n", name, prefix, BOUNDS_MICROS[i] / 1_000_000.0, cumulative);
+        }
+        cumulative += buckets[BOUNDS_MICROS.length].sum();
+        out.printf("%s_bucket{%sle=\"+Inf\"} %d%n", name, prefix, cumulative);
+        String suffix = labels == null || labels.isEmpty() ? "" : "{" + labels + "}";
+        out.printf("%s_sum%s %.6f%n", name, suffix, sumMicros.sum() / 1_000_000.0);
+        out.printf("%s_count%s %d%n", name, suffix, count.sum());
+    }
+}
@@ -0,0 +1,39 @@
+package com.notetaker.metrics;
+
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Registry of metrics sources exposed by MetricsServlet
+ * Purpose: Let components (connection pools, caches...) publish their
+ * counters without the servlet knowing about each of them.
+ */
+public final class MetricsRegistry {
+    private static final Map<String, MetricsSource> sources = new ConcurrentSkipListMap<>();
+
+    private MetricsRegistry() {}
+
+    /**
+     * A component that can print its current metrics in text exposition format
+     */
+    @FunctionalInterface
+    public interface MetricsSource {
+        void writeMetrics(PrintWriter out);
+    }
+
+    public static void register(String name, MetricsSource source) {
+        sources.put(name, source);
+    }
+
+    public static void unregister(String name) {
+        sources.remove(name);
+    }
+
+    public static void writeAll(PrintWriter out) {
+        for (Map.Entry<String, MetricsSource> entry : sources.entrySet()) {
+            out.println("# " + entry.getKey());
+            entry.getValue().writeMetrics(out);
+        }
+    }
+}
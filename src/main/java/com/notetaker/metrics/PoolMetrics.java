@@ -0,0 +1,100 @@
+package com.notetaker.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import java.io.PrintWriter;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HikariCP pool metrics
+ * Purpose: Collect connection acquire/usage/creation time histograms and
+ * timeout counts through Hikari's metrics tracker hook, and publish them
+ * together with the live active/idle/waiting counts of the pool.
+ */
+public final class PoolMetrics implements MetricsTrackerFactory, MetricsRegistry.MetricsSource {
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+    private final LatencyHistogram usageTime = new LatencyHistogram();
+    private final LatencyHistogram creationTime = new LatencyHistogram();
+    private final LongAdder timeouts = new LongAdder();
+    private volatile String poolName = "pool";
+    private volatile PoolStats poolStats;
+    private volatile HikariDataSource dataSource;
+
+    /**
+     * Attach the started data source so live gauges can be read from its MXBean
+     */
+    public void bind(HikariDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        this.poolName = poolName;
+        this.poolStats = poolStats;
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                creationTime.recordMillis(connectionCreatedMillis);
+            }
+
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquireTime.recordNanos(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                usageTime.recordMillis(elapsedBorrowedMillis);
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                timeouts.increment();
+            }
+        };
+    }
+
+    public int getActiveConnections() {
+        HikariPoolMXBean pool = poolBean();
+        return pool != null ? pool.getActiveConnections() : 0;
+    }
+
+    public LatencyHistogram getAcquireTime() {
+        return acquireTime;
+    }
+
+    @Override
+    public void writeMetrics(PrintWriter out) {
+        String labels = "pool=\"" + poolName + "\"";
+        HikariPoolMXBean pool = poolBean();
+        if (pool != null) {
+            out.printf("db_pool_active_connections{%s} %d%n", labels, pool.getActiveConnections());
+            out.printf("db_pool_idle_connections{%s} %d%n", labels, pool.getIdleConnections());
+            out.printf("db_pool_total_connections{%s} %d%n", labels, pool.getTotalConnections());
+            out.printf("db_pool_threads_awaiting_connection{%s} %d%n", labels, pool.getThreadsAwaitingConnection());
+        } else if (poolStats != null) {
+            out.printf("db_pool_active_connections{%s} %d%n", labels, poolStats.getActiveConnections());
+            out.printf("db_pool_idle_connections{%s} %d%n", labels, poolStats.getIdleConnections());
+            out.printf("db_pool_total_connections{%s} %d%n", labels, poolStats.getTotalConnections());
+            out.printf("db_pool_threads_awaiting_connection{%s} %d%n", labels, poolStats.getPendingThreads());
+        }
+        HikariDataSource ds = dataSource;
+        if (ds != null) {
+            out.printf("db_pool_max_connections{%s} %d%n", labels, ds.getMaximumPoolSize());
+            out.printf("db_pool_min_idle_connections{%s} %d%n", labels, ds.getMinimumIdle());
+        }
+        out.printf("db_pool_connection_timeouts_total{%s} %d%n", labels, timeouts.sum());
+        acquireTime.write(out, "db_pool_acquire_seconds", labels);
+        usageTime.write(out, "db_pool_usage_seconds", labels);
+        creationTime.write(out, "db_pool_creation_seconds", labels);
+    }
+
+    private HikariPoolMXBean poolBean() {
+        HikariDataSource ds = dataSource;
+        return ds != null && !ds.isClosed() ? ds.getHikariPoolMXBean() : null;
+    }
+}
@@ -0,0 +1,117 @@
+package com.notetaker.model;
+
+import com.notetaker.util.AppConfig;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed Text Converter - transparent compression of large note bodies
+ * Purpose: Store note contents of content.compression.minLength characters or
+ * more Deflate-compressed (content.compression.level, fast by default), and
+ * hand every reader the plain text again.
+ *
+ * The stored form is MARKER + Base64(Deflate(UTF-8)), so the column stays TEXT:
+ * rows written before compression (plain text, no marker) read back unchanged
+ * and no table rebuild is needed. Bodies that do not shrink are kept as they are.
+ * Compressed bodies are only searchable through the in-process index; LIKE and
+ * FULLTEXT search skip the stored Base64 and match such notes by title only.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, String> {
+    private static final Logger logger = LoggerFactory.getLogger(CompressedTextConverter.class);
+
+    // Starts with a control character no note typed in a browser begins with
+    public static final String MARKER = "\u0001z1:";
+
+    private static final boolean ENABLED = AppConfig.getBoolean("content.compression.enabled", true);
+    private static final int MIN_LENGTH = AppConfig.getInt("content.compression.minLength", 4096);
+    private static final int LEVEL = AppConfig.getInt("content.compression.level", Deflater.BEST_SPEED);
+
+    @Override
+    public String convertToDatabaseColumn(String content) {
+        return encode(content, ENABLED ? MIN_LENGTH : Integer.MAX_VALUE, LEVEL);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String stored) {
+        return decode(stored);
+    }
+
+    /**
+     * The stored form of a content. Text that happens to start with MARKER is always
+     * compressed so it can never be mistaken for a compressed body.
+     */
+    public static String encode(String content, int minLength, int level) {
+        if (content == null) {
+            return null;
+        }
+        boolean marked = content.startsWith(MARKER);
+        if (content.length() < minLength && !marked) {
+            return content;
+        }
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        String stored = MARKER + Base64.getEncoder().encodeToString(deflate(raw, level));
+        return marked || stored.length() < raw.length ? stored : content;
+    }
+
+    /**
+     * The plain text of a stored content, compressed or not
+     */
+    public static String decode(String stored) {
+        if (stored == null || !stored.startsWith(MARKER)) {
+            return stored;
+        }
+        try {
+            byte[] packed = Base64.getDecoder().decode(stored.substring(MARKER.length()));
+            return new String(inflate(packed), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException | DataFormatException e) {
+            logger.warn("⚠️ Stored note content is not a valid compressed body, returning it as is: {}",
+                    e.getMessage());
+            return stored;
+        }
+    }
+
+    private static byte[] deflate(byte[] raw, int level) {
+        Deflater deflater = new Deflater(level);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] packed) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(packed);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(packed.length * 4);
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                int count = inflater.inflate(buffer);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("truncated compressed body");
+                }
+                out.write(buffer, 0, count);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+}
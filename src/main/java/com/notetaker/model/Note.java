@@ -1,6 +1,10 @@
 package com.notetaker.model;
 
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import java.util.Date;
 
 /**
@@ -10,17 +14,50 @@ import java.util.Date;
  */
 @Entity
 @Table(name = "notes")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "notes")
+// UPDATEs list only the attributes the enhanced entity tracked as dirty
+@DynamicUpdate
 public class Note {
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Table-backed pooled ids: one round trip reserves ALLOCATION_SIZE ids, and unlike
+    // IDENTITY the id is known before the INSERT, so Hibernate can batch the inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "note_ids")
+    @TableGenerator(name = "note_ids", table = "id_generators", pkColumnName = "name",
+            valueColumnName = "next_val", pkColumnValue = "notes", allocationSize = Note.ID_ALLOCATION_SIZE)
     private Long id;
 
+    // Optimistic locking: entity updates check and increment it
+    // (UPDATE ... WHERE id = ? AND version = ?)
+    @Version
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Column(name = "title", nullable = false, length = 200)
     private String title;
 
+    // Loaded on first access only (needs the bytecode enhancement from pom.xml), so
+    // loading a Note for ownership checks or updates never pulls the TEXT body
+    @Basic(fetch = FetchType.LAZY)
     @Column(name = "content", columnDefinition = "TEXT")
+    @Convert(converter = CompressedTextConverter.class)
     private String content;
 
+    // Head of the content for listings, kept in step by the lifecycle callbacks below
+    // (and by bulk updates) so listing queries never read the content column
+    @Column(name = "content_preview", length = NoteSummary.PREVIEW_LENGTH + 1)
+    private String contentPreview;
+
+    // Large notes keep their body in note_chunks (written and read as streams by
+    // NoteDAO); content is then null and contentSize holds the body's UTF-8 length
+    @Column(name = "chunked", nullable = false)
+    private boolean chunked;
+
+    @Column(name = "content_size")
+    private Long contentSize;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -33,17 +70,45 @@ public class Note {
     @Temporal(TemporalType.TIMESTAMP)
     private Date updatedAt;
 
-    // Automatic timestamp handling
+    // Automatic timestamp handling; timestamps set beforehand (e.g. by an import) are kept
     @PrePersist
     protected void onCreate() {
         Date now = new Date();
-        createdAt = now;
-        updatedAt = now;
+        if (createdAt == null) {
+            createdAt = now;
+        }
+        if (updatedAt == null) {
+            updatedAt = createdAt;
+        }
+        // A note created chunked (an import) brings the preview of its body along
+        if (!chunked) {
+            contentPreview = previewOf(content);
+        }
     }
 
     @PreUpdate
     protected void onUpdate() {
         updatedAt = new Date();
+        // Content that was never loaded has not changed; reading it here would load it.
+        // A chunked note's preview comes from its chunks, not from the (null) content.
+        if (!chunked && Hibernate.isPropertyInitialized(this, "content")) {
+            contentPreview = previewOf(content);
+        }
+    }
+
+    /**
+     * The first PREVIEW_LENGTH + 1 characters of a content (the extra character tells
+     * NoteSummary the content was cut), never splitting a surrogate pair
+     */
+    public static String previewOf(String content) {
+        int max = NoteSummary.PREVIEW_LENGTH + 1;
+        if (content == null) {
+            return "";
+        }
+        if (content.length() <= max) {
+            return content;
+        }
+        return content.substring(0, Character.isHighSurrogate(content.charAt(max - 1)) ? max - 1 : max);
     }
 
     // Constructors
@@ -59,12 +124,42 @@ public class Note {
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     public String getTitle() { return title; }
     public void setTitle(String title) { this.title = title; }
 
     public String getContent() { return content; }
     public void setContent(String content) { this.content = content; }
 
+    public String getContentPreview() { return contentPreview; }
+
+    public boolean isChunked() { return chunked; }
+
+    public Long getContentSize() { return contentSize; }
+
+    /**
+     * Mark the body as stored in note_chunks (written separately), with its size in bytes
+     * and the preview taken from its first chunk
+     */
+    public void setChunkedContent(long size, String preview) {
+        this.content = null;
+        this.chunked = true;
+        this.contentSize = size;
+        this.contentPreview = preview;
+    }
+
+    /**
+     * Replace the body with plain content, e.g. when a large note is saved from the
+     * edit form; its chunks are dropped by NoteDAO
+     */
+    public void setPlainContent(String content) {
+        this.content = content;
+        this.chunked = false;
+        this.contentSize = null;
+    }
+
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
 
@@ -78,8 +173,8 @@ public class Note {
     public String toString() {
         return "Note{" +
                 "id=" + id +
+                ", version=" + version +
                 ", title='" + title + '\'' +
-                ", content='" + content + '\'' +
                 ", createdAt=" + createdAt +
                 ", updatedAt=" + updatedAt +
                 '}';
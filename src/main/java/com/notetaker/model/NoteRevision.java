@@ -0,0 +1,45 @@
+package com.notetaker.model;
+
+import java.util.Date;
+
+/**
+ * Note Revision - one saved state of a note
+ * Purpose: Read-only view of a note_revisions row for the history pages: the
+ * title, length and time of the save, how it is stored (full snapshot or delta,
+ * and its size in bytes) and, when a single revision was loaded, its content.
+ */
+public final class NoteRevision {
+    private final Long noteId;
+    private final int revision;
+    private final String title;
+    private final int contentLength;
+    private final boolean snapshot;
+    private final int storedBytes;
+    private final Date createdAt;
+    private final String content;
+
+    public NoteRevision(Long noteId, int revision, String title, int contentLength, boolean snapshot,
+                        int storedBytes, Date createdAt, String content) {
+        this.noteId = noteId;
+        this.revision = revision;
+        this.title = title;
+        this.contentLength = contentLength;
+        this.snapshot = snapshot;
+        this.storedBytes = storedBytes;
+        this.createdAt = createdAt != null ? new Date(createdAt.getTime()) : null;
+        this.content = content;
+    }
+
+    public Long getNoteId() { return noteId; }
+    public int getRevision() { return revision; }
+    public String getTitle() { return title; }
+    public int getContentLength() { return contentLength; }
+    public boolean isSnapshot() { return snapshot; }
+    public int getStoredBytes() { return storedBytes; }
+    public Date getCreatedAt() { return createdAt != null ? new Date(createdAt.getTime()) : null; }
+
+    /**
+     * The revision's text; null in listings, which do not rebuild it
+     */
+    public String getContent() { return content; }
+}
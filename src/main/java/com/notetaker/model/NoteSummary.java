@@ -0,0 +1,57 @@
+package com.notetaker.model;
+
+import java.util.Date;
+
+/**
+ * Note Summary - read-only listing projection of a Note
+ * Purpose: Carry only what the dashboard cards render (id, title, a short
+ * content preview and the last update time). Built directly by HQL
+ * constructor expressions from the notes.content_preview column, so the full
+ * content column is never read.
+ */
+public final class NoteSummary {
+    public static final int PREVIEW_LENGTH = 100;
+
+    private final Long id;
+    private final String title;
+    private final String preview;
+    private final Date updatedAt;
+
+    /**
+     * @param contentHead the first PREVIEW_LENGTH + 1 characters of the content,
+     *                    the extra character tells whether the content was cut
+     */
+    public NoteSummary(Long id, String title, String contentHead, Date updatedAt) {
+        this.id = id;
+        this.title = title;
+        this.preview = toPreview(contentHead);
+        this.updatedAt = updatedAt != null ? new Date(updatedAt.getTime()) : null;
+    }
+
+    private static String toPreview(String contentHead) {
+        if (contentHead == null) {
+            return "";
+        }
+        if (contentHead.length() > PREVIEW_LENGTH) {
+            return contentHead.substring(0, PREVIEW_LENGTH) + "...";
+        }
+        return contentHead;
+    }
+
+    public Long getId() { return id; }
+
+    public String getTitle() { return title; }
+
+    public String getPreview() { return preview; }
+
+    public Date getUpdatedAt() { return updatedAt != null ? new Date(updatedAt.getTime()) : null; }
+
+    @Override
+    public String toString() {
+        return "NoteSummary{" +
+                "id=" + id +
+                ", title='" + title + '\'' +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
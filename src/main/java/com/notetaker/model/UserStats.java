@@ -0,0 +1,58 @@
+package com.notetaker.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Per-user counters, kept in step with the notes table
+ * Purpose: Answer "how many notes does this user have" with a primary key
+ * lookup instead of COUNT(*). NoteDAO adjusts note_count in the same
+ * transaction as every note insert/delete, and NoteCountReconciler repairs
+ * any drift in the background.
+ *
+ * version changes with every note write of the user (the time of the write in
+ * milliseconds, and always larger than before), so pages built from the user's
+ * notes can be revalidated with it instead of being rendered again.
+ */
+@Entity
+@Table(name = "user_stats")
+public class UserStats {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "note_count", nullable = false)
+    private long noteCount;
+
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    public UserStats() {}
+
+    public UserStats(Long userId, long noteCount) {
+        this.userId = userId;
+        this.noteCount = noteCount;
+        this.version = System.currentTimeMillis();
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+
+    public long getNoteCount() { return noteCount; }
+    public void setNoteCount(long noteCount) { this.noteCount = noteCount; }
+
+    public long getVersion() { return version; }
+
+    /**
+     * Record a change: the current time, or one more than before if that is not later
+     */
+    public void touch() { this.version = Math.max(version + 1, System.currentTimeMillis()); }
+
+    @Override
+    public String toString() {
+        return "UserStats{" +
+                "userId=" + userId +
+                ", noteCount=" + noteCount +
+                ", version=" + version +
+                '}';
+    }
+}
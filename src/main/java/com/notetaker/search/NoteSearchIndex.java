@@ -0,0 +1,324 @@
+package com.notetaker.search;
+
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteSummary;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over note titles and contents
+ * Purpose: Answer note searches from memory instead of scanning the notes
+ * table with LOWER(...) LIKE '%term%'.
+ *
+ * The index is partitioned per user (a search never looks at another user's
+ * postings) and is kept current by NoteDAO on every write. Until the first
+ * rebuild from the database has finished, isReady() is false and callers
+ * should fall back to the database query.
+ *
+ * Writes arrive from after-commit callbacks on many threads and so not always in
+ * commit order: a note is only replaced by a newer version of itself, and a
+ * removed note leaves a tombstone for a while that refuses a late index() of it.
+ */
+public final class NoteSearchIndex {
+    private static final Logger logger = LoggerFactory.getLogger(NoteSearchIndex.class);
+    private static final NoteSearchIndex INSTANCE = new NoteSearchIndex();
+
+    // A term in the title counts as much as this many occurrences in the content
+    private static final int TITLE_WEIGHT = 3;
+    // How long a removed note stays refused, and the tombstone count that triggers a purge
+    private static final long TOMBSTONE_MILLIS = 5 * 60 * 1000L;
+    private static final int TOMBSTONE_PURGE_SIZE = 10_000;
+
+    private final Map<Long, UserIndex> userIndexes = new ConcurrentHashMap<>();
+    private final Map<Long, Long> noteOwners = new ConcurrentHashMap<>();
+    private final Set<Long> deletedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private final Map<Long, Long> tombstones = new ConcurrentHashMap<>();
+    private volatile boolean rebuilding = false;
+    private volatile boolean ready = false;
+
+    private NoteSearchIndex() {}
+
+    public static NoteSearchIndex getInstance() {
+        return INSTANCE;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        return noteOwners.size();
+    }
+
+    /**
+     * Add a note to the index, or replace its previous postings
+     */
+    public void index(Note note) {
+        if (note == null || note.getId() == null || note.getUser() == null || note.getUser().getId() == null) {
+            return;
+        }
+        index(note.getId(), note.getUser().getId(), note.getTitle(), note.getContent(), note.getUpdatedAt(),
+                note.getVersion());
+    }
+
+    /**
+     * Add or replace a note at the given version. Versions older than the one indexed
+     * and notes removed less than TOMBSTONE_MILLIS ago are ignored.
+     */
+    public void index(Long noteId, Long userId, String title, String content, Date updatedAt, long version) {
+        IndexedNote doc = new IndexedNote(noteId, title, content, updatedAt, version);
+        Long previousOwner = noteOwners.put(noteId, userId);
+        if (previousOwner != null && !previousOwner.equals(userId)) {
+            userIndex(previousOwner).remove(noteId);
+        }
+        if (!userIndex(userId).put(doc, false)) {
+            // Removed meanwhile: drop the owner entry this call added
+            if (isRemoved(noteId)) {
+                noteOwners.remove(noteId, userId);
+            }
+        }
+    }
+
+    /**
+     * Remove a note from the index
+     */
+    public void remove(Long noteId) {
+        if (noteId == null) {
+            return;
+        }
+        if (rebuilding) {
+            deletedDuringRebuild.add(noteId);
+        }
+        // Set before the postings go, so an index() that takes the user lock later sees it
+        long now = System.currentTimeMillis();
+        tombstones.put(noteId, now);
+        if (tombstones.size() > TOMBSTONE_PURGE_SIZE) {
+            tombstones.values().removeIf(removedAt -> now - removedAt >= TOMBSTONE_MILLIS);
+        }
+        Long owner = noteOwners.remove(noteId);
+        if (owner != null) {
+            UserIndex userIndex = userIndexes.get(owner);
+            if (userIndex != null) {
+                userIndex.remove(noteId);
+            }
+        }
+    }
+
+    /**
+     * Search a user's notes. Every query term must match (as a term prefix) in the
+     * title or content; results are ranked by TF-IDF with title matches boosted,
+     * most recently updated first on ties.
+     */
+    public List<NoteSummary> search(Long userId, String query, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        UserIndex userIndex = userIndexes.get(userId);
+        if (terms.isEmpty() || userIndex == null) {
+            return Collections.emptyList();
+        }
+        return userIndex.search(terms, limit);
+    }
+
+    /**
+     * Mark the start of a rebuild from the database. Rows fed through
+     * indexFromScan() never overwrite fresher data written concurrently.
+     */
+    public void beginRebuild() {
+        deletedDuringRebuild.clear();
+        rebuilding = true;
+        ready = false;
+    }
+
+    public void indexFromScan(Long noteId, Long userId, String title, String content, Date updatedAt,
+                              long version) {
+        if (deletedDuringRebuild.contains(noteId)) {
+            return;
+        }
+        IndexedNote doc = new IndexedNote(noteId, title, content, updatedAt, version);
+        if (noteOwners.putIfAbsent(noteId, userId) == null || userId.equals(noteOwners.get(noteId))) {
+            userIndex(userId).put(doc, true);
+        }
+    }
+
+    public void finishRebuild(boolean success) {
+        rebuilding = false;
+        deletedDuringRebuild.clear();
+        ready = success;
+        logger.info("🔎 Search index rebuild {} - {} notes across {} users",
+                success ? "completed" : "failed", noteOwners.size(), userIndexes.size());
+    }
+
+    private UserIndex userIndex(Long userId) {
+        return userIndexes.computeIfAbsent(userId, id -> new UserIndex());
+    }
+
+    private boolean isRemoved(Long noteId) {
+        Long removedAt = tombstones.get(noteId);
+        return removedAt != null && System.currentTimeMillis() - removedAt < TOMBSTONE_MILLIS;
+    }
+
+    /**
+     * One indexed note: listing fields plus its weighted term frequencies
+     */
+    private static final class IndexedNote {
+        final Long id;
+        final String title;
+        final String contentHead;
+        final Date updatedAt;
+        final long version;
+        final Map<String, Integer> termWeights = new HashMap<>();
+
+        IndexedNote(Long id, String title, String content, Date updatedAt, long version) {
+            this.id = id;
+            this.title = title;
+            this.contentHead = Note.previewOf(content);
+            this.updatedAt = updatedAt;
+            this.version = version;
+            for (String term : Tokenizer.tokenize(title)) {
+                termWeights.merge(term, TITLE_WEIGHT, Integer::sum);
+            }
+            for (String term : Tokenizer.tokenize(content)) {
+                termWeights.merge(term, 1, Integer::sum);
+            }
+        }
+
+        long updatedAtMillis() {
+            return updatedAt != null ? updatedAt.getTime() : 0L;
+        }
+
+        NoteSummary toSummary() {
+            return new NoteSummary(id, title, contentHead, updatedAt);
+        }
+    }
+
+    /**
+     * Postings of a single user: term -> (note id -> weighted term frequency)
+     */
+    private final class UserIndex {
+        private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+        private final Map<Long, IndexedNote> notes = new HashMap<>();
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+        /**
+         * Store doc unless the note was removed or a newer version (with onlyIfNewer,
+         * the same one too) is indexed already; false when it was not stored
+         */
+        boolean put(IndexedNote doc, boolean onlyIfNewer) {
+            lock.writeLock().lock();
+            try {
+                if (isRemoved(doc.id)) {
+                    return false;
+                }
+                IndexedNote existing = notes.get(doc.id);
+                if (existing != null) {
+                    if (existing.version > doc.version || (onlyIfNewer && existing.version == doc.version)) {
+                        return false;
+                    }
+                    unlink(existing);
+                }
+                notes.put(doc.id, doc);
+                for (Map.Entry<String, Integer> entry : doc.termWeights.entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), term -> new HashMap<>())
+                            .put(doc.id, entry.getValue());
+                }
+                return true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void remove(Long noteId) {
+            lock.writeLock().lock();
+            try {
+                IndexedNote existing = notes.remove(noteId);
+                if (existing != null) {
+                    unlink(existing);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        private void unlink(IndexedNote doc) {
+            for (String term : doc.termWeights.keySet()) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list != null) {
+                    list.remove(doc.id);
+                    if (list.isEmpty()) {
+                        postings.remove(term);
+                    }
+                }
+            }
+        }
+
+        List<NoteSummary> search(List<String> terms, int limit) {
+            lock.readLock().lock();
+            try {
+                int totalNotes = notes.size();
+                Map<Long, Double> scores = null;
+
+                for (String queryTerm : terms) {
+                    // Each query term matches every indexed term it is a prefix of
+                    SortedMap<String, Map<Long, Integer>> matches =
+                            postings.subMap(queryTerm, queryTerm + Character.MAX_VALUE);
+                    Map<Long, Double> termScores = new HashMap<>();
+                    for (Map<Long, Integer> list : matches.values()) {
+                        double idf = Math.log(1.0 + (double) totalNotes / list.size());
+                        for (Map.Entry<Long, Integer> posting : list.entrySet()) {
+                            termScores.merge(posting.getKey(), posting.getValue() * idf, Double::sum);
+                        }
+                    }
+
+                    if (scores == null) {
+                        scores = termScores;
+                    } else {
+                        // AND semantics: keep only notes that matched every term so far
+                        Map<Long, Double> merged = new HashMap<>();
+                        for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                            Double termScore = termScores.get(entry.getKey());
+                            if (termScore != null) {
+                                merged.put(entry.getKey(), entry.getValue() + termScore);
+                            }
+                        }
+                        scores = merged;
+                    }
+                    if (scores.isEmpty()) {
+                        return Collections.emptyList();
+                    }
+                }
+
+                List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+                ranked.sort((a, b) -> {
+                    int byScore = Double.compare(b.getValue(), a.getValue());
+                    if (byScore != 0) {
+                        return byScore;
+                    }
+                    return Long.compare(notes.get(b.getKey()).updatedAtMillis(),
+                            notes.get(a.getKey()).updatedAtMillis());
+                });
+
+                List<NoteSummary> results = new ArrayList<>(Math.min(limit, ranked.size()));
+                for (Map.Entry<Long, Double> entry : ranked) {
+                    if (results.size() >= limit) {
+                        break;
+                    }
+                    results.add(notes.get(entry.getKey()).toSummary());
+                }
+                return results;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.notetaker.search;
+
+import com.notetaker.util.AppConfig;
+
+import java.util.Locale;
+
+/**
+ * Note search backends, selected with the search.mode setting
+ */
+public enum SearchMode {
+    /** In-process inverted index (NoteSearchIndex) */
+    INDEX,
+    /** MySQL FULLTEXT index queried with MATCH ... AGAINST */
+    FULLTEXT,
+    /** LOWER(...) LIKE '%term%' scan of the user's notes */
+    LIKE;
+
+    public static SearchMode fromConfig() {
+        String value = AppConfig.getString("search.mode", "index");
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return INDEX;
+        }
+    }
+}
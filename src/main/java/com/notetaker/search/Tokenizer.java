@@ -0,0 +1,48 @@
+package com.notetaker.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Tokenizer for the in-process note search index
+ * Purpose: Split note text and queries into lower-cased terms made of
+ * letters and digits, so indexing and searching agree on term boundaries.
+ */
+public final class Tokenizer {
+    static final int MAX_TERM_LENGTH = 64;
+
+    private Tokenizer() {}
+
+    public static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            boolean wordChar = Character.isLetterOrDigit(codePoint);
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                addTerm(terms, text, start, i);
+                start = -1;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (start >= 0) {
+            addTerm(terms, text, start, length);
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String text, int start, int end) {
+        if (end - start > MAX_TERM_LENGTH) {
+            end = start + MAX_TERM_LENGTH;
+        }
+        terms.add(text.substring(start, end).toLowerCase(Locale.ROOT));
+    }
+}
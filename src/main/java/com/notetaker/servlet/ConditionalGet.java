@@ -0,0 +1,97 @@
+package com.notetaker.servlet;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Conditional GET for pages built from a user's notes
+ * Purpose: Derive ETag and Last-Modified from the user's notes version
+ * (UserStats.version, see NoteDAO.getNoteVersion) and answer revalidations of
+ * an unchanged page with 304 Not Modified, before any note is read.
+ *
+ * The ETag names the user and the version, so it is the same for every page of
+ * the user until one of their notes changes; the browser keeps one per URL.
+ * Last-Modified has whole seconds only, so it is left out while the version's
+ * second is still running: a later write in that second would not move it.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {}
+
+    /**
+     * Whether the client's copy is current; if so the 304 has been sent. A negative
+     * version (it could not be read) never matches.
+     */
+    static boolean isNotModified(HttpServletRequest request, HttpServletResponse response,
+                                 Long userId, long version) {
+        if (version < 0) {
+            return false;
+        }
+
+        boolean notModified;
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            // If-None-Match wins over If-Modified-Since (RFC 9110, 13.2.2)
+            notModified = matches(ifNoneMatch, etag(userId, version));
+        } else {
+            long lastModified = lastModified(version);
+            notModified = lastModified >= 0 && lastModified <= ifModifiedSince(request);
+        }
+
+        if (notModified) {
+            setValidators(response, userId, version);
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        }
+        return notModified;
+    }
+
+    /**
+     * Send the validators with a page that is rendered in full. Browsers revalidate
+     * it on every visit (no-cache) and get a 304 while the version holds.
+     */
+    static void setValidators(HttpServletResponse response, Long userId, long version) {
+        if (version < 0) {
+            return;
+        }
+        response.setHeader("ETag", etag(userId, version));
+        long lastModified = lastModified(version);
+        if (lastModified >= 0) {
+            response.setDateHeader("Last-Modified", lastModified);
+        }
+        response.setHeader("Cache-Control", "private, no-cache");
+    }
+
+    private static String etag(Long userId, long version) {
+        return "\"n" + userId + "-" + version + "\"";
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The version's second, or -1 while that second is not over yet
+    private static long lastModified(long version) {
+        long second = version / 1000 * 1000;
+        if (version <= 0 || System.currentTimeMillis() / 1000 * 1000 <= second) {
+            return -1;
+        }
+        return second;
+    }
+
+    private static long ifModifiedSince(HttpServletRequest request) {
+        try {
+            return request.getDateHeader("If-Modified-Since");
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+}
@@ -1,8 +1,16 @@
 package com.notetaker.servlet;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.notetaker.cache.DashboardCache;
+import com.notetaker.dao.BulkOutcome;
+import com.notetaker.dao.NoteCursor;
 import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.NotePage;
+import com.notetaker.dao.UpdateResult;
 import com.notetaker.dao.UserDAO;
 import com.notetaker.model.Note;
+import com.notetaker.model.NoteSummary;
 import com.notetaker.model.User;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.annotation.WebServlet;
@@ -14,10 +22,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Dashboard Servlet - Handle note management and dashboard view
@@ -28,15 +42,20 @@ import java.util.List;
 @WebServlet(name = "DashboardServlet", urlPatterns = {"/dashboard", "/dashboard/*"})
 public class DashboardServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(DashboardServlet.class);
+    private static final int PAGE_SIZE = 24;
+    private static final int MAX_BULK_IDS = 1000;
 
     private UserDAO userDAO;
     private NoteDAO noteDAO;
+    private DashboardCache dashboardCache;
+    private final JsonFactory jsonFactory = new JsonFactory();
 
     @Override
     public void init() throws ServletException {
         super.init();
         userDAO = new UserDAO();
         noteDAO = new NoteDAO();
+        dashboardCache = DashboardCache.getInstance();
 
         String currentTime = getCurrentUTCTime();
         logger.info("🎯 DashboardServlet initialized successfully");
@@ -63,13 +82,52 @@ public class DashboardServlet extends HttpServlet {
             User user = (User) session.getAttribute("user");
             logger.info("✅ Dashboard access by user: {}", user.getUsername());
 
-            // Get user's notes
-            List<Note> notes = noteDAO.getNotesByUser(user);
-            request.setAttribute("notes", notes);
+            String searchTerm = request.getParameter("q");
+            NoteCursor cursor = NoteCursor.parse(request.getParameter("cursor"));
+            boolean search = searchTerm != null && !searchTerm.trim().isEmpty();
+
+            // Nothing changed since the browser's copy: 304 without reading any note.
+            // Search results are left out, the in-process index may still be rebuilding.
+            long version = search ? -1 : noteDAO.getNoteVersion(user.getId());
+            if (ConditionalGet.isNotModified(request, response, user.getId(), version)) {
+                logger.info("✅ Dashboard not modified for user: {}", user.getUsername());
+                return;
+            }
+
+            // The first page and the note count are served from the per-user cache
+            DashboardCache.Entry cached = dashboardCache.get(user.getId(),
+                    userId -> noteDAO.loadDashboard(user, PAGE_SIZE));
+            long noteCount = cached != null ? cached.getNoteCount() : noteDAO.getNoteCountByUser(user);
+
+            if (search) {
+                // Search results are ranked, not paginated
+                List<NoteSummary> results = noteDAO.searchNotes(user, searchTerm.trim());
+                request.setAttribute("notes", results);
+                request.setAttribute("searchTerm", searchTerm.trim());
+                request.setAttribute("firstPage", true);
+
+                logger.info("🔍 Search '{}' returned {} notes for user: {}",
+                        searchTerm.trim(), results.size(), user.getUsername());
+            } else {
+                // Get one page of the user's notes, starting after the cursor (if any)
+                NotePage<NoteSummary> page = cursor == null && cached != null
+                        ? cached.getFirstPage()
+                        : noteDAO.getNoteSummaryPageByUser(user, cursor, PAGE_SIZE);
+                request.setAttribute("notes", page.getItems());
+                request.setAttribute("nextCursor", page.getNextToken());
+                request.setAttribute("firstPage", cursor == null);
+
+                logger.info("📝 Loaded page of {} notes (of {}) for user: {}",
+                        page.getSize(), noteCount, user.getUsername());
+            }
+
             request.setAttribute("user", user);
-            request.setAttribute("noteCount", notes.size());
+            request.setAttribute("noteCount", noteCount);
 
-            logger.info("📝 Loaded {} notes for user: {}", notes.size(), user.getUsername());
+            // A cached dashboard carries the version it was read at; otherwise the version
+            // read above predates the page, which at worst costs one needless render later
+            ConditionalGet.setValidators(response, user.getId(),
+                    cached != null && !search ? cached.getVersion() : version);
 
             // Forward to dashboard page
             request.getRequestDispatcher("/WEB-INF/views/dashboard.jsp").forward(request, response);
@@ -111,6 +169,9 @@ public class DashboardServlet extends HttpServlet {
                 case "delete":
                     handleDeleteNote(request, response, user);
                     break;
+                case "bulkDelete":
+                    handleBulkDelete(request, response, user);
+                    break;
                 default:
                     logger.warn("⚠️ Unknown action: {}", action);
                     response.sendRedirect(request.getContextPath() + "/dashboard");
@@ -177,18 +238,25 @@ public class DashboardServlet extends HttpServlet {
 
         try {
             Long noteId = Long.parseLong(noteIdStr);
-            Note note = noteDAO.getNoteById(noteId);
+            String versionStr = request.getParameter("version");
+            Long version = versionStr != null && !versionStr.isEmpty() ? Long.valueOf(versionStr) : null;
+            UpdateResult result = noteDAO.updateIfOwned(noteId, user.getId(), title.trim(), content.trim(), version);
 
-            if (note == null || !note.getUser().getId().equals(user.getId())) {
+            if (result.getStatus() == UpdateResult.Status.NOT_FOUND) {
                 logger.warn("⚠️ Note update failed - note not found or unauthorized");
                 response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
                 return;
             }
-
-            note.setTitle(title.trim());
-            note.setContent(content.trim());
-
-            noteDAO.updateNote(note);
+            if (result.getStatus() == UpdateResult.Status.CONFLICT) {
+                response.sendRedirect(request.getContextPath() + "/dashboard?error="
+                        + URLEncoder.encode("The note was changed somewhere else, open it again to see the current version",
+                        StandardCharsets.UTF_8));
+                return;
+            }
+            if (!result.isUpdated()) {
+                response.sendRedirect(request.getContextPath() + "/dashboard?error=Failed to update note");
+                return;
+            }
 
             logger.info("✅ Note updated successfully - ID: {} for user: {}", noteId, user.getUsername());
             response.sendRedirect(request.getContextPath() + "/dashboard?success=Note updated successfully");
@@ -217,15 +285,17 @@ public class DashboardServlet extends HttpServlet {
 
         try {
             Long noteId = Long.parseLong(noteIdStr);
-            Note note = noteDAO.getNoteById(noteId);
+            int deleted = noteDAO.deleteIfOwned(noteId, user.getId());
 
-            if (note == null || !note.getUser().getId().equals(user.getId())) {
+            if (deleted == 0) {
                 logger.warn("⚠️ Note deletion failed - note not found or unauthorized");
                 response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
                 return;
             }
-
-            noteDAO.deleteNote(noteId);
+            if (deleted < 0) {
+                response.sendRedirect(request.getContextPath() + "/dashboard?error=Failed to delete note");
+                return;
+            }
 
             logger.info("✅ Note deleted successfully - ID: {} for user: {}", noteId, user.getUsername());
             response.sendRedirect(request.getContextPath() + "/dashboard?success=Note deleted successfully");
@@ -239,6 +309,98 @@ public class DashboardServlet extends HttpServlet {
         }
     }
 
+    /**
+     * Delete the selected notes ("ids", repeated or comma separated) in one transaction.
+     * Answers with per-id results as JSON when the client accepts JSON, otherwise
+     * redirects back to the dashboard with a summary message.
+     */
+    private void handleBulkDelete(HttpServletRequest request, HttpServletResponse response, User user)
+            throws IOException {
+
+        Set<Long> ids = new LinkedHashSet<>();
+        String[] values = request.getParameterValues("ids");
+        try {
+            if (values != null) {
+                for (String value : values) {
+                    for (String id : value.split(",")) {
+                        if (!id.isBlank()) {
+                            ids.add(Long.parseLong(id.trim()));
+                        }
+                    }
+                }
+            }
+        } catch (NumberFormatException e) {
+            logger.warn("⚠️ Invalid note IDs for bulk delete: {}", Arrays.toString(values));
+            sendBulkError(request, response, HttpServletResponse.SC_BAD_REQUEST, "Invalid note ID");
+            return;
+        }
+
+        logger.info("🗑️ Bulk delete of {} notes for user: {}", ids.size(), user.getUsername());
+
+        if (ids.isEmpty()) {
+            sendBulkError(request, response, HttpServletResponse.SC_BAD_REQUEST, "Select at least one note");
+            return;
+        }
+        if (ids.size() > MAX_BULK_IDS) {
+            sendBulkError(request, response, HttpServletResponse.SC_BAD_REQUEST,
+                    "At most " + MAX_BULK_IDS + " notes can be deleted at once");
+            return;
+        }
+
+        Map<Long, BulkOutcome> outcomes = noteDAO.deleteAllIfOwned(user.getId(), ids);
+        long deleted = outcomes.values().stream().filter(o -> o == BulkOutcome.DELETED).count();
+        long notFound = outcomes.values().stream().filter(o -> o == BulkOutcome.NOT_FOUND).count();
+        boolean failed = outcomes.containsValue(BulkOutcome.FAILED);
+
+        if (wantsJson(request)) {
+            response.setStatus(failed ? HttpServletResponse.SC_INTERNAL_SERVER_ERROR : HttpServletResponse.SC_OK);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            try (JsonGenerator json = jsonFactory.createGenerator(response.getWriter())) {
+                json.writeStartObject();
+                json.writeNumberField("deleted", deleted);
+                json.writeNumberField("notFound", notFound);
+                json.writeObjectFieldStart("results");
+                for (Map.Entry<Long, BulkOutcome> outcome : outcomes.entrySet()) {
+                    json.writeStringField(String.valueOf(outcome.getKey()), outcome.getValue().key());
+                }
+                json.writeEndObject();
+                json.writeEndObject();
+            }
+            return;
+        }
+
+        if (failed) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=Failed to delete notes");
+        } else {
+            String message = "Deleted " + deleted + " note(s)" + (notFound > 0 ? ", " + notFound + " not found" : "");
+            response.sendRedirect(request.getContextPath() + "/dashboard?success="
+                    + URLEncoder.encode(message, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void sendBulkError(HttpServletRequest request, HttpServletResponse response, int status, String message)
+            throws IOException {
+        if (wantsJson(request)) {
+            response.setStatus(status);
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            try (JsonGenerator json = jsonFactory.createGenerator(response.getWriter())) {
+                json.writeStartObject();
+                json.writeStringField("error", message);
+                json.writeEndObject();
+            }
+        } else {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error="
+                    + URLEncoder.encode(message, StandardCharsets.UTF_8));
+        }
+    }
+
+    private boolean wantsJson(HttpServletRequest request) {
+        String accept = request.getHeader("Accept");
+        return accept != null && accept.contains("application/json");
+    }
+
     private String getCurrentUTCTime() {
         return LocalDateTime.now(ZoneOffset.UTC)
                 .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
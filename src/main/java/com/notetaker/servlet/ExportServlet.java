@@ -0,0 +1,223 @@
+package com.notetaker.servlet;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.NoteRowHandler;
+import com.notetaker.model.User;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Export Servlet - download all of a user's notes
+ * Purpose: Stream a backup of the logged-in user's notes as JSON Lines
+ * (/export?format=jsonl, the default) or CSV (/export?format=csv). Rows go
+ * from a database cursor straight to the response with chunked encoding,
+ * so memory use does not grow with the number of notes, and the bodies of
+ * large notes are copied from their chunks without being built up as Strings.
+ */
+@WebServlet(name = "ExportServlet", urlPatterns = {"/export"})
+public class ExportServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ExportServlet.class);
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final String CSV_HEADER = "id,title,content,created_at,updated_at\r\n";
+
+    private JsonFactory jsonFactory;
+    private NoteDAO noteDAO;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        noteDAO = new NoteDAO();
+        jsonFactory = new JsonFactory();
+        // One object per line; the default root separator would prefix each line with a space
+        jsonFactory.setRootValueSeparator(null);
+        logger.info("📤 ExportServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            logger.warn("⚠️ Unauthorized export attempt");
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+
+        User user = (User) session.getAttribute("user");
+        String format = request.getParameter("format");
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (format != null && !csv && !"jsonl".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "format must be jsonl or csv");
+            return;
+        }
+
+        logger.info("📤 Export ({}) requested by user: {} at: {}",
+                csv ? "csv" : "jsonl", user.getUsername(), getCurrentUTCTime());
+
+        String filename = "notes-" + user.getUsername() + "-" + LocalDate.now(ZoneOffset.UTC) + (csv ? ".csv" : ".jsonl");
+        response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader("Content-Disposition", "attachment; filename=\"" + filename + "\"");
+        response.setHeader("Cache-Control", "no-store");
+        response.setBufferSize(OUTPUT_BUFFER_SIZE);
+
+        long start = System.nanoTime();
+        CountingOutputStream out = new CountingOutputStream(response.getOutputStream());
+        long exported = csv ? exportCsv(user, out) : exportJsonLines(user, out);
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+
+        if (exported < 0) {
+            logger.error("❌ Export failed for user: {} after {} bytes", user.getUsername(), out.getCount());
+            if (!response.isCommitted()) {
+                response.resetBuffer();
+                response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            }
+            return;
+        }
+        logger.info("✅ Exported {} notes ({} bytes) for user: {} in {} s - {} notes/s, {} MB/s",
+                exported, out.getCount(), user.getUsername(), String.format("%.2f", seconds),
+                String.format("%.0f", exported / seconds),
+                String.format("%.2f", out.getCount() / seconds / (1024 * 1024)));
+    }
+
+    private long exportJsonLines(User user, OutputStream out) throws IOException {
+        try (JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8)) {
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            NoteRowHandler writeLine = (id, title, content, createdAt, updatedAt) -> {
+                json.writeStartObject();
+                json.writeNumberField("id", id);
+                json.writeStringField("title", title);
+                json.writeFieldName("content");
+                if (content != null) {
+                    json.writeString(content, -1);
+                } else {
+                    json.writeNull();
+                }
+                json.writeStringField("createdAt", formatDate(createdAt));
+                json.writeStringField("updatedAt", formatDate(updatedAt));
+                json.writeEndObject();
+                json.writeRaw('\n');
+            };
+            return noteDAO.streamNotesByUser(user, writeLine);
+        }
+    }
+
+    private long exportCsv(User user, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        NoteRowHandler writeRow = (id, title, content, createdAt, updatedAt) -> {
+            writer.write(String.valueOf(id));
+            writer.write(',');
+            writeCsvField(writer, title);
+            writer.write(',');
+            writeCsvField(writer, content);
+            writer.write(',');
+            writer.write(formatDate(createdAt));
+            writer.write(',');
+            writer.write(formatDate(updatedAt));
+            writer.write("\r\n");
+        };
+        long exported = noteDAO.streamNotesByUser(user, writeRow);
+        writer.flush();
+        return exported;
+    }
+
+    /**
+     * RFC 4180 field: quoted, with embedded quotes doubled
+     */
+    private static void writeCsvField(Writer writer, String value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            writer.write(value.replace("\"", "\"\""));
+        }
+        writer.write('"');
+    }
+
+    /**
+     * Same as above for a content that is read piece by piece (large notes)
+     */
+    private static void writeCsvField(Writer writer, Reader value) throws IOException {
+        writer.write('"');
+        if (value != null) {
+            char[] buffer = new char[8192];
+            int read;
+            while ((read = value.read(buffer)) > 0) {
+                int start = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '"') {
+                        writer.write(buffer, start, i + 1 - start);
+                        writer.write('"');
+                        start = i + 1;
+                    }
+                }
+                writer.write(buffer, start, read - start);
+            }
+        }
+        writer.write('"');
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? date.toInstant().toString() : "";
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    /**
+     * Counts the bytes written through it, for the throughput log line
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
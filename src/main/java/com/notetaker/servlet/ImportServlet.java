@@ -0,0 +1,288 @@
+package com.notetaker.servlet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.notetaker.dao.ImportResult;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.model.Note;
+import com.notetaker.model.User;
+import com.notetaker.util.CsvReader;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.MultipartConfig;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import jakarta.servlet.http.Part;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Import Servlet - bulk upload of notes
+ * Purpose: Accept a JSON Lines / JSON array or CSV file (the formats written by
+ * /export) and add its notes to the logged-in user's account. The upload is
+ * parsed as a stream and handed to NoteDAO.importNotes one note at a time, which
+ * persists them in JDBC batches, so file size is bounded by disk, not memory.
+ *
+ * The file is sent as multipart field "file"; the format comes from the
+ * "format" parameter or the file extension (.csv is CSV, anything else JSON).
+ * Every record needs a title and content; bodies too large for a plain note are
+ * stored as a large note's chunks, so every export can be imported again.
+ */
+@WebServlet(name = "ImportServlet", urlPatterns = {"/import"})
+@MultipartConfig(fileSizeThreshold = 1024 * 1024, maxFileSize = 1024L * 1024 * 1024, maxRequestSize = 1024L * 1024 * 1024)
+public class ImportServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(ImportServlet.class);
+    private static final int MAX_TITLE_LENGTH = 200;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private NoteDAO noteDAO;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        noteDAO = new NoteDAO();
+        logger.info("📥 ImportServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            logger.warn("⚠️ Unauthorized import attempt");
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+
+        User user = (User) session.getAttribute("user");
+        Part file = request.getPart("file");
+        if (file == null || file.getSize() == 0) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=" + encode("Choose a file to import"));
+            return;
+        }
+
+        String format = request.getParameter("format");
+        String filename = file.getSubmittedFileName();
+        boolean csv = format != null
+                ? "csv".equalsIgnoreCase(format)
+                : filename != null && filename.toLowerCase(Locale.ROOT).endsWith(".csv");
+
+        logger.info("📥 Import ({}) of '{}' ({} bytes) by user: {}",
+                csv ? "csv" : "json", filename, file.getSize(), user.getUsername());
+
+        ImportResult result;
+        try (InputStream in = file.getInputStream()) {
+            Iterator<Note> notes = csv ? new CsvNotes(in) : new JsonNotes(jsonFactory.createParser(in));
+            result = noteDAO.importNotes(user, notes);
+        } catch (IllegalArgumentException e) {
+            result = new ImportResult(0, e.getMessage());
+        } finally {
+            file.delete();
+        }
+
+        if (result.isComplete()) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?success="
+                    + encode("Imported " + result.getImported() + " notes"));
+        } else {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error="
+                    + encode("Import stopped after " + result.getImported() + " notes: " + result.getError()));
+        }
+    }
+
+    private static Note toNote(long record, String title, String content, String createdAt, String updatedAt) {
+        if (title == null || title.trim().isEmpty()) {
+            throw new IllegalArgumentException("record " + record + " has no title");
+        }
+        title = title.trim();
+        if (title.length() > MAX_TITLE_LENGTH) {
+            title = title.substring(0, MAX_TITLE_LENGTH);
+        }
+        // Same rule as the note form (NoteServlet): a note without content is refused
+        if (content == null || content.trim().isEmpty()) {
+            throw new IllegalArgumentException("record " + record + " has no content");
+        }
+        Note note = new Note(title, content, null);
+        note.setCreatedAt(parseDate(record, createdAt));
+        note.setUpdatedAt(parseDate(record, updatedAt));
+        return note;
+    }
+
+    private static Date parseDate(long record, String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        try {
+            return Date.from(Instant.parse(value));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("record " + record + " has an invalid date: " + value);
+        }
+    }
+
+    private static String encode(String message) {
+        return URLEncoder.encode(message, StandardCharsets.UTF_8);
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    /**
+     * Notes from a stream of JSON objects: JSON Lines, or a single top-level array.
+     * Unknown fields (such as the exported id) are skipped.
+     */
+    private static class JsonNotes implements Iterator<Note> {
+        private final JsonParser parser;
+        private boolean inArray;
+        private JsonToken next;
+        private long record;
+
+        JsonNotes(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                if (next == null) {
+                    next = parser.nextToken();
+                    if (record == 0 && !inArray && next == JsonToken.START_ARRAY) {
+                        inArray = true;
+                        next = parser.nextToken();
+                    }
+                    if (inArray && next == JsonToken.END_ARRAY) {
+                        next = parser.nextToken();
+                        inArray = false;
+                    }
+                }
+                return next != null;
+            } catch (IOException e) {
+                throw new IllegalArgumentException("invalid JSON after record " + record + ": " + e.getMessage());
+            }
+        }
+
+        @Override
+        public Note next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            record++;
+            if (next != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("record " + record + " is not a JSON object");
+            }
+            next = null;
+
+            String title = null, content = null, createdAt = null, updatedAt = null;
+            try {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String field = parser.currentName();
+                    JsonToken value = parser.nextToken();
+                    if (value == JsonToken.START_OBJECT || value == JsonToken.START_ARRAY) {
+                        parser.skipChildren();
+                        continue;
+                    }
+                    String text = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    switch (field) {
+                        case "title" -> title = text;
+                        case "content" -> content = text;
+                        case "createdAt" -> createdAt = text;
+                        case "updatedAt" -> updatedAt = text;
+                        default -> { }
+                    }
+                }
+            } catch (IOException e) {
+                throw new IllegalArgumentException("invalid JSON in record " + record + ": " + e.getMessage());
+            }
+            return toNote(record, title, content, createdAt, updatedAt);
+        }
+    }
+
+    /**
+     * Notes from CSV with a header row naming the columns (title, content,
+     * created_at, updated_at; other columns are ignored)
+     */
+    private static class CsvNotes implements Iterator<Note> {
+        private final CsvReader reader;
+        private int titleColumn = -1, contentColumn = -1, createdColumn = -1, updatedColumn = -1;
+        private List<String> next;
+
+        CsvNotes(InputStream in) {
+            this.reader = new CsvReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            List<String> header = read();
+            if (header == null) {
+                return;
+            }
+            for (int i = 0; i < header.size(); i++) {
+                switch (header.get(i).trim().toLowerCase(Locale.ROOT).replace("\uFEFF", "")) {
+                    case "title" -> titleColumn = i;
+                    case "content" -> contentColumn = i;
+                    case "created_at", "createdat" -> createdColumn = i;
+                    case "updated_at", "updatedat" -> updatedColumn = i;
+                    default -> { }
+                }
+            }
+            if (titleColumn < 0) {
+                throw new IllegalArgumentException("CSV header has no title column");
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null) {
+                List<String> row = read();
+                if (row == null) {
+                    return false;
+                }
+                if (!(row.size() == 1 && row.get(0).isEmpty())) {
+                    next = row;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Note next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<String> row = next;
+            next = null;
+            return toNote(reader.getRecordNumber() - 1, column(row, titleColumn), column(row, contentColumn),
+                    column(row, createdColumn), column(row, updatedColumn));
+        }
+
+        private List<String> read() {
+            try {
+                return reader.readRecord();
+            } catch (IOException e) {
+                throw new IllegalArgumentException("invalid CSV after record " + reader.getRecordNumber()
+                        + ": " + e.getMessage());
+            }
+        }
+
+        private static String column(List<String> row, int index) {
+            return index >= 0 && index < row.size() ? row.get(index) : null;
+        }
+    }
+}
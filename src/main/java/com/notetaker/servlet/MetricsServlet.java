@@ -0,0 +1,59 @@
+package com.notetaker.servlet;
+
+import com.notetaker.metrics.MetricsRegistry;
+import com.notetaker.util.AppConfig;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+
+/**
+ * Metrics Servlet - expose runtime metrics in text exposition format
+ * Purpose: Publish connection pool gauges and latency histograms (and any
+ * other registered MetricsSource) for capacity planning and scraping.
+ */
+@WebServlet(name = "MetricsServlet", urlPatterns = {"/metrics"})
+public class MetricsServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(MetricsServlet.class);
+    private boolean allowRemote;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        allowRemote = AppConfig.getBoolean("metrics.allowRemote", false);
+        logger.info("📈 MetricsServlet initialized (remote access: {})", allowRemote);
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        if (!allowRemote && !isLoopback(request.getRemoteAddr())) {
+            logger.warn("⚠️ Metrics request from non-local address: {}", request.getRemoteAddr());
+            response.sendError(HttpServletResponse.SC_FORBIDDEN);
+            return;
+        }
+
+        response.setContentType("text/plain; version=0.0.4; charset=UTF-8");
+        response.setHeader("Cache-Control", "no-store");
+        PrintWriter out = response.getWriter();
+        MetricsRegistry.writeAll(out);
+        out.flush();
+    }
+
+    private boolean isLoopback(String address) {
+        try {
+            return address != null && InetAddress.getByName(address).isLoopbackAddress();
+        } catch (UnknownHostException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.notetaker.servlet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.model.Note;
+import com.notetaker.model.User;
+import com.notetaker.util.UnitOfWork;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Note Content Servlet - note bodies as raw streams
+ * Purpose: Serve and accept note bodies of any size without holding them in
+ * memory, for notes too large for the edit form:
+ *
+ *   GET  /note/raw?id=N            the body as text/plain
+ *   GET  /note/download?id=N       the same as an attachment (title.txt)
+ *   POST /note/upload?id=N         replace the body of note N with the request body
+ *   POST /note/upload?title=T      create a note with the request body
+ *
+ * Uploads are UTF-8 text sent as the raw request body (not a form), read from the
+ * request stream straight into note chunks (NoteDAO.writeLargeNote); the answer is
+ * JSON ({"id": N} or {"error": message}).
+ */
+@WebServlet(name = "NoteContentServlet", urlPatterns = {"/note/raw", "/note/download", "/note/upload"})
+public class NoteContentServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(NoteContentServlet.class);
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_TITLE_LENGTH = 200;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private NoteDAO noteDAO;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        noteDAO = new NoteDAO();
+        logger.info("📦 NoteContentServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        User user = getUser(request);
+        if (user == null) {
+            logger.warn("⚠️ Unauthorized note content request");
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+
+        Long id = parseId(request.getParameter("id"));
+        if (id == null) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid note ID");
+            return;
+        }
+
+        Note note = noteDAO.getNoteById(id, user.getId());
+        if (note == null || !note.getUser().getId().equals(user.getId())) {
+            logger.warn("⚠️ Note content not found or not owned - ID: {} by user: {}", id, user.getUsername());
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        // Give the request's connection back before a transfer that may take a while
+        UnitOfWork.completeRequest(true);
+
+        boolean download = "/note/download".equals(request.getServletPath());
+        logger.info("📤 Note {} - ID: {} ({}) for user: {}", download ? "download" : "raw view", id,
+                note.isChunked() ? note.getContentSize() + " bytes in chunks" : "plain", user.getUsername());
+
+        response.setContentType("text/plain");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // User text, never to be sniffed into HTML
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Cache-Control", "private, no-cache");
+        if (download) {
+            response.setHeader("Content-Disposition", "attachment; filename=\"" + fileName(note.getTitle()) + "\"");
+        }
+
+        OutputStream out = response.getOutputStream();
+        if (!note.isChunked()) {
+            byte[] body = note.getContent() != null ? note.getContent().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            response.setContentLengthLong(body.length);
+            out.write(body);
+            return;
+        }
+
+        response.setBufferSize(OUTPUT_BUFFER_SIZE);
+        if (note.getContentSize() != null) {
+            response.setContentLengthLong(note.getContentSize());
+        }
+        long written = noteDAO.streamLargeContent(id, user.getId(), out);
+        if (written < 0 && !response.isCommitted()) {
+            response.resetBuffer();
+            response.setContentLengthLong(-1);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        User user = getUser(request);
+        if (user == null) {
+            logger.warn("⚠️ Unauthorized note upload");
+            sendJson(response, HttpServletResponse.SC_UNAUTHORIZED, "error", "Not logged in");
+            return;
+        }
+        if (!"/note/upload".equals(request.getServletPath())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        // Form bodies would be parsed (and buffered) by the container on the first getParameter
+        String contentType = request.getContentType();
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("application/x-www-form-urlencoded") || type.startsWith("multipart/")) {
+                sendJson(response, HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "error",
+                        "Send the note as the raw request body");
+                return;
+            }
+        }
+
+        String idParam = request.getParameter("id");
+        String title = request.getParameter("title");
+        Long id = null;
+        if (idParam != null && !idParam.isEmpty()) {
+            id = parseId(idParam);
+            if (id == null) {
+                sendJson(response, HttpServletResponse.SC_BAD_REQUEST, "error", "Invalid note ID");
+                return;
+            }
+        } else if (title == null || title.trim().isEmpty() || title.trim().length() > MAX_TITLE_LENGTH) {
+            sendJson(response, HttpServletResponse.SC_BAD_REQUEST, "error",
+                    "A title of 1 to " + MAX_TITLE_LENGTH + " characters is required");
+            return;
+        }
+
+        logger.info("📦 Note upload - ID: {}, {} bytes announced, by user: {}",
+                id, request.getContentLengthLong(), user.getUsername());
+
+        long saved;
+        try {
+            saved = noteDAO.writeLargeNote(id, user.getId(), id == null ? title.trim() : null, request.getInputStream());
+        } catch (IllegalArgumentException e) {
+            sendJson(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "error", e.getMessage());
+            return;
+        } catch (IOException e) {
+            // The client went away mid-upload; nothing was saved and nobody is listening
+            logger.warn("⚠️ Note upload by user: {} aborted: {}", user.getUsername(), e.getMessage());
+            return;
+        }
+
+        if (saved == 0) {
+            sendJson(response, HttpServletResponse.SC_NOT_FOUND, "error", "Note not found");
+        } else if (saved < 0) {
+            sendJson(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "error", "Failed to save note");
+        } else {
+            logger.info("✅ Note upload saved - ID: {} for user: {}", saved, user.getUsername());
+            sendJson(response, id == null ? HttpServletResponse.SC_CREATED : HttpServletResponse.SC_OK, "id", saved);
+        }
+    }
+
+    private void sendJson(HttpServletResponse response, int status, String field, Object value) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator json = jsonFactory.createGenerator(response.getWriter())) {
+            json.writeStartObject();
+            if (value instanceof Long number) {
+                json.writeNumberField(field, number);
+            } else {
+                json.writeStringField(field, String.valueOf(value));
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private static User getUser(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (User) session.getAttribute("user") : null;
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return value != null ? Long.parseLong(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The title as a safe attachment file name: letters, digits, dot, dash and underscore
+     */
+    private static String fileName(String title) {
+        String name = title != null ? title.replaceAll("[^A-Za-z0-9._-]+", "_") : "";
+        name = name.replaceAll("^[._]+", "");
+        if (name.length() > 100) {
+            name = name.substring(0, 100);
+        }
+        return (name.isEmpty() ? "note" : name) + ".txt";
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+}
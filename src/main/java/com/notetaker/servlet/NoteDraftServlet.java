@@ -0,0 +1,106 @@
+package com.notetaker.servlet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.notetaker.cache.DraftBuffer;
+import com.notetaker.dao.UpdateResult;
+import com.notetaker.model.User;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Note Draft Servlet - autosave of the edit form
+ * Purpose: POST /note/draft with the fields of the edit form (noteId, version,
+ * title, content) hands the state of the editor to the DraftBuffer, which writes
+ * it to the database later and coalesces saves that come in meanwhile. The answer
+ * is JSON: {"version": V} with the note's version as of the last write of the
+ * draft, or {"error": ..., "version": V} (409) when the note was changed elsewhere.
+ */
+@WebServlet(name = "NoteDraftServlet", urlPatterns = {"/note/draft"})
+public class NoteDraftServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(NoteDraftServlet.class);
+    private static final int MAX_TITLE_LENGTH = 200;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private DraftBuffer draftBuffer;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        draftBuffer = DraftBuffer.getInstance();
+        logger.info("📝 NoteDraftServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            logger.warn("⚠️ Unauthorized draft save");
+            sendJson(response, HttpServletResponse.SC_UNAUTHORIZED, "Not logged in", -1);
+            return;
+        }
+        User user = (User) session.getAttribute("user");
+
+        Long id;
+        long version;
+        try {
+            id = Long.valueOf(request.getParameter("noteId"));
+            version = Long.parseLong(request.getParameter("version"));
+        } catch (NumberFormatException e) {
+            sendJson(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid note ID or version", -1);
+            return;
+        }
+        String title = request.getParameter("title");
+        String content = request.getParameter("content");
+        // Drafts the explicit save would refuse are not kept either
+        if (title == null || title.trim().isEmpty() || title.trim().length() > MAX_TITLE_LENGTH
+                || content == null || content.trim().isEmpty()) {
+            sendJson(response, HttpServletResponse.SC_BAD_REQUEST, "Title and content are required", -1);
+            return;
+        }
+
+        UpdateResult result = draftBuffer.save(id, user.getId(), session.getId(), version,
+                title.trim(), content.trim());
+        switch (result.getStatus()) {
+            case BUFFERED, UPDATED -> sendJson(response, HttpServletResponse.SC_OK, null, result.getVersion());
+            case CONFLICT -> sendJson(response, HttpServletResponse.SC_CONFLICT,
+                    "The note was changed elsewhere; save it to compare", result.getVersion());
+            case NOT_FOUND -> sendJson(response, HttpServletResponse.SC_NOT_FOUND, "Note not found", -1);
+            default -> sendJson(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to save draft", -1);
+        }
+    }
+
+    private void sendJson(HttpServletResponse response, int status, String error, long version) throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator json = jsonFactory.createGenerator(response.getWriter())) {
+            json.writeStartObject();
+            if (error != null) {
+                json.writeStringField("error", error);
+            }
+            if (version >= 0) {
+                json.writeNumberField("version", version);
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+}
@@ -0,0 +1,220 @@
+package com.notetaker.servlet;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UpdateResult;
+import com.notetaker.model.User;
+import com.notetaker.util.TextPatch;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Note Patch Servlet - save a note by sending only what changed
+ * Purpose: PATCH (or POST) /note/patch?id=N with a JSON body
+ *
+ *   {"baseVersion": 7, "baseLength": 51200, "baseHash": "1c2d3e4f",
+ *    "title": "optional new title",
+ *    "edits": [{"at": 1042, "delete": 3, "insert": "the"}]}
+ *
+ * applies the edits (see TextPatch) to the stored content on the server, so a
+ * typo fix in a large note costs a few bytes each way. The answer is
+ * {"id": N, "version": V} with the new version, or {"error": ..., "version": V}
+ * with the current one on a conflict (409: the note changed since baseVersion or
+ * the client's copy differs), after which the client falls back to a full save.
+ */
+@WebServlet(name = "NotePatchServlet", urlPatterns = {"/note/patch"})
+public class NotePatchServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(NotePatchServlet.class);
+    // A patch carries the changed text only; anything bigger is better sent as a full save
+    private static final int MAX_PATCH_BYTES = 256 * 1024;
+    private static final int MAX_TITLE_LENGTH = 200;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private NoteDAO noteDAO;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        noteDAO = new NoteDAO();
+        logger.info("🩹 NotePatchServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void service(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+        // HttpServlet has no doPatch
+        if ("PATCH".equals(request.getMethod())) {
+            doPost(request, response);
+        } else {
+            super.service(request, response);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        HttpSession session = request.getSession(false);
+        if (session == null || session.getAttribute("user") == null) {
+            logger.warn("⚠️ Unauthorized note patch");
+            sendJson(response, HttpServletResponse.SC_UNAUTHORIZED, "Not logged in", -1, -1);
+            return;
+        }
+        User user = (User) session.getAttribute("user");
+
+        Long id;
+        try {
+            id = Long.valueOf(request.getParameter("id"));
+        } catch (NumberFormatException e) {
+            sendJson(response, HttpServletResponse.SC_BAD_REQUEST, "Invalid note ID", -1, -1);
+            return;
+        }
+        if (request.getContentLengthLong() > MAX_PATCH_BYTES) {
+            sendJson(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Patch too large", -1, -1);
+            return;
+        }
+        byte[] body = request.getInputStream().readNBytes(MAX_PATCH_BYTES + 1);
+        if (body.length > MAX_PATCH_BYTES) {
+            sendJson(response, HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE, "Patch too large", -1, -1);
+            return;
+        }
+
+        PatchRequest patch;
+        UpdateResult result;
+        try {
+            patch = parse(body);
+            logger.info("🩹 Note patch - ID: {} ({} bytes) by user: {}", id, body.length, user.getUsername());
+            result = noteDAO.patchIfOwned(id, user.getId(), patch.baseVersion, patch.title, patch.textPatch);
+        } catch (IllegalArgumentException e) {
+            sendJson(response, HttpServletResponse.SC_BAD_REQUEST, e.getMessage(), -1, -1);
+            return;
+        }
+
+        switch (result.getStatus()) {
+            case UPDATED -> {
+                logger.info("✅ Note patched - ID: {} now at version {} for user: {}",
+                        id, result.getVersion(), user.getUsername());
+                sendJson(response, HttpServletResponse.SC_OK, null, id, result.getVersion());
+            }
+            case CONFLICT -> sendJson(response, HttpServletResponse.SC_CONFLICT,
+                    "The note was changed since it was loaded", id, result.getVersion());
+            case NOT_FOUND -> sendJson(response, HttpServletResponse.SC_NOT_FOUND, "Note not found", -1, -1);
+            default -> sendJson(response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Failed to save note", -1, -1);
+        }
+    }
+
+    private PatchRequest parse(byte[] body) throws IOException {
+        PatchRequest patch = new PatchRequest();
+        Long baseVersion = null;
+        Integer baseLength = null;
+        String baseHash = null;
+
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("The patch must be a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "baseVersion" -> baseVersion = parser.getLongValue();
+                    case "baseLength" -> baseLength = parser.getIntValue();
+                    case "baseHash" -> baseHash = parser.getValueAsString();
+                    case "title" -> patch.title = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "edits" -> {
+                        if (baseLength == null) {
+                            throw new IllegalArgumentException("baseLength must come before edits");
+                        }
+                        patch.textPatch = new TextPatch(baseLength, baseHash);
+                        readEdits(parser, patch.textPatch);
+                    }
+                    default -> parser.skipChildren();
+                }
+            }
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+        }
+
+        if (baseVersion == null || baseLength == null) {
+            throw new IllegalArgumentException("baseVersion and baseLength are required");
+        }
+        if (patch.textPatch == null) {
+            patch.textPatch = new TextPatch(baseLength, baseHash);
+        }
+        if (patch.title != null) {
+            patch.title = patch.title.trim();
+            if (patch.title.isEmpty() || patch.title.length() > MAX_TITLE_LENGTH) {
+                throw new IllegalArgumentException("A title of 1 to " + MAX_TITLE_LENGTH + " characters is required");
+            }
+        }
+        patch.baseVersion = baseVersion;
+        return patch;
+    }
+
+    private static void readEdits(JsonParser parser, TextPatch textPatch) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new IllegalArgumentException("edits must be an array");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            int at = -1;
+            int delete = 0;
+            String insert = "";
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "at" -> at = parser.getIntValue();
+                    case "delete" -> delete = parser.getIntValue();
+                    case "insert" -> insert = parser.getValueAsString("");
+                    default -> parser.skipChildren();
+                }
+            }
+            textPatch.add(at, delete, insert);
+        }
+    }
+
+    private void sendJson(HttpServletResponse response, int status, String error, long id, long version)
+            throws IOException {
+        response.setStatus(status);
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator json = jsonFactory.createGenerator(response.getWriter())) {
+            json.writeStartObject();
+            if (error != null) {
+                json.writeStringField("error", error);
+            }
+            if (id >= 0) {
+                json.writeNumberField("id", id);
+            }
+            if (version >= 0) {
+                json.writeNumberField("version", version);
+            }
+            json.writeEndObject();
+        }
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+
+    private static final class PatchRequest {
+        long baseVersion;
+        String title;
+        TextPatch textPatch;
+    }
+}
@@ -0,0 +1,189 @@
+package com.notetaker.servlet;
+
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UpdateResult;
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteRevision;
+import com.notetaker.model.User;
+import com.notetaker.util.LineDiff;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.annotation.WebServlet;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Note Revision Servlet - the history of a note
+ * Purpose: List, compare and restore the saved revisions of a note
+ * (NoteDAO, NoteRevisionStore):
+ *
+ *   GET  /note/revisions?id=N                      the history page
+ *   GET  /note/revisions/view?id=N&rev=R           revision R as text/plain
+ *   GET  /note/revisions/diff?id=N&rev=R&from=F    unified diff from F (default: empty) to R
+ *   POST /note/revisions/restore (id, rev, version) make revision R the current note again
+ */
+@WebServlet(name = "NoteRevisionServlet", urlPatterns = {"/note/revisions", "/note/revisions/view",
+        "/note/revisions/diff", "/note/revisions/restore"})
+public class NoteRevisionServlet extends HttpServlet {
+    private static final Logger logger = LoggerFactory.getLogger(NoteRevisionServlet.class);
+    private static final int DIFF_CONTEXT_LINES = 3;
+
+    private NoteDAO noteDAO;
+
+    @Override
+    public void init() throws ServletException {
+        super.init();
+        noteDAO = new NoteDAO();
+        logger.info("🕘 NoteRevisionServlet initialized at: {}", getCurrentUTCTime());
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        User user = getUser(request);
+        if (user == null) {
+            logger.warn("⚠️ Unauthorized note history request");
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+        Long id = parseLong(request.getParameter("id"));
+        if (id == null) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=Invalid note ID");
+            return;
+        }
+
+        switch (request.getServletPath()) {
+            case "/note/revisions/view" -> showRevision(request, response, user, id);
+            case "/note/revisions/diff" -> showDiff(request, response, user, id);
+            case "/note/revisions" -> showHistory(request, response, user, id);
+            default -> response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+        }
+    }
+
+    @Override
+    protected void doPost(HttpServletRequest request, HttpServletResponse response)
+            throws ServletException, IOException {
+
+        User user = getUser(request);
+        if (user == null) {
+            logger.warn("⚠️ Unauthorized note restore");
+            response.sendRedirect(request.getContextPath() + "/login");
+            return;
+        }
+        if (!"/note/revisions/restore".equals(request.getServletPath())) {
+            response.sendError(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+
+        Long id = parseLong(request.getParameter("id"));
+        Long revision = parseLong(request.getParameter("rev"));
+        if (id == null || revision == null) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=Invalid note ID");
+            return;
+        }
+        Long version = parseLong(request.getParameter("version"));
+
+        logger.info("⏪ Restore request - note ID: {}, revision {} by user: {}", id, revision, user.getUsername());
+        UpdateResult result = noteDAO.restoreRevision(id, user.getId(), revision.intValue(), version);
+        switch (result.getStatus()) {
+            case UPDATED -> response.sendRedirect(request.getContextPath() +
+                    "/dashboard?success=" + encode("Note restored to revision " + revision));
+            case CONFLICT -> response.sendRedirect(request.getContextPath() + "/note/revisions?id=" + id +
+                    "&error=" + encode("The note was changed meanwhile, check its history again"));
+            case NOT_FOUND -> response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
+            default -> response.sendRedirect(request.getContextPath() + "/note/revisions?id=" + id +
+                    "&error=" + encode("Failed to restore the revision"));
+        }
+    }
+
+    private void showHistory(HttpServletRequest request, HttpServletResponse response, User user, Long id)
+            throws ServletException, IOException {
+        Note note = noteDAO.getNoteById(id, user.getId());
+        List<NoteRevision> revisions = note != null && note.getUser().getId().equals(user.getId())
+                ? noteDAO.getRevisions(id, user.getId()) : null;
+        if (revisions == null) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
+            return;
+        }
+
+        logger.info("🕘 Showing {} revisions of note ID: {} to user: {}", revisions.size(), id, user.getUsername());
+        request.setAttribute("user", user);
+        request.setAttribute("note", note);
+        request.setAttribute("revisions", revisions);
+        request.getRequestDispatcher("/WEB-INF/views/revisions.jsp").forward(request, response);
+    }
+
+    private void showRevision(HttpServletRequest request, HttpServletResponse response, User user, Long id)
+            throws IOException {
+        Long revision = parseLong(request.getParameter("rev"));
+        NoteRevision loaded = revision != null ? noteDAO.getRevision(id, user.getId(), revision.intValue()) : null;
+        if (loaded == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        sendText(response, loaded.getContent());
+    }
+
+    private void showDiff(HttpServletRequest request, HttpServletResponse response, User user, Long id)
+            throws IOException {
+        Long revision = parseLong(request.getParameter("rev"));
+        Long from = parseLong(request.getParameter("from"));
+        NoteRevision to = revision != null ? noteDAO.getRevision(id, user.getId(), revision.intValue()) : null;
+        NoteRevision base = to != null && from != null ? noteDAO.getRevision(id, user.getId(), from.intValue()) : null;
+        if (to == null || (from != null && base == null)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        String header = "--- " + (base != null ? "revision " + base.getRevision() + ": " + base.getTitle() : "(empty)") +
+                "\n+++ revision " + to.getRevision() + ": " + to.getTitle() + "\n";
+        String diff = LineDiff.unified(LineDiff.diff(base != null ? base.getContent() : "", to.getContent()),
+                DIFF_CONTEXT_LINES);
+        sendText(response, header + (diff.isEmpty() ? "(no changes to the text)\n" : diff));
+    }
+
+    private static void sendText(HttpServletResponse response, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        response.setContentType("text/plain");
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // User text, never to be sniffed into HTML
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        response.setHeader("Cache-Control", "private, no-cache");
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    private static User getUser(HttpServletRequest request) {
+        HttpSession session = request.getSession(false);
+        return session != null ? (User) session.getAttribute("user") : null;
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return value != null && !value.isEmpty() ? Long.parseLong(value) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private String getCurrentUTCTime() {
+        return LocalDateTime.now(ZoneOffset.UTC)
+                .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    }
+}
@@ -1,6 +1,8 @@
 package com.notetaker.servlet;
 
+import com.notetaker.cache.DraftBuffer;
 import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UpdateResult;
 import com.notetaker.model.Note;
 import com.notetaker.model.User;
 import org.slf4j.Logger;
@@ -27,11 +29,13 @@ import java.time.format.DateTimeFormatter;
 public class NoteServlet extends HttpServlet {
     private static final Logger logger = LoggerFactory.getLogger(NoteServlet.class);
     private NoteDAO noteDAO;
+    private DraftBuffer draftBuffer;
 
     @Override
     public void init() throws ServletException {
         super.init();
         noteDAO = new NoteDAO();
+        draftBuffer = DraftBuffer.getInstance();
 
         String currentTime = getCurrentUTCTime();
         logger.info("📝 NoteServlet initialized successfully");
@@ -103,57 +107,73 @@ public class NoteServlet extends HttpServlet {
             // Validate input
             if (title == null || title.trim().isEmpty()) {
                 logger.warn("⚠️ Note save failed - empty title for user: {}", user.getUsername());
-                handleSaveError(request, response, "Title is required", noteId, title, content);
+                handleSaveError(request, response, user, "Title is required", noteId, title, content);
                 return;
             }
 
-            if (content == null || content.trim().isEmpty()) {
+            boolean isUpdate = noteId != null && !noteId.isEmpty();
+            // The edit form of a large note has no content field: its body is replaced
+            // through /note/upload, and only the title changes here
+            boolean titleOnly = isUpdate && content == null;
+
+            if (!titleOnly && (content == null || content.trim().isEmpty())) {
                 logger.warn("⚠️ Note save failed - empty content for user: {}", user.getUsername());
-                handleSaveError(request, response, "Content is required", noteId, title, content);
+                handleSaveError(request, response, user, "Content is required", noteId, title, content);
                 return;
             }
 
             // Trim inputs
             title = title.trim();
-            content = content.trim();
+            content = titleOnly ? null : content.trim();
 
-            Note note;
-            boolean isUpdate = noteId != null && !noteId.isEmpty();
+            Long savedId;
+            boolean success;
 
             if (isUpdate) {
-                // Update existing note
-                note = handleUpdateNote(user, noteId, title, content);
-                if (note == null) {
+                // Update existing note - ownership is checked by the UPDATE itself
+                Long id;
+                try {
+                    id = Long.parseLong(noteId);
+                } catch (NumberFormatException e) {
+                    logger.warn("⚠️ Invalid note ID format: {}", noteId);
+                    response.sendRedirect(request.getContextPath() + "/dashboard?error=Invalid note ID");
+                    return;
+                }
+                // The version the form was loaded at; forms without one overwrite unconditionally
+                Long version = parseVersion(request.getParameter("version"));
+                // Replaces the note's autosaved draft, if any (its background writes are no conflict)
+                UpdateResult result = draftBuffer.commit(id, user.getId(), title, content, version);
+                if (result.getStatus() == UpdateResult.Status.NOT_FOUND) {
                     logger.warn("⚠️ Note update failed - note not found or unauthorized");
                     response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
                     return;
                 }
+                if (result.getStatus() == UpdateResult.Status.CONFLICT) {
+                    handleConflict(request, response, user, id, title, content);
+                    return;
+                }
+                savedId = id;
+                success = result.isUpdated();
             } else {
                 // Create new note
-                note = new Note(title, content, user);
+                Note note = new Note(title, content, user);
                 logger.info("📝 Creating new note for user: {}", user.getUsername());
-            }
-
-            // Save note
-            boolean success;
-            if (isUpdate) {
-                success = noteDAO.updateNote(note);
-            } else {
                 success = noteDAO.saveNote(note);
+                savedId = note.getId();
             }
 
             if (success) {
                 String action = isUpdate ? "updated" : "created";
-                logger.info("✅ Note {} successfully - ID: {} for user: {}", action, note.getId(), user.getUsername());
+                logger.info("✅ Note {} successfully - ID: {} for user: {}", action, savedId, user.getUsername());
                 response.sendRedirect(request.getContextPath() + "/dashboard?success=Note " + action + " successfully");
             } else {
                 logger.error("❌ Failed to save note for user: {}", user.getUsername());
-                handleSaveError(request, response, "Failed to save note", noteId, title, content);
+                handleSaveError(request, response, user, "Failed to save note", noteId, title, content);
             }
 
         } catch (Exception e) {
             logger.error("❌ Error in Note POST request for user: {}", user.getUsername(), e);
-            handleSaveError(request, response, "An error occurred while saving the note", noteId, title, content);
+            handleSaveError(request, response, user, "An error occurred while saving the note", noteId, title, content);
         }
     }
 
@@ -162,10 +182,19 @@ public class NoteServlet extends HttpServlet {
 
         try {
             Long id = Long.parseLong(noteId);
-            Note note = noteDAO.getNoteById(id);
+            // Show what was autosaved, not what was last written. The draft is committed
+            // on its own before the version is read, so a written draft never gets a 304
+            draftBuffer.flush(id, user.getId());
+            long version = noteDAO.getNoteVersion(user.getId());
+            if (ConditionalGet.isNotModified(request, response, user.getId(), version)) {
+                logger.info("✅ Note edit page not modified - ID: {} for user: {}", id, user.getUsername());
+                return;
+            }
+            Note note = noteDAO.getNoteById(id, user.getId());
 
             if (note != null && note.getUser().getId().equals(user.getId())) {
                 logger.info("📝 Loading note for edit - ID: {} for user: {}", id, user.getUsername());
+                ConditionalGet.setValidators(response, user.getId(), version);
                 request.setAttribute("note", note);
                 request.setAttribute("action", "edit");
                 request.getRequestDispatcher("/WEB-INF/views/edit-note.jsp").forward(request, response);
@@ -184,10 +213,16 @@ public class NoteServlet extends HttpServlet {
 
         try {
             Long id = Long.parseLong(noteId);
-            Note note = noteDAO.getNoteById(id);
+            long version = noteDAO.getNoteVersion(user.getId());
+            if (ConditionalGet.isNotModified(request, response, user.getId(), version)) {
+                logger.info("✅ Note view not modified - ID: {} for user: {}", id, user.getUsername());
+                return;
+            }
+            Note note = noteDAO.getNoteById(id, user.getId());
 
             if (note != null && note.getUser().getId().equals(user.getId())) {
                 logger.info("👁️ Viewing note - ID: {} for user: {}", id, user.getUsername());
+                ConditionalGet.setValidators(response, user.getId(), version);
                 request.setAttribute("note", note);
                 request.setAttribute("action", "view");
                 request.getRequestDispatcher("/WEB-INF/views/view-note.jsp").forward(request, response);
@@ -206,20 +241,17 @@ public class NoteServlet extends HttpServlet {
 
         try {
             Long id = Long.parseLong(noteId);
-            Note note = noteDAO.getNoteById(id);
+            int deleted = noteDAO.deleteIfOwned(id, user.getId());
 
-            if (note != null && note.getUser().getId().equals(user.getId())) {
-                boolean deleted = noteDAO.deleteNote(id);
-                if (deleted) {
-                    logger.info("🗑️ Note deleted successfully - ID: {} for user: {}", id, user.getUsername());
-                    response.sendRedirect(request.getContextPath() + "/dashboard?success=Note deleted successfully");
-                } else {
-                    logger.error("❌ Failed to delete note - ID: {} for user: {}", id, user.getUsername());
-                    response.sendRedirect(request.getContextPath() + "/dashboard?error=Failed to delete note");
-                }
-            } else {
+            if (deleted > 0) {
+                logger.info("🗑️ Note deleted successfully - ID: {} for user: {}", id, user.getUsername());
+                response.sendRedirect(request.getContextPath() + "/dashboard?success=Note deleted successfully");
+            } else if (deleted == 0) {
                 logger.warn("⚠️ Unauthorized delete attempt - Note ID: {} by user: {}", id, user.getUsername());
                 response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
+            } else {
+                logger.error("❌ Failed to delete note - ID: {} for user: {}", id, user.getUsername());
+                response.sendRedirect(request.getContextPath() + "/dashboard?error=Failed to delete note");
             }
         } catch (NumberFormatException e) {
             logger.warn("⚠️ Invalid note ID format: {}", noteId);
@@ -235,28 +267,41 @@ public class NoteServlet extends HttpServlet {
         request.getRequestDispatcher("/WEB-INF/views/add-note.jsp").forward(request, response);
     }
 
-    private Note handleUpdateNote(User user, String noteId, String title, String content) {
-        try {
-            Long id = Long.parseLong(noteId);
-            Note note = noteDAO.getNoteById(id);
+    /**
+     * The note changed since the form was loaded (another tab or device): show the
+     * current note, at its current version, next to the text that was not saved.
+     * Saving again from this page overwrites the newer version on purpose.
+     */
+    private void handleConflict(HttpServletRequest request, HttpServletResponse response, User user,
+                                Long id, String title, String content)
+            throws ServletException, IOException {
 
-            if (note != null && note.getUser().getId().equals(user.getId())) {
-                logger.info("✏️ Updating note - ID: {} for user: {}", id, user.getUsername());
-                note.setTitle(title);
-                note.setContent(content);
-                // Note: Don't call preUpdate() manually - it's handled by JPA annotations
-                return note;
-            } else {
-                logger.warn("⚠️ Note not found or unauthorized - ID: {} for user: {}", id, user.getUsername());
-                return null;
-            }
+        Note current = noteDAO.getNoteById(id, user.getId());
+        if (current == null || !current.getUser().getId().equals(user.getId())) {
+            response.sendRedirect(request.getContextPath() + "/dashboard?error=Note not found");
+            return;
+        }
+        logger.warn("⚠️ Note edit conflict - ID: {} for user: {}, now at version {}",
+                id, user.getUsername(), current.getVersion());
+        response.setStatus(HttpServletResponse.SC_CONFLICT);
+        request.setAttribute("error", "This note was changed somewhere else after you opened it. " +
+                "The current version is shown below; your text is kept underneath so you can merge it in.");
+        request.setAttribute("note", current);
+        request.setAttribute("action", "edit");
+        request.setAttribute("conflictTitle", title);
+        request.setAttribute("conflictContent", content);
+        request.getRequestDispatcher("/WEB-INF/views/edit-note.jsp").forward(request, response);
+    }
+
+    private static Long parseVersion(String value) {
+        try {
+            return value != null && !value.isEmpty() ? Long.valueOf(value) : null;
         } catch (NumberFormatException e) {
-            logger.warn("⚠️ Invalid note ID format: {}", noteId);
             return null;
         }
     }
 
-    private void handleSaveError(HttpServletRequest request, HttpServletResponse response,
+    private void handleSaveError(HttpServletRequest request, HttpServletResponse response, User user,
                                  String error, String noteId, String title, String content)
             throws ServletException, IOException {
 
@@ -268,7 +313,7 @@ public class NoteServlet extends HttpServlet {
         if (noteId != null && !noteId.isEmpty()) {
             try {
                 Long id = Long.parseLong(noteId);
-                Note note = noteDAO.getNoteById(id);
+                Note note = noteDAO.getNoteById(id, user.getId());
                 request.setAttribute("note", note);
                 request.getRequestDispatcher("/WEB-INF/views/edit-note.jsp").forward(request, response);
             } catch (NumberFormatException e) {
@@ -1,10 +1,17 @@
 package com.notetaker.util;
 
+import com.notetaker.db.ReadRouter;
+import com.notetaker.db.ShardRouter;
+import com.notetaker.metrics.CacheMetrics;
+import com.notetaker.metrics.MetricsRegistry;
+import com.zaxxer.hikari.HikariDataSource;
 import org.hibernate.SessionFactory;
 import org.hibernate.boot.MetadataSources;
 import org.hibernate.boot.registry.StandardServiceRegistry;
 import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
 import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.jdbc.connections.internal.DatasourceConnectionProviderImpl;
 import org.hibernate.service.ServiceRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +19,10 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Hibernate Utility Class with proper cleanup
@@ -22,8 +33,19 @@ public class HibernateUtil {
     private static final Logger logger = LoggerFactory.getLogger(HibernateUtil.class);
     private static SessionFactory sessionFactory;
     private static ServiceRegistry serviceRegistry;
+    private static HikariDataSource dataSource;
+    private static ReadRouter readRouter;
+    private static ShardRouter shardRouter;
+    private static final List<SessionFactory> shardFactories = new ArrayList<>();
+    private static final List<HikariDataSource> shardDataSources = new ArrayList<>();
     private static volatile boolean isShutdown = false;
 
+    // Connection settings under the names hibernate.cfg.xml uses
+    private static final String CONNECTION_DRIVER = "hibernate.connection.driver_class";
+    private static final String CONNECTION_URL = "hibernate.connection.url";
+    private static final String CONNECTION_USER = "hibernate.connection.username";
+    private static final String CONNECTION_PASSWORD = "hibernate.connection.password";
+
     static {
         try {
             String currentTime = getCurrentUTCTime();
@@ -39,21 +61,38 @@ public class HibernateUtil {
             // Load settings from hibernate.cfg.xml
             registryBuilder.configure("hibernate.cfg.xml");
 
-            // Build the registry
-            StandardServiceRegistry registry = registryBuilder.build();
-
-            // Create a MetadataSources object
-            MetadataSources sources = new MetadataSources(registry);
+            // Hand Hibernate a HikariCP pool built from the configured connection settings
+            Map<String, Object> settings = registryBuilder.getSettings();
+            String driver = (String) settings.get(CONNECTION_DRIVER);
+            String username = (String) settings.get(CONNECTION_USER);
+            String password = (String) settings.get(CONNECTION_PASSWORD);
+            dataSource = PooledDataSourceFactory.create("notetaker-primary", driver,
+                    (String) settings.get(CONNECTION_URL), username, password);
+            readRouter = ReadRouter.fromConfig(driver, username, password);
 
-            // Add annotated classes
-            sources.addAnnotatedClass(com.notetaker.model.User.class);
-            sources.addAnnotatedClass(com.notetaker.model.Note.class);
+            sessionFactory = buildSessionFactory(dataSource, null);
+            MetricsRegistry.register("cache.second-level", new CacheMetrics(sessionFactory));
+            shardFactories.add(sessionFactory);
+            shardDataSources.add(dataSource);
 
-            // Build the Metadata object
-            org.hibernate.boot.Metadata metadata = sources.getMetadataBuilder().build();
-
-            // Build the SessionFactory
-            sessionFactory = metadata.getSessionFactoryBuilder().build();
+            // Note shards 1..n; shard 0 is the primary above
+            for (String url : AppConfig.getString("db.shards.urls", "").split(",")) {
+                if (url.isBlank()) {
+                    continue;
+                }
+                int shard = shardFactories.size();
+                HikariDataSource shardDataSource = PooledDataSourceFactory.create("notetaker-shard-" + shard,
+                        AppConfig.getString("db.shards.driver", driver), url.trim(),
+                        AppConfig.getString("db.shards.username", username),
+                        AppConfig.getString("db.shards.password", password));
+                shardDataSources.add(shardDataSource);
+                // Own second-level cache regions: the password-less user copies on a shard
+                // must never be served in place of the primary's users
+                SessionFactory shardFactory = buildSessionFactory(shardDataSource, "shard" + shard);
+                shardFactories.add(shardFactory);
+                MetricsRegistry.register("cache.second-level.shard" + shard, new CacheMetrics(shardFactory));
+            }
+            shardRouter = new ShardRouter(dataSource, shardDataSources);
 
             logger.info("✅ Hibernate SessionFactory initialized successfully");
             logger.info("📊 SessionFactory Status: ACTIVE");
@@ -66,6 +105,42 @@ public class HibernateUtil {
         }
     }
 
+    /**
+     * Build a SessionFactory from hibernate.cfg.xml on top of the given pool
+     */
+    private static SessionFactory buildSessionFactory(HikariDataSource pool, String cacheRegionPrefix) {
+        StandardServiceRegistryBuilder registryBuilder = new StandardServiceRegistryBuilder();
+        registryBuilder.configure("hibernate.cfg.xml");
+        // Hand over the pool itself; the native bootstrap ignores jakarta.persistence.nonJtaDataSource
+        DatasourceConnectionProviderImpl connectionProvider = new DatasourceConnectionProviderImpl();
+        connectionProvider.setDataSource(pool);
+        registryBuilder.applySetting(AvailableSettings.CONNECTION_PROVIDER, connectionProvider);
+        if (cacheRegionPrefix != null) {
+            registryBuilder.applySetting(AvailableSettings.CACHE_REGION_PREFIX, cacheRegionPrefix);
+        }
+        // The pool owns the credentials; left in place Hibernate would call getConnection(user, pass)
+        Map<String, Object> settings = registryBuilder.getSettings();
+        settings.remove(CONNECTION_USER);
+        settings.remove(CONNECTION_PASSWORD);
+
+        // Build the registry
+        StandardServiceRegistry registry = registryBuilder.build();
+
+        // Create a MetadataSources object
+        MetadataSources sources = new MetadataSources(registry);
+
+        // Add annotated classes
+        sources.addAnnotatedClass(com.notetaker.model.User.class);
+        sources.addAnnotatedClass(com.notetaker.model.Note.class);
+        sources.addAnnotatedClass(com.notetaker.model.UserStats.class);
+
+        // Build the Metadata object
+        org.hibernate.boot.Metadata metadata = sources.getMetadataBuilder().build();
+
+        // Build the SessionFactory
+        return metadata.getSessionFactoryBuilder().build();
+    }
+
     public static SessionFactory getSessionFactory() {
         if (isShutdown) {
             throw new IllegalStateException("❌ SessionFactory has been shutdown");
@@ -76,6 +151,68 @@ public class HibernateUtil {
         return sessionFactory;
     }
 
+    /**
+     * The pooled DataSource behind the SessionFactory, for plain JDBC work and pool metrics
+     */
+    public static HikariDataSource getDataSource() {
+        getSessionFactory();
+        return dataSource;
+    }
+
+    /**
+     * The SessionFactory of a note shard (0 is the primary)
+     */
+    public static SessionFactory getSessionFactory(int shard) {
+        getSessionFactory();
+        if (shard < 0 || shard >= shardFactories.size()) {
+            throw new IllegalStateException("❌ Shard " + shard + " is not configured in db.shards.urls");
+        }
+        return shardFactories.get(shard);
+    }
+
+    /**
+     * The SessionFactory of the shard holding the user's notes
+     */
+    public static SessionFactory getSessionFactoryForUser(Long userId) {
+        return getSessionFactory(getShardRouter().shardFor(userId));
+    }
+
+    /**
+     * The pooled DataSource of a note shard (0 is the primary), for plain JDBC work
+     */
+    public static HikariDataSource getDataSource(int shard) {
+        getSessionFactory();
+        return shardDataSources.get(shard);
+    }
+
+    /**
+     * The pooled DataSource of the shard holding the user's notes
+     */
+    public static HikariDataSource getDataSourceForUser(Long userId) {
+        return getDataSource(getShardRouter().shardFor(userId));
+    }
+
+    public static List<SessionFactory> getShardSessionFactories() {
+        getSessionFactory();
+        return Collections.unmodifiableList(shardFactories);
+    }
+
+    /**
+     * Maps users to note shards (see ShardRouter)
+     */
+    public static ShardRouter getShardRouter() {
+        getSessionFactory();
+        return shardRouter;
+    }
+
+    /**
+     * Routes read-only work to the replica pools (see UnitOfWork.beginRead)
+     */
+    public static ReadRouter getReadRouter() {
+        getSessionFactory();
+        return readRouter;
+    }
+
     public static synchronized void shutdown() {
         if (isShutdown) {
             logger.info("ℹ️ Hibernate already shutdown, skipping...");
@@ -93,12 +230,22 @@ public class HibernateUtil {
                 sessionFactory.close();
                 logger.info("✅ SessionFactory closed successfully");
             }
+            for (int shard = 1; shard < shardFactories.size(); shard++) {
+                shardFactories.get(shard).close();
+                MetricsRegistry.unregister("cache.second-level.shard" + shard);
+                PooledDataSourceFactory.close(shardDataSources.get(shard));
+            }
 
             if (serviceRegistry != null) {
                 StandardServiceRegistryBuilder.destroy((StandardServiceRegistry) serviceRegistry);
                 logger.info("✅ ServiceRegistry destroyed successfully");
             }
 
+            if (readRouter != null) {
+                readRouter.close();
+            }
+            PooledDataSourceFactory.close(dataSource);
+
             isShutdown = true;
             logger.info("✅ Hibernate shutdown completed");
 
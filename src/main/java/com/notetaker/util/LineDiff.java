@@ -0,0 +1,281 @@
+package com.notetaker.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Line Diff - differences between two versions of a text, line by line
+ * Purpose: Compute a shortest line edit script (Myers' O(ND) algorithm) for the
+ * revision history: as a listing for people (unified()) and as a TextPatch that
+ * turns one version into the other (patch()), which is what a revision stores.
+ *
+ * Lines keep their terminators, so joining them gives the text back exactly.
+ * Texts that differ in more than MAX_EDIT_LINES lines are treated as replaced
+ * as a whole between their common first and last lines, which bounds the time
+ * and memory one diff can take.
+ */
+public final class LineDiff {
+    private static final int MAX_EDIT_LINES = 1000;
+
+    public enum Kind { SAME, DELETED, INSERTED }
+
+    /**
+     * One line of the diff, with its terminator
+     */
+    public record Line(Kind kind, String text) {}
+
+    private LineDiff() {}
+
+    /**
+     * Every line of both texts in order, marked as kept, deleted or inserted
+     */
+    public static List<Line> diff(String from, String to) {
+        List<String> a = lines(from);
+        List<String> b = lines(to);
+
+        int prefix = 0;
+        while (prefix < a.size() && prefix < b.size() && a.get(prefix).equals(b.get(prefix))) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < a.size() - prefix && suffix < b.size() - prefix
+                && a.get(a.size() - 1 - suffix).equals(b.get(b.size() - 1 - suffix))) {
+            suffix++;
+        }
+
+        List<Line> result = new ArrayList<>(a.size() + b.size() - prefix - suffix);
+        for (int i = 0; i < prefix; i++) {
+            result.add(new Line(Kind.SAME, a.get(i)));
+        }
+        List<String> middleA = a.subList(prefix, a.size() - suffix);
+        List<String> middleB = b.subList(prefix, b.size() - suffix);
+        List<Line> middle = myers(middleA, middleB);
+        if (middle == null) {
+            for (String line : middleA) {
+                result.add(new Line(Kind.DELETED, line));
+            }
+            for (String line : middleB) {
+                result.add(new Line(Kind.INSERTED, line));
+            }
+        } else {
+            result.addAll(middle);
+        }
+        for (int i = a.size() - suffix; i < a.size(); i++) {
+            result.add(new Line(Kind.SAME, a.get(i)));
+        }
+        return result;
+    }
+
+    /**
+     * The edits that turn from into to. Each run of changed lines becomes one edit,
+     * narrowed to the characters that actually differ.
+     */
+    public static TextPatch patch(String from, String to) {
+        String base = from != null ? from : "";
+        TextPatch patch = new TextPatch(base.length(), TextPatch.fingerprint(base));
+
+        int offset = 0;
+        int deleteStart = -1;
+        StringBuilder deleted = new StringBuilder();
+        StringBuilder inserted = new StringBuilder();
+        for (Line line : diff(base, to)) {
+            if (line.kind() == Kind.SAME) {
+                if (deleteStart >= 0) {
+                    addNarrowed(patch, deleteStart, deleted, inserted);
+                    deleteStart = -1;
+                    deleted.setLength(0);
+                    inserted.setLength(0);
+                }
+                offset += line.text().length();
+                continue;
+            }
+            if (deleteStart < 0) {
+                deleteStart = offset;
+            }
+            if (line.kind() == Kind.DELETED) {
+                deleted.append(line.text());
+                offset += line.text().length();
+            } else {
+                inserted.append(line.text());
+            }
+        }
+        if (deleteStart >= 0) {
+            addNarrowed(patch, deleteStart, deleted, inserted);
+        }
+        return patch;
+    }
+
+    /**
+     * The diff in unified format (hunks with the given number of context lines),
+     * or an empty string when the texts are the same
+     */
+    public static String unified(List<Line> diff, int context) {
+        StringBuilder out = new StringBuilder();
+        int i = 0;
+        while (i < diff.size()) {
+            int change = i;
+            while (change < diff.size() && diff.get(change).kind() == Kind.SAME) {
+                change++;
+            }
+            if (change == diff.size()) {
+                break;
+            }
+
+            // Extend the hunk while the next change is within twice the context
+            int start = Math.max(i, change - context);
+            int end = change;
+            int same = 0;
+            while (end < diff.size() && same <= 2 * context) {
+                same = diff.get(end).kind() == Kind.SAME ? same + 1 : 0;
+                end++;
+            }
+            end -= Math.max(0, same - context);
+
+            int fromLine = 1;
+            int toLine = 1;
+            for (int j = 0; j < start; j++) {
+                Kind kind = diff.get(j).kind();
+                if (kind != Kind.INSERTED) fromLine++;
+                if (kind != Kind.DELETED) toLine++;
+            }
+            int fromCount = 0;
+            int toCount = 0;
+            StringBuilder hunk = new StringBuilder();
+            for (int j = start; j < end; j++) {
+                Line line = diff.get(j);
+                char mark = switch (line.kind()) {
+                    case SAME -> ' ';
+                    case DELETED -> '-';
+                    case INSERTED -> '+';
+                };
+                if (line.kind() != Kind.INSERTED) fromCount++;
+                if (line.kind() != Kind.DELETED) toCount++;
+                String text = line.text();
+                hunk.append(mark).append(text);
+                if (!text.endsWith("\n")) {
+                    hunk.append("\n\\ No newline at end of file\n");
+                }
+            }
+            out.append("@@ -").append(fromCount == 0 ? fromLine - 1 : fromLine).append(',').append(fromCount)
+                    .append(" +").append(toCount == 0 ? toLine - 1 : toLine).append(',').append(toCount)
+                    .append(" @@\n").append(hunk);
+            i = end;
+        }
+        return out.toString();
+    }
+
+    /**
+     * The lines of a text, each with its line break
+     */
+    static List<String> lines(String text) {
+        if (text == null || text.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int newline;
+        while ((newline = text.indexOf('\n', start)) >= 0) {
+            lines.add(text.substring(start, newline + 1));
+            start = newline + 1;
+        }
+        if (start < text.length()) {
+            lines.add(text.substring(start));
+        }
+        return lines;
+    }
+
+    private static void addNarrowed(TextPatch patch, int offset, CharSequence deleted, CharSequence inserted) {
+        int prefix = 0;
+        int max = Math.min(deleted.length(), inserted.length());
+        while (prefix < max && deleted.charAt(prefix) == inserted.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+                && deleted.charAt(deleted.length() - 1 - suffix) == inserted.charAt(inserted.length() - 1 - suffix)) {
+            suffix++;
+        }
+        patch.add(offset + prefix, deleted.length() - prefix - suffix,
+                inserted.subSequence(prefix, inserted.length() - suffix).toString());
+    }
+
+    /**
+     * Shortest edit script between two line lists, or null when it needs more than
+     * MAX_EDIT_LINES deletions and insertions
+     */
+    private static List<Line> myers(List<String> a, List<String> b) {
+        // Compare numbers instead of strings
+        Map<String, Integer> ids = new HashMap<>();
+        int[] x1 = new int[a.size()];
+        int[] y1 = new int[b.size()];
+        for (int i = 0; i < a.size(); i++) {
+            x1[i] = ids.computeIfAbsent(a.get(i), line -> ids.size());
+        }
+        for (int i = 0; i < b.size(); i++) {
+            y1[i] = ids.computeIfAbsent(b.get(i), line -> ids.size());
+        }
+
+        int n = a.size();
+        int m = b.size();
+        int limit = Math.min(n + m, MAX_EDIT_LINES);
+        int offset = limit + 1;
+        int[] v = new int[2 * limit + 3];
+        // trace.get(d) holds v[-d..d] as it was before step d
+        List<int[]> trace = new ArrayList<>();
+
+        for (int d = 0; d <= limit; d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1]
+                        : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && x1[x] == y1[y]) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    return backtrack(a, b, trace, d);
+                }
+            }
+        }
+        return null;
+    }
+
+    private static List<Line> backtrack(List<String> a, List<String> b, List<int[]> trace, int steps) {
+        List<Line> reversed = new ArrayList<>();
+        int x = a.size();
+        int y = b.size();
+        for (int d = steps; d > 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            // v[j] of the step before sits at index j + d in this snapshot
+            boolean down = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]);
+            int previousK = down ? k + 1 : k - 1;
+            int previousX = v[previousK + d];
+            int previousY = previousX - previousK;
+            while (x > previousX && y > previousY) {
+                reversed.add(new Line(Kind.SAME, a.get(--x)));
+                y--;
+            }
+            if (down) {
+                reversed.add(new Line(Kind.INSERTED, b.get(--y)));
+            } else {
+                reversed.add(new Line(Kind.DELETED, a.get(--x)));
+            }
+        }
+        while (x > 0 && y > 0) {
+            reversed.add(new Line(Kind.SAME, a.get(--x)));
+            y--;
+        }
+        Collections.reverse(reversed);
+        return reversed;
+    }
+}
@@ -0,0 +1,93 @@
+package com.notetaker.util;
+
+import com.notetaker.metrics.MetricsRegistry;
+import com.notetaker.metrics.PoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Pooled DataSource factory
+ * Purpose: Build HikariCP pools from the db.pool.* settings in
+ * notetaker.properties, with MySQL driver statement caching, connection
+ * validation, leak detection and metrics wired in.
+ */
+public final class PooledDataSourceFactory {
+    private static final Logger logger = LoggerFactory.getLogger(PooledDataSourceFactory.class);
+
+    private PooledDataSourceFactory() {}
+
+    public static HikariDataSource create(String poolName, String driverClass, String url,
+                                          String username, String password) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        if (driverClass != null) {
+            config.setDriverClassName(driverClass);
+        }
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+
+        // Hibernate is configured with provider_disables_autocommit, so the pool must hand
+        // out connections with auto-commit already off
+        config.setAutoCommit(false);
+
+        // Sizing
+        config.setMinimumIdle(AppConfig.getInt("db.pool.minIdle", 2));
+        config.setMaximumPoolSize(AppConfig.getInt("db.pool.maxSize", 10));
+        config.setConnectionTimeout(AppConfig.getLong("db.pool.connectionTimeoutMs", 30_000L));
+        config.setIdleTimeout(AppConfig.getLong("db.pool.idleTimeoutMs", 600_000L));
+        config.setMaxLifetime(AppConfig.getLong("db.pool.maxLifetimeMs", 1_800_000L));
+        config.setKeepaliveTime(AppConfig.getLong("db.pool.keepaliveTimeMs", 120_000L));
+
+        // Validation: JDBC4 isValid() on borrow, bounded by the validation timeout
+        config.setValidationTimeout(AppConfig.getLong("db.pool.validationTimeoutMs", 5_000L));
+
+        // Leak detection: warn with the borrower's stack trace when a connection is held too long
+        config.setLeakDetectionThreshold(AppConfig.getLong("db.pool.leakDetectionThresholdMs", 60_000L));
+
+        if (url != null && url.startsWith("jdbc:mysql:")) {
+            // Client and server side prepared statement caching for Connector/J
+            config.addDataSourceProperty("cachePrepStmts",
+                    AppConfig.getString("db.mysql.cachePrepStmts", "true"));
+            config.addDataSourceProperty("prepStmtCacheSize",
+                    AppConfig.getString("db.mysql.prepStmtCacheSize", "250"));
+            config.addDataSourceProperty("prepStmtCacheSqlLimit",
+                    AppConfig.getString("db.mysql.prepStmtCacheSqlLimit", "2048"));
+            config.addDataSourceProperty("useServerPrepStmts",
+                    AppConfig.getString("db.mysql.useServerPrepStmts", "true"));
+            // Statements with a fetch size read through a server-side cursor in chunks
+            config.addDataSourceProperty("useCursorFetch",
+                    AppConfig.getString("db.mysql.useCursorFetch", "true"));
+            // Send JDBC insert batches as multi-row INSERTs instead of one statement per row
+            config.addDataSourceProperty("rewriteBatchedStatements",
+                    AppConfig.getString("db.mysql.rewriteBatchedStatements", "true"));
+            config.addDataSourceProperty("useLocalSessionState", "true");
+            config.addDataSourceProperty("cacheResultSetMetadata", "true");
+            config.addDataSourceProperty("cacheServerConfiguration", "true");
+            config.addDataSourceProperty("elideSetAutoCommits", "true");
+            config.addDataSourceProperty("maintainTimeStats", "false");
+        }
+
+        config.setRegisterMbeans(true);
+        PoolMetrics metrics = new PoolMetrics();
+        config.setMetricsTrackerFactory(metrics);
+
+        HikariDataSource dataSource = new HikariDataSource(config);
+        metrics.bind(dataSource);
+        MetricsRegistry.register("pool." + poolName, metrics);
+
+        logger.info("🏊 Connection pool '{}' started - min idle: {}, max size: {}",
+                poolName, config.getMinimumIdle(), config.getMaximumPoolSize());
+        return dataSource;
+    }
+
+    public static void close(HikariDataSource dataSource) {
+        if (dataSource != null && !dataSource.isClosed()) {
+            MetricsRegistry.unregister("pool." + dataSource.getPoolName());
+            dataSource.close();
+            logger.info("✅ Connection pool '{}' closed", dataSource.getPoolName());
+        }
+    }
+}
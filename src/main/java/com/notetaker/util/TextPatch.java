@@ -0,0 +1,131 @@
+package com.notetaker.util;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Text patch - a set of edits against one base text
+ * Purpose: Let an editor send what it changed instead of the whole note. Each
+ * edit deletes a range of the base and inserts text in its place; offsets and
+ * lengths count UTF-16 code units (JavaScript string indexes) and always refer
+ * to the base, so edits must be in ascending order and must not overlap.
+ *
+ * The base is identified by its length and fingerprint(): a client whose copy
+ * of the text differs from the stored one (e.g. in line endings) is refused
+ * instead of having its offsets applied to the wrong characters.
+ */
+public final class TextPatch {
+    private final int baseLength;
+    private final String baseFingerprint;
+    private final List<Edit> edits = new ArrayList<>();
+
+    public TextPatch(int baseLength, String baseFingerprint) {
+        this.baseLength = baseLength;
+        this.baseFingerprint = baseFingerprint;
+    }
+
+    /**
+     * Add an edit: remove deleteCount code units at offset, then insert text there
+     */
+    public TextPatch add(int offset, int deleteCount, String insert) {
+        if (offset < 0 || deleteCount < 0) {
+            throw new IllegalArgumentException("edit " + (edits.size() + 1) + " has a negative offset or length");
+        }
+        Edit previous = edits.isEmpty() ? null : edits.get(edits.size() - 1);
+        if (previous != null && offset < (long) previous.offset + previous.deleteCount) {
+            throw new IllegalArgumentException("edit " + (edits.size() + 1) + " overlaps or precedes the one before");
+        }
+        edits.add(new Edit(offset, deleteCount, insert != null ? insert : ""));
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return edits.isEmpty();
+    }
+
+    /**
+     * Whether the patch was made against this text
+     */
+    public boolean matches(String base) {
+        String text = base != null ? base : "";
+        return text.length() == baseLength && (baseFingerprint == null || baseFingerprint.equals(fingerprint(text)));
+    }
+
+    /**
+     * The patched text. Throws IllegalArgumentException when the base is not the one
+     * the patch was made against or an edit reaches past its end.
+     */
+    public String apply(String base) {
+        if (!matches(base)) {
+            throw new IllegalArgumentException("the patch was made against a different text");
+        }
+        String text = base != null ? base : "";
+
+        int growth = 0;
+        for (Edit edit : edits) {
+            if ((long) edit.offset + edit.deleteCount > text.length()) {
+                throw new IllegalArgumentException("an edit reaches past the end of the text");
+            }
+            growth += edit.insert.length() - edit.deleteCount;
+        }
+
+        StringBuilder patched = new StringBuilder(Math.max(0, text.length() + growth));
+        int position = 0;
+        for (Edit edit : edits) {
+            patched.append(text, position, edit.offset).append(edit.insert);
+            position = edit.offset + edit.deleteCount;
+        }
+        return patched.append(text, position, text.length()).toString();
+    }
+
+    /**
+     * Write the patch in a compact binary form that read() turns back into it
+     */
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(baseLength);
+        out.writeUTF(baseFingerprint != null ? baseFingerprint : "");
+        out.writeInt(edits.size());
+        for (Edit edit : edits) {
+            byte[] insert = edit.insert.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(edit.offset);
+            out.writeInt(edit.deleteCount);
+            out.writeInt(insert.length);
+            out.write(insert);
+        }
+    }
+
+    public static TextPatch read(DataInput in) throws IOException {
+        int baseLength = in.readInt();
+        String fingerprint = in.readUTF();
+        TextPatch patch = new TextPatch(baseLength, fingerprint.isEmpty() ? null : fingerprint);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            int offset = in.readInt();
+            int deleteCount = in.readInt();
+            byte[] insert = new byte[in.readInt()];
+            in.readFully(insert);
+            patch.add(offset, deleteCount, new String(insert, StandardCharsets.UTF_8));
+        }
+        return patch;
+    }
+
+    /**
+     * 32-bit FNV-1a over the UTF-16 code units, as 8 hex digits. Cheap to compute in
+     * the browser too (see edit-note.jsp); it detects a different base, it does not
+     * protect against a forged one (ownership is checked separately).
+     */
+    public static String fingerprint(String text) {
+        int hash = 0x811c9dc5;
+        for (int i = 0; i < text.length(); i++) {
+            hash ^= text.charAt(i);
+            hash *= 0x01000193;
+        }
+        return String.format("%08x", hash);
+    }
+
+    private record Edit(int offset, int deleteCount, String insert) {}
+}
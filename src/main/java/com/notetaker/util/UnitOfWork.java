@@ -0,0 +1,349 @@
+package com.notetaker.util;
+
+import com.notetaker.db.ReadRouter;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.Transaction;
+import org.hibernate.context.internal.ThreadLocalSessionContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Unit of Work - one Session and transaction per request
+ * Purpose: Give DAOs the thread-bound Session from getCurrentSession() and
+ * decide who commits. Inside a request (see UnitOfWorkFilter) the first DAO
+ * call opens the transaction and the filter commits it once the request is
+ * done; outside a request (background jobs, tools) every DAO call owns and
+ * commits its own transaction as before.
+ *
+ * DAO methods follow the same shape:
+ *   boolean owner = UnitOfWork.begin();
+ *   ... work on UnitOfWork.currentSession() ...
+ *   UnitOfWork.commit(owner);    // or finish(owner) for reads
+ * and call UnitOfWork.rollback() on failure.
+ *
+ * Pure reads may start with beginRead(userId) instead of begin(): when read
+ * replicas are configured the read runs in its own short Session on a replica
+ * connection (see ReadRouter), unless the user wrote recently or the current
+ * request has already written, in which case it joins the primary as usual.
+ *
+ * With note shards (see ShardRouter) the users table stays on the primary and
+ * begin() works there; work on a user's notes starts with begin(userId) or
+ * beginRead(userId), which use the Session of that user's shard. A request that
+ * touched several databases commits them one after the other, not atomically.
+ */
+public final class UnitOfWork {
+    private static final Logger logger = LoggerFactory.getLogger(UnitOfWork.class);
+
+    private static final ThreadLocal<Boolean> requestScope = new ThreadLocal<>();
+    private static final ThreadLocal<Set<SessionFactory>> requestTransactions = new ThreadLocal<>();
+    private static final ThreadLocal<SessionFactory> currentFactory = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> requestWrites = new ThreadLocal<>();
+    private static final ThreadLocal<ReplicaRead> replicaRead = new ThreadLocal<>();
+
+    private UnitOfWork() {}
+
+    /**
+     * The Session bound to the current thread
+     */
+    public static Session currentSession() {
+        ReplicaRead read = replicaRead.get();
+        if (read != null) {
+            return read.session;
+        }
+        SessionFactory factory = currentFactory.get();
+        return (factory != null ? factory : HibernateUtil.getSessionFactory()).getCurrentSession();
+    }
+
+    /**
+     * Make sure a transaction is running on the primary database's Session.
+     * Returns true when the caller started it and must commit it itself.
+     */
+    public static boolean begin() {
+        return begin(HibernateUtil.getSessionFactory());
+    }
+
+    /**
+     * Like begin(), on the shard holding the user's notes, for work that changes
+     * them. Fails while the user's notes are being moved to another shard, or when
+     * their shard lacks the user's copy and it cannot be made (ShardRouter.prepareWrite).
+     */
+    public static boolean begin(Long userId) {
+        HibernateUtil.getShardRouter().prepareWrite(userId);
+        return begin(HibernateUtil.getSessionFactoryForUser(userId));
+    }
+
+    private static boolean begin(SessionFactory factory) {
+        currentFactory.set(factory);
+        Session session = factory.getCurrentSession();
+        if (session.getTransaction().isActive()) {
+            return false;
+        }
+        session.beginTransaction();
+        if (isRequestScoped()) {
+            Set<SessionFactory> factories = requestTransactions.get();
+            if (factories == null) {
+                factories = new LinkedHashSet<>();
+                requestTransactions.set(factories);
+            }
+            factories.add(factory);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Start a read-only operation for the given user (null when not tied to one),
+     * on a replica when the ReadRouter allows it and on the primary otherwise.
+     * Reads of notes on other shards go to that shard. End it with finish(owner)
+     * like any other read.
+     */
+    public static boolean beginRead(Long userId) {
+        SessionFactory primary = HibernateUtil.getSessionFactory();
+        if (userId != null) {
+            SessionFactory shard = HibernateUtil.getSessionFactoryForUser(userId);
+            if (shard != primary) {
+                // Replicas are only configured for the primary
+                return begin(shard);
+            }
+        }
+
+        ReadRouter router = HibernateUtil.getReadRouter();
+        if (replicaRead.get() != null || requestWrites.get() != null || !router.canRouteToReplica(userId)) {
+            return begin(primary);
+        }
+
+        Connection connection;
+        try {
+            connection = router.getReplicaConnection();
+        } catch (SQLException e) {
+            logger.warn("⚠️ No read replica available, reading from the primary: {}", e.getMessage());
+            return begin(primary);
+        }
+
+        Session session = primary.withOptions().connection(connection).openSession();
+        session.setDefaultReadOnly(true);
+        // Replica rows may be behind the primary; never put them into the shared second-level
+        // cache. The query cache ignores this, so cacheable queries must check isReplicaRead().
+        session.setCacheMode(CacheMode.GET);
+        session.beginTransaction();
+        replicaRead.set(new ReplicaRead(session, connection));
+        return true;
+    }
+
+    /**
+     * Whether the running read is being served by a replica
+     */
+    public static boolean isReplicaRead() {
+        return replicaRead.get() != null;
+    }
+
+    /**
+     * Record that the current unit of work changes the user's data: later reads in
+     * it stay on the primary, and once it commits the user's reads stay on the
+     * primary for the read-your-writes window.
+     */
+    public static void recordWrite(Long userId) {
+        if (isRequestScoped()) {
+            requestWrites.set(Boolean.TRUE);
+        }
+        afterCommit(() -> HibernateUtil.getReadRouter().recordWrite(userId));
+    }
+
+    /**
+     * Commit when the caller owns the transaction, otherwise only flush so the
+     * statements run now and the request commits them together.
+     */
+    public static void commit(boolean owner) {
+        Session session = currentSession();
+        if (owner) {
+            session.getTransaction().commit();
+        } else {
+            session.flush();
+        }
+    }
+
+    /**
+     * End a read: commit when the caller owns the transaction, leave a request's
+     * transaction running otherwise
+     */
+    public static void finish(boolean owner) {
+        ReplicaRead read = replicaRead.get();
+        if (read != null) {
+            read.session.getTransaction().commit();
+            closeReplicaRead();
+            return;
+        }
+        if (owner) {
+            currentSession().getTransaction().commit();
+        }
+    }
+
+    /**
+     * Roll back the whole unit of work after a failure. A Session that has thrown
+     * must not be reused, so the next DAO call starts over with a fresh one.
+     */
+    public static void rollback() {
+        if (replicaRead.get() != null) {
+            // A failed replica read leaves the request's primary transaction alone
+            closeReplicaRead();
+            return;
+        }
+        Set<SessionFactory> factories = new LinkedHashSet<>();
+        factories.add(currentSession().getSessionFactory());
+        if (requestTransactions.get() != null) {
+            factories.addAll(requestTransactions.get());
+        }
+        requestTransactions.remove();
+
+        try {
+            for (SessionFactory factory : factories) {
+                Transaction transaction = factory.getCurrentSession().getTransaction();
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                    logger.info("🔄 Transaction rolled back");
+                }
+            }
+        } catch (Exception rollbackEx) {
+            logger.error("❌ Error during rollback", rollbackEx);
+        } finally {
+            closeUnbound();
+        }
+    }
+
+    /**
+     * Run an action once the current transaction has committed (never on rollback).
+     * Used for in-process caches and indexes that must not see uncommitted data.
+     */
+    public static void afterCommit(Runnable action) {
+        currentSession().getTransaction().registerSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    try {
+                        action.run();
+                    } catch (Exception e) {
+                        logger.error("❌ Error in after-commit action", e);
+                    }
+                }
+            }
+        });
+    }
+
+    public static boolean isRequestScoped() {
+        return requestScope.get() != null;
+    }
+
+    /**
+     * Mark the start of a request; DAO calls from here on join one transaction
+     */
+    public static void beginRequest() {
+        requestScope.set(Boolean.TRUE);
+    }
+
+    /**
+     * Commit (or roll back) the request transactions that were started, in the
+     * order they began; once one fails the rest are rolled back.
+     * Safe to call more than once; a later DAO call in the same request starts a new one.
+     */
+    public static void completeRequest(boolean commit) {
+        Set<SessionFactory> factories = requestTransactions.get();
+        if (factories == null) {
+            return;
+        }
+        requestTransactions.remove();
+
+        RuntimeException failure = null;
+        for (SessionFactory factory : factories) {
+            Transaction transaction = factory.getCurrentSession().getTransaction();
+            if (!transaction.isActive()) {
+                continue;
+            }
+            if (!commit || failure != null || transaction.getRollbackOnly()) {
+                transaction.rollback();
+                logger.info("🔄 Request transaction rolled back");
+                continue;
+            }
+            try {
+                transaction.commit();
+            } catch (RuntimeException e) {
+                failure = e;
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+            }
+        }
+        if (failure != null) {
+            closeUnbound();
+            throw failure;
+        }
+    }
+
+    /**
+     * Mark the end of a request and release anything still bound to the thread
+     */
+    public static void endRequest() {
+        requestScope.remove();
+        requestTransactions.remove();
+        requestWrites.remove();
+        currentFactory.remove();
+        closeReplicaRead();
+        closeUnbound();
+    }
+
+    private static void closeReplicaRead() {
+        ReplicaRead read = replicaRead.get();
+        if (read == null) {
+            return;
+        }
+        replicaRead.remove();
+        try {
+            if (read.session.getTransaction().isActive()) {
+                read.session.getTransaction().rollback();
+            }
+            read.session.close();
+        } catch (Exception closeEx) {
+            logger.error("❌ Error closing replica session", closeEx);
+        }
+        try {
+            read.connection.close();
+        } catch (SQLException closeEx) {
+            logger.error("❌ Error returning replica connection", closeEx);
+        }
+    }
+
+    private static void closeUnbound() {
+        for (SessionFactory factory : HibernateUtil.getShardSessionFactories()) {
+            Session leftover = ThreadLocalSessionContext.unbind(factory);
+            if (leftover != null && leftover.isOpen()) {
+                try {
+                    leftover.close();
+                } catch (Exception closeEx) {
+                    logger.error("❌ Error closing session", closeEx);
+                }
+            }
+        }
+    }
+
+    private static final class ReplicaRead {
+        final Session session;
+        final Connection connection;
+
+        ReplicaRead(Session session, Connection connection) {
+            this.session = session;
+            this.connection = connection;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+-- Note history: one row per saved state of a note (see NoteRevisionStore). A row
+-- holds either the full text (snapshot) or the edits from the previous row (delta),
+-- Deflate-compressed; the length and FNV-1a hash of the resulting text let every
+-- step of a reconstruction be checked.
+CREATE TABLE IF NOT EXISTS note_revisions (
+    note_id BIGINT NOT NULL,
+    revision INT NOT NULL,
+    title VARCHAR(200) NOT NULL,
+    snapshot BOOLEAN NOT NULL,
+    content_length INT NOT NULL,
+    content_hash CHAR(8) NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    created_at DATETIME NOT NULL,
+    PRIMARY KEY (note_id, revision),
+    CONSTRAINT fk_note_revisions_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
@@ -0,0 +1,5 @@
+-- Every note listing filters by user and orders by updated_at (then id, for keyset
+-- pagination). InnoDB appends the primary key to secondary indexes, so this index
+-- serves WHERE user_id = ? ORDER BY updated_at DESC, id DESC without a filesort.
+-- users.username and users.email are covered by the unique keys of the baseline.
+CREATE INDEX idx_notes_user_updated ON notes (user_id, updated_at);
@@ -0,0 +1,11 @@
+-- Table-backed id generator for notes (Note: @TableGenerator "note_ids", allocationSize 50)
+-- Hibernate's pooled optimizer treats next_val as the top of the next block of ids,
+-- so the row is seeded one allocation above the highest existing note id.
+CREATE TABLE IF NOT EXISTS id_generators (
+    name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT
+) ENGINE=InnoDB;
+
+INSERT INTO id_generators (name, next_val)
+SELECT 'notes', COALESCE(MAX(id), 0) + 51 FROM notes
+ON DUPLICATE KEY UPDATE next_val = GREATEST(next_val, VALUES(next_val));
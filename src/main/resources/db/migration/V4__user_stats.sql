@@ -0,0 +1,10 @@
+-- Per-user counters (UserStats), backfilled from the notes table
+CREATE TABLE IF NOT EXISTS user_stats (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    note_count BIGINT NOT NULL DEFAULT 0,
+    CONSTRAINT fk_user_stats_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
+
+INSERT INTO user_stats (user_id, note_count)
+SELECT u.id, (SELECT COUNT(*) FROM notes n WHERE n.user_id = u.id) FROM users u
+ON DUPLICATE KEY UPDATE note_count = VALUES(note_count);
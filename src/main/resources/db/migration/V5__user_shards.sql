@@ -0,0 +1,8 @@
+-- Shard directory (ShardRouter): users whose notes live somewhere other than
+-- where the hash ring puts them. Only read on the primary database (shard 0).
+CREATE TABLE IF NOT EXISTS user_shards (
+    user_id BIGINT NOT NULL PRIMARY KEY,
+    shard_id INT NOT NULL,
+    moving BOOLEAN NOT NULL DEFAULT FALSE,
+    updated_at DATETIME(6)
+) ENGINE=InnoDB;
@@ -0,0 +1,4 @@
+-- Listing preview of each note (the first 101 characters of content, see
+-- Note.previewOf), so the dashboard never reads the TEXT column. Filled by the
+-- entity callbacks for new writes and by NotePreviewBackfill for existing rows.
+ALTER TABLE notes ADD COLUMN content_preview VARCHAR(101) NULL;
@@ -0,0 +1,13 @@
+-- Large notes: bodies too big for the TEXT column are stored as ordered chunks of
+-- raw UTF-8 (see NoteChunkStore). A chunked note keeps content NULL and records
+-- its size in bytes; content_preview is filled from the first chunk.
+ALTER TABLE notes ADD COLUMN chunked BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE notes ADD COLUMN content_size BIGINT NULL;
+
+CREATE TABLE IF NOT EXISTS note_chunks (
+    note_id BIGINT NOT NULL,
+    seq INT NOT NULL,
+    data MEDIUMBLOB NOT NULL,
+    PRIMARY KEY (note_id, seq),
+    CONSTRAINT fk_note_chunks_note FOREIGN KEY (note_id) REFERENCES notes (id) ON DELETE CASCADE
+) ENGINE=InnoDB;
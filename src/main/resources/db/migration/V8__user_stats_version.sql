@@ -0,0 +1,4 @@
+-- Change marker of each user's notes for conditional GETs (ETag / Last-Modified):
+-- milliseconds of the user's last note write, moved forward by at least one on
+-- every write (see NoteDAO.adjustNoteCount). 0 until the user's next write.
+ALTER TABLE user_stats ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
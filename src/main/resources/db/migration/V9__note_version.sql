@@ -0,0 +1,3 @@
+-- Optimistic locking: every update of a note increments version and only applies
+-- when the version is still the one the editor loaded (see Note.version)
+ALTER TABLE notes ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- FULLTEXT index backing search.mode=fulltext
+-- The column list must match MATCH(title, content) in NoteDAO exactly.
+ALTER TABLE notes ADD FULLTEXT INDEX ft_notes_title_content (title, content);
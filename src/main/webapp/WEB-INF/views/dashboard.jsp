@@ -45,6 +45,17 @@
         <button type="button" class="btn btn-light me-2" data-bs-toggle="modal" data-bs-target="#createNoteModal">
           <i class="fas fa-plus me-1"></i> New Note
         </button>
+        <div class="btn-group me-2">
+          <button type="button" class="btn btn-outline-light dropdown-toggle" data-bs-toggle="dropdown" aria-expanded="false">
+            <i class="fas fa-exchange-alt me-1"></i> Import / Export
+          </button>
+          <ul class="dropdown-menu dropdown-menu-end">
+            <li><a class="dropdown-item" href="${pageContext.request.contextPath}/export?format=jsonl">JSON Lines</a></li>
+            <li><a class="dropdown-item" href="${pageContext.request.contextPath}/export?format=csv">CSV</a></li>
+            <li><hr class="dropdown-divider"></li>
+            <li><a class="dropdown-item" href="#" data-bs-toggle="modal" data-bs-target="#importNotesModal">Import notes...</a></li>
+          </ul>
+        </div>
         <a href="${pageContext.request.contextPath}/logout" class="btn btn-outline-light">
           <i class="fas fa-sign-out-alt me-1"></i> Logout
         </a>
@@ -71,10 +82,39 @@
     </div>
   </c:if>
 
+  <!-- Search -->
+  <form action="${pageContext.request.contextPath}/dashboard" method="get" class="mb-4">
+    <div class="input-group">
+      <span class="input-group-text"><i class="fas fa-search"></i></span>
+      <input type="search" class="form-control" name="q" value="<c:out value='${searchTerm}'/>"
+             placeholder="Search your notes...">
+      <button type="submit" class="btn btn-primary">Search</button>
+      <c:if test="${not empty searchTerm}">
+        <a href="${pageContext.request.contextPath}/dashboard" class="btn btn-outline-secondary">Clear</a>
+      </c:if>
+    </div>
+  </form>
+
+  <!-- Bulk actions: the note checkboxes belong to this form -->
+  <form action="${pageContext.request.contextPath}/dashboard" method="post" id="bulkDeleteForm"
+        class="d-none align-items-center gap-2 mb-3">
+    <input type="hidden" name="action" value="bulkDelete">
+    <span class="text-muted"><span id="bulkSelectedCount">0</span> selected</span>
+    <button type="submit" class="btn btn-sm btn-danger"
+            onclick="return confirm('Delete the selected notes? This cannot be undone.')">
+      <i class="fas fa-trash me-1"></i> Delete selected
+    </button>
+    <button type="button" class="btn btn-sm btn-outline-secondary" id="bulkClear">Clear selection</button>
+  </form>
+
+  <c:if test="${not empty searchTerm and empty notes}">
+    <p class="text-muted text-center py-4">No notes match "<c:out value='${searchTerm}'/>".</p>
+  </c:if>
+
   <!-- Notes Grid -->
-  <div class="row">
+  <div class="row" id="notesGrid">
     <c:choose>
-      <c:when test="${empty notes}">
+      <c:when test="${empty notes and firstPage and empty searchTerm}">
         <div class="col-12">
           <div class="text-center py-5">
             <i class="fas fa-sticky-note fa-5x text-muted mb-3"></i>
@@ -88,15 +128,17 @@
       </c:when>
       <c:otherwise>
         <c:forEach var="note" items="${notes}">
-          <div class="col-md-6 col-lg-4 mb-4">
+          <div class="col-md-6 col-lg-4 mb-4 note-col">
             <div class="card note-card h-100">
               <div class="card-body">
                 <h5 class="card-title">
+                  <input type="checkbox" class="form-check-input me-2 note-select" name="ids" value="${note.id}"
+                         form="bulkDeleteForm" aria-label="Select note">
                   <i class="fas fa-sticky-note me-2 text-primary"></i>
                     ${note.title}
                 </h5>
                 <p class="card-text">
-                    ${note.content.length() > 100 ? note.content.substring(0, 100).concat('...') : note.content}
+                    ${note.preview}
                 </p>
                 <div class="d-flex justify-content-between align-items-center">
                   <small class="text-muted">
@@ -104,10 +146,10 @@
                     <fmt:formatDate value="${note.updatedAt}" pattern="MMM dd, yyyy HH:mm"/>
                   </small>
                   <div class="btn-group" role="group">
-                    <button type="button" class="btn btn-sm btn-outline-primary"
-                            onclick="editNote(${note.id}, '${note.title}', '${note.content}')">
+                    <a href="${pageContext.request.contextPath}/note?action=edit&id=${note.id}"
+                       class="btn btn-sm btn-outline-primary">
                       <i class="fas fa-edit"></i>
-                    </button>
+                    </a>
                     <button type="button" class="btn btn-sm btn-outline-danger"
                             onclick="deleteNote(${note.id}, '${note.title}')">
                       <i class="fas fa-trash"></i>
@@ -121,6 +163,21 @@
       </c:otherwise>
     </c:choose>
   </div>
+
+  <!-- Pagination (keyset cursor) -->
+  <div class="d-flex justify-content-center gap-2 mb-5" id="notesPager">
+    <c:if test="${not firstPage}">
+      <a href="${pageContext.request.contextPath}/dashboard" class="btn btn-outline-secondary">
+        <i class="fas fa-angle-double-left me-1"></i> Newest notes
+      </a>
+    </c:if>
+    <c:if test="${not empty nextCursor}">
+      <a href="${pageContext.request.contextPath}/dashboard?cursor=${nextCursor}" class="btn btn-outline-primary"
+         id="loadMoreNotes">
+        <i class="fas fa-angle-down me-1"></i> Load older notes
+      </a>
+    </c:if>
+  </div>
 </div>
 
 <!-- Create Note Modal -->
@@ -156,33 +213,28 @@
   </div>
 </div>
 
-<!-- Edit Note Modal -->
-<div class="modal fade" id="editNoteModal" tabindex="-1">
+<!-- Import Notes Modal -->
+<div class="modal fade" id="importNotesModal" tabindex="-1">
   <div class="modal-dialog">
     <div class="modal-content">
-      <form action="${pageContext.request.contextPath}/dashboard" method="post">
-        <input type="hidden" name="action" value="update">
-        <input type="hidden" name="noteId" id="editNoteId">
+      <form action="${pageContext.request.contextPath}/import" method="post" enctype="multipart/form-data">
         <div class="modal-header">
           <h5 class="modal-title">
-            <i class="fas fa-edit me-2"></i>Edit Note
+            <i class="fas fa-file-import me-2"></i>Import Notes
           </h5>
           <button type="button" class="btn-close" data-bs-dismiss="modal"></button>
         </div>
         <div class="modal-body">
           <div class="mb-3">
-            <label for="editTitle" class="form-label">Title</label>
-            <input type="text" class="form-control" id="editTitle" name="title" required>
-          </div>
-          <div class="mb-3">
-            <label for="editContent" class="form-label">Content</label>
-            <textarea class="form-control" id="editContent" name="content" rows="5" required></textarea>
+            <label for="importFile" class="form-label">File</label>
+            <input type="file" class="form-control" id="importFile" name="file" accept=".jsonl,.json,.csv" required>
           </div>
+          <p class="text-muted small mb-0">JSON Lines, a JSON array or CSV with a header row, as produced by Export.</p>
         </div>
         <div class="modal-footer">
           <button type="button" class="btn btn-secondary" data-bs-dismiss="modal">Cancel</button>
           <button type="submit" class="btn btn-primary">
-            <i class="fas fa-save me-1"></i>Update Note
+            <i class="fas fa-upload me-1"></i>Import
           </button>
         </div>
       </form>
@@ -220,19 +272,68 @@
 
 <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.2/dist/js/bootstrap.bundle.min.js"></script>
 <script>
-  function editNote(id, title, content) {
-    document.getElementById('editNoteId').value = id;
-    document.getElementById('editTitle').value = title;
-    document.getElementById('editContent').value = content;
-    new bootstrap.Modal(document.getElementById('editNoteModal')).show();
-  }
-
   function deleteNote(id, title) {
     document.getElementById('deleteNoteId').value = id;
     document.getElementById('deleteNoteTitle').textContent = title;
     new bootstrap.Modal(document.getElementById('deleteNoteModal')).show();
   }
 
+  // Infinite scroll: fetch the next keyset page and append its cards in place
+  function loadMoreNotes(link) {
+    if (link.dataset.loading) return;
+    link.dataset.loading = 'true';
+    fetch(link.href, { credentials: 'same-origin' })
+      .then(function (response) { return response.text(); })
+      .then(function (html) {
+        const doc = new DOMParser().parseFromString(html, 'text/html');
+        const grid = document.getElementById('notesGrid');
+        doc.querySelectorAll('#notesGrid .note-col').forEach(function (card) {
+          grid.appendChild(document.importNode(card, true));
+        });
+        const next = doc.getElementById('loadMoreNotes');
+        if (next) {
+          link.href = next.href;
+          delete link.dataset.loading;
+        } else {
+          link.remove();
+        }
+      })
+      .catch(function () { window.location = link.href; });
+  }
+
+  const loadMoreLink = document.getElementById('loadMoreNotes');
+  if (loadMoreLink) {
+    loadMoreLink.addEventListener('click', function (event) {
+      event.preventDefault();
+      loadMoreNotes(loadMoreLink);
+    });
+    if ('IntersectionObserver' in window) {
+      new IntersectionObserver(function (entries) {
+        entries.forEach(function (entry) {
+          if (entry.isIntersecting && document.body.contains(loadMoreLink)) {
+            loadMoreNotes(loadMoreLink);
+          }
+        });
+      }).observe(loadMoreLink);
+    }
+  }
+
+  // Bulk selection: show the action bar while any note is checked
+  const bulkForm = document.getElementById('bulkDeleteForm');
+  function updateBulkBar() {
+    const selected = document.querySelectorAll('.note-select:checked').length;
+    document.getElementById('bulkSelectedCount').textContent = selected;
+    bulkForm.classList.toggle('d-none', selected === 0);
+    bulkForm.classList.toggle('d-flex', selected > 0);
+  }
+  document.getElementById('notesGrid').addEventListener('change', function (event) {
+    if (event.target.classList.contains('note-select')) updateBulkBar();
+  });
+  document.getElementById('bulkClear').addEventListener('click', function () {
+    document.querySelectorAll('.note-select:checked').forEach(function (box) { box.checked = false; });
+    updateBulkBar();
+  });
+
   // Clear form when create modal is hidden
   document.getElementById('createNoteModal').addEventListener('hidden.bs.modal', function () {
     document.getElementById('createTitle').value = '';
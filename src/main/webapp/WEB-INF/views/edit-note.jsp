@@ -38,27 +38,67 @@
                 ${error}
             </div>
           </c:if>
-          <form action="note" method="post">
+          <form action="note" method="post" id="noteForm"
+                <c:if test="${not note.chunked}">onsubmit="return savePatch(event, ${note.id})"</c:if>>
             <input type="hidden" name="noteId" value="${note.id}">
+            <!-- Saving fails with a conflict if the note changed after this version was loaded -->
+            <input type="hidden" name="version" value="${note.version}">
             <div class="mb-3">
               <label for="title" class="form-label">Title *</label>
               <input type="text" class="form-control" id="title" name="title"
                      value="${note.title}" placeholder="Enter note title" required>
             </div>
-            <div class="mb-3">
-              <label for="content" class="form-label">Content</label>
-              <textarea class="form-control" id="content" name="content" rows="10"
-                        placeholder="Write your note content here...">${note.content}</textarea>
-            </div>
+            <c:choose>
+              <c:when test="${note.chunked}">
+                <!-- Large note: the body is streamed, not edited in the page -->
+                <div class="mb-3">
+                  <label class="form-label">Content</label>
+                  <div class="form-control bg-light">
+                    <i class="bi bi-file-earmark-text"></i> Large note, ${note.contentSize} bytes -
+                    <a href="note/raw?id=${note.id}" target="_blank">view</a> |
+                    <a href="note/download?id=${note.id}">download</a>
+                  </div>
+                </div>
+              </c:when>
+              <c:otherwise>
+                <div class="mb-3">
+                  <label for="content" class="form-label">Content</label>
+                  <textarea class="form-control" id="content" name="content" rows="10"
+                            placeholder="Write your note content here...">${note.content}</textarea>
+                  <div id="draftStatus" class="form-text"></div>
+                </div>
+              </c:otherwise>
+            </c:choose>
+            <c:if test="${not empty conflictTitle}">
+              <div class="mb-3">
+                <label for="conflictContent" class="form-label">Your unsaved version: <c:out value="${conflictTitle}"/></label>
+                <textarea class="form-control border-warning" id="conflictContent" rows="6"
+                          readonly><c:out value="${conflictContent}"/></textarea>
+              </div>
+            </c:if>
             <div class="d-flex gap-2">
               <button type="submit" class="btn btn-primary">
                 <i class="bi bi-save"></i> Update Note
               </button>
+              <a href="note/revisions?id=${note.id}" class="btn btn-outline-secondary">
+                <i class="bi bi-clock-history"></i> History
+              </a>
               <a href="dashboard" class="btn btn-secondary">
                 <i class="bi bi-arrow-left"></i> Back to Dashboard
               </a>
             </div>
           </form>
+          <hr>
+          <div class="mb-2">
+            <label for="contentFile" class="form-label">Replace content with a text file (any size)</label>
+            <div class="input-group">
+              <input type="file" class="form-control" id="contentFile" accept="text/*,.txt,.md,.log">
+              <button type="button" class="btn btn-outline-primary" onclick="uploadContent(${note.id})">
+                <i class="bi bi-upload"></i> Upload
+              </button>
+            </div>
+            <div id="uploadStatus" class="form-text"></div>
+          </div>
         </div>
       </div>
     </div>
@@ -66,5 +106,134 @@
 </div>
 
 <script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.2/dist/js/bootstrap.bundle.min.js"></script>
+<script>
+  // The file goes out as the raw request body and is stored in chunks as it arrives
+  function uploadContent(id) {
+    const file = document.getElementById('contentFile').files[0];
+    const status = document.getElementById('uploadStatus');
+    if (!file) {
+      status.textContent = 'Choose a file first';
+      return;
+    }
+    status.textContent = 'Uploading ' + file.name + '...';
+    fetch('note/upload?id=' + id, {method: 'POST', headers: {'Content-Type': 'text/plain'}, body: file})
+      .then(response => response.json().then(result => ({ok: response.ok, result: result})))
+      .then(({ok, result}) => {
+        if (ok) {
+          window.location.href = 'dashboard?success=Note updated successfully';
+        } else {
+          status.textContent = result.error || 'Upload failed';
+        }
+      })
+      .catch(() => status.textContent = 'Upload failed');
+  }
+
+  // Form posts carry CRLF line breaks, and so does the stored text
+  function crlf(text) {
+    return text.replace(/\r?\n/g, '\r\n');
+  }
+
+  // 32-bit FNV-1a over UTF-16 code units, as TextPatch.fingerprint computes it
+  function fingerprint(text) {
+    let hash = 0x811c9dc5;
+    for (let i = 0; i < text.length; i++) {
+      hash ^= text.charCodeAt(i);
+      hash = Math.imul(hash, 0x01000193) >>> 0;
+    }
+    return hash.toString(16).padStart(8, '0');
+  }
+
+  // Send only the changed range of the content; any failure falls back to the full form post
+  function savePatch(event, id) {
+    const form = document.getElementById('noteForm');
+    const textarea = document.getElementById('content');
+    const title = document.getElementById('title');
+    if (!form.checkValidity()) {
+      return true;
+    }
+    clearTimeout(draftTimer);
+    draftStopped = true;
+    // Once autosave has written a draft the loaded text is no longer the base
+    if (draftSent || !window.fetch) {
+      return true;
+    }
+    event.preventDefault();
+
+    const base = crlf(textarea.defaultValue);
+    const text = crlf(textarea.value);
+    let start = 0;
+    while (start < base.length && start < text.length && base[start] === text[start]) {
+      start++;
+    }
+    let end = 0;
+    while (end < base.length - start && end < text.length - start
+           && base[base.length - 1 - end] === text[text.length - 1 - end]) {
+      end++;
+    }
+    const patch = {
+      baseVersion: Number(form.elements['version'].value),
+      baseLength: base.length,
+      baseHash: fingerprint(base),
+      title: title.value,
+      edits: base === text ? [] : [{
+        at: start,
+        delete: base.length - end - start,
+        insert: text.substring(start, text.length - end)
+      }]
+    };
+
+    fetch('note/patch?id=' + id, {
+      method: 'PATCH',
+      headers: {'Content-Type': 'application/json'},
+      body: JSON.stringify(patch)
+    })
+      .then(response => {
+        if (response.ok) {
+          window.location.href = 'dashboard?success=Note updated successfully';
+        } else {
+          form.submit();
+        }
+      })
+      .catch(() => form.submit());
+    return false;
+  }
+
+  // Autosave: a second after typing stops the form goes to the draft buffer, which
+  // writes the note in the background; "Update Note" still saves it explicitly
+  let draftSent = false;
+  let draftTimer = null;
+  let draftStopped = false;
+
+  function saveDraft() {
+    const form = document.getElementById('noteForm');
+    const status = document.getElementById('draftStatus');
+    if (draftStopped || !form.checkValidity()) {
+      return;
+    }
+    draftSent = true;
+    fetch('note/draft', {method: 'POST', body: new URLSearchParams(new FormData(form))})
+      .then(response => response.json().then(result => ({status: response.status, result: result})))
+      .then(({status: code, result}) => {
+        if (code === 200) {
+          // Our own background writes move the version; later saves build on it
+          if (result.version > Number(form.elements['version'].value)) {
+            form.elements['version'].value = result.version;
+          }
+          status.textContent = 'Draft saved ' + new Date().toLocaleTimeString();
+        } else {
+          status.textContent = result.error || 'Draft not saved';
+          draftStopped = code === 409 || code === 404;
+        }
+      })
+      .catch(() => status.textContent = 'Draft not saved');
+  }
+
+  if (document.getElementById('content')) {
+    ['title', 'content'].forEach(field => document.getElementById(field).addEventListener('input', () => {
+      clearTimeout(draftTimer);
+      draftTimer = setTimeout(saveDraft, 1000);
+    }));
+  }
+</script>
 </body>
 </html>
\ No newline at end of file
@@ -0,0 +1,105 @@
+<%@ page language="java" contentType="text/html; charset=UTF-8" pageEncoding="UTF-8"%>
+<%@ taglib prefix="c" uri="jakarta.tags.core" %>
+<%@ taglib prefix="fmt" uri="jakarta.tags.fmt" %>
+<c:set var="base" value="${pageContext.request.contextPath}"/>
+<!DOCTYPE html>
+<html>
+<head>
+  <meta charset="UTF-8">
+  <meta name="viewport" content="width=device-width, initial-scale=1.0">
+  <title>Note History - Note Taker</title>
+  <link href="https://cdn.jsdelivr.net/npm/bootstrap@5.3.2/dist/css/bootstrap.min.css" rel="stylesheet">
+  <link href="https://cdn.jsdelivr.net/npm/bootstrap-icons@1.11.1/font/bootstrap-icons.css" rel="stylesheet">
+</head>
+<body>
+<!-- Navigation -->
+<nav class="navbar navbar-expand-lg navbar-dark bg-primary">
+  <div class="container">
+    <a class="navbar-brand" href="${base}/dashboard">
+      <i class="bi bi-journal-text"></i> Note Taker
+    </a>
+    <div class="navbar-nav ms-auto">
+      <span class="navbar-text me-3">Welcome, ${user.username}!</span>
+      <a class="nav-link" href="${base}/logout">
+        <i class="bi bi-box-arrow-right"></i> Logout
+      </a>
+    </div>
+  </div>
+</nav>
+
+<div class="container mt-4">
+  <div class="row justify-content-center">
+    <div class="col-md-10">
+      <div class="card">
+        <div class="card-header">
+          <h3><i class="bi bi-clock-history"></i> History of <c:out value="${note.title}"/></h3>
+        </div>
+        <div class="card-body">
+          <c:if test="${not empty param.error}">
+            <div class="alert alert-danger" role="alert">
+              <c:out value="${param.error}"/>
+            </div>
+          </c:if>
+          <c:choose>
+            <c:when test="${empty revisions}">
+              <p class="text-muted">No earlier versions yet: the history starts with the next save.</p>
+            </c:when>
+            <c:otherwise>
+              <table class="table table-sm align-middle">
+                <thead>
+                  <tr>
+                    <th>Revision</th>
+                    <th>Saved</th>
+                    <th>Title</th>
+                    <th class="text-end">Characters</th>
+                    <th class="text-end">Stored</th>
+                    <th></th>
+                  </tr>
+                </thead>
+                <tbody>
+                  <!-- Newest first: the row after this one is the revision before it -->
+                  <c:forEach var="revision" items="${revisions}" varStatus="row">
+                    <c:set var="previous" value="${row.last ? null : revisions[row.index + 1]}"/>
+                    <tr>
+                      <td>${revision.revision}<c:if test="${row.first}"> <span class="badge bg-secondary">current</span></c:if></td>
+                      <td><fmt:formatDate value="${revision.createdAt}" pattern="MMM dd, yyyy HH:mm"/></td>
+                      <td><c:out value="${revision.title}"/></td>
+                      <td class="text-end">${revision.contentLength}</td>
+                      <td class="text-end">${revision.storedBytes} B ${revision.snapshot ? 'full' : 'delta'}</td>
+                      <td class="text-end text-nowrap">
+                        <a class="btn btn-sm btn-outline-secondary" target="_blank"
+                           href="${base}/note/revisions/view?id=${note.id}&rev=${revision.revision}">View</a>
+                        <a class="btn btn-sm btn-outline-secondary" target="_blank"
+                           href="${base}/note/revisions/diff?id=${note.id}&rev=${revision.revision}<c:if test="${previous != null}">&from=${previous.revision}</c:if>">Changes</a>
+                        <c:if test="${not row.first}">
+                          <form action="${base}/note/revisions/restore" method="post" class="d-inline">
+                            <input type="hidden" name="id" value="${note.id}">
+                            <input type="hidden" name="rev" value="${revision.revision}">
+                            <input type="hidden" name="version" value="${note.version}">
+                            <button type="submit" class="btn btn-sm btn-outline-primary">Restore</button>
+                          </form>
+                        </c:if>
+                      </td>
+                    </tr>
+                  </c:forEach>
+                </tbody>
+              </table>
+            </c:otherwise>
+          </c:choose>
+          <div class="d-flex gap-2">
+            <a href="${base}/note?action=edit&id=${note.id}" class="btn btn-primary">
+              <i class="bi bi-pencil"></i> Edit Note
+            </a>
+            <a href="${base}/dashboard" class="btn btn-secondary">
+              <i class="bi bi-arrow-left"></i> Back to Dashboard
+            </a>
+          </div>
+        </div>
+      </div>
+    </div>
+  </div>
+</div>
+
+<script src="https://cdn.jsdelivr.net/npm/bootstrap@5.3.2/dist/js/bootstrap.bundle.min.js"></script>
+</body>
+</html>
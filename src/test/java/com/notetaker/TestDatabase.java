@@ -0,0 +1,40 @@
+package com.notetaker;
+
+import com.notetaker.dao.UserDAO;
+import com.notetaker.db.MigrationRunner;
+import com.notetaker.model.User;
+import com.notetaker.util.HibernateUtil;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test database - schema and users for the DAO tests
+ * Purpose: Apply the migrations once per test JVM to the in-memory H2 database
+ * of src/test/resources/hibernate.cfg.xml, and register users whose names never
+ * clash, so test classes can share the database.
+ */
+public final class TestDatabase {
+    private static final AtomicLong userCounter = new AtomicLong();
+    private static boolean migrated = false;
+
+    private TestDatabase() {}
+
+    public static synchronized void migrate() throws Exception {
+        if (!migrated) {
+            new MigrationRunner(HibernateUtil.getDataSource()).migrate();
+            migrated = true;
+        }
+    }
+
+    /**
+     * Register a new user; fails the test when that is not possible
+     */
+    public static User newUser(String prefix) {
+        String username = prefix + "_" + userCounter.incrementAndGet() + "_" + System.nanoTime();
+        User user = new User(username, username + "@test.local", "test-password");
+        if (!new UserDAO().saveUser(user)) {
+            throw new IllegalStateException("Could not register test user " + username);
+        }
+        return user;
+    }
+}
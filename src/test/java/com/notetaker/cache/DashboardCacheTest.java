@@ -0,0 +1,65 @@
+package com.notetaker.cache;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.model.Note;
+import com.notetaker.model.User;
+import com.notetaker.util.UnitOfWork;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The dashboard cache must never keep a dashboard older than the last committed
+ * note write of its user
+ */
+class DashboardCacheTest {
+    private static final int PAGE_SIZE = 10;
+
+    private final NoteDAO noteDAO = new NoteDAO();
+    private final DashboardCache dashboardCache = DashboardCache.getInstance();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void loadInsideRequestSeesWriteCommittedAfterVersionRead() throws Exception {
+        User user = TestDatabase.newUser("dashboard");
+        assertTrue(noteDAO.saveNote(new Note("First", "one", user)));
+        dashboardCache.invalidate(user.getId());
+
+        DashboardCache.Entry loaded;
+        long versionBefore;
+        UnitOfWork.beginRequest();
+        try {
+            // As DashboardServlet does: the version read opens the request's transaction...
+            versionBefore = noteDAO.getNoteVersion(user.getId());
+
+            // ...another request commits a note (and invalidates the cache) in between...
+            Thread writer = new Thread(() -> noteDAO.saveNote(new Note("Second", "two", user)));
+            writer.start();
+            writer.join();
+
+            // ...and only then does the cache miss load the dashboard
+            loaded = dashboardCache.get(user.getId(), id -> noteDAO.loadDashboard(user, PAGE_SIZE));
+            UnitOfWork.completeRequest(true);
+        } finally {
+            UnitOfWork.endRequest();
+        }
+
+        assertNotNull(loaded);
+        assertEquals(2, loaded.getNoteCount());
+        assertEquals(2, loaded.getFirstPage().getSize());
+        assertTrue(loaded.getVersion() > versionBefore, "cached version must include the second note");
+
+        DashboardCache.Entry cached = dashboardCache.getIfPresent(user.getId());
+        assertNotNull(cached);
+        assertEquals(2, cached.getNoteCount());
+        assertEquals(loaded.getVersion(), noteDAO.getNoteVersion(user.getId()));
+    }
+}
@@ -0,0 +1,76 @@
+package com.notetaker.cache;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.dao.NoteDAO;
+import com.notetaker.dao.UpdateResult;
+import com.notetaker.model.Note;
+import com.notetaker.model.User;
+import com.notetaker.util.UnitOfWork;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A draft written while a page is being built is committed on its own, before the
+ * page reads the notes version, and stays written whatever becomes of the request
+ */
+class DraftBufferTest {
+    private final NoteDAO noteDAO = new NoteDAO();
+    private final DraftBuffer draftBuffer = DraftBuffer.getInstance();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void flushInsideRequestMovesTheVersionReadAfterIt() {
+        User user = TestDatabase.newUser("draft");
+        Note note = new Note("Draft", "written", user);
+        assertTrue(noteDAO.saveNote(note));
+        // The version is then answered by the dashboard cache
+        DashboardCache.getInstance().get(user.getId(), id -> noteDAO.loadDashboard(user, 10));
+        long versionBefore = noteDAO.getNoteVersion(user.getId());
+        assertEquals(UpdateResult.Status.BUFFERED, draftBuffer.save(note.getId(), user.getId(), "session-1",
+                note.getVersion(), "Draft", "autosaved").getStatus());
+
+        long versionAfter;
+        UnitOfWork.beginRequest();
+        try {
+            // As the edit page does: write the draft, then decide whether to answer 304
+            draftBuffer.flush(note.getId(), user.getId());
+            versionAfter = noteDAO.getNoteVersion(user.getId());
+            UnitOfWork.completeRequest(true);
+        } finally {
+            UnitOfWork.endRequest();
+        }
+
+        assertTrue(versionAfter > versionBefore, "a page validated against the old version would hide the draft");
+        assertEquals(versionAfter, noteDAO.getNoteVersion(user.getId()));
+    }
+
+    @Test
+    void flushSurvivesRollbackOfTheRequest() {
+        User user = TestDatabase.newUser("draft");
+        Note note = new Note("Draft", "written", user);
+        assertTrue(noteDAO.saveNote(note));
+        long loadedVersion = note.getVersion();
+        draftBuffer.save(note.getId(), user.getId(), "session-2", loadedVersion, "Draft", "autosaved");
+
+        UnitOfWork.beginRequest();
+        try {
+            draftBuffer.flush(note.getId(), user.getId());
+            UnitOfWork.completeRequest(false);
+        } finally {
+            UnitOfWork.endRequest();
+        }
+
+        assertEquals("autosaved", noteDAO.getNoteById(note.getId(), user.getId()).getContent());
+        // The editor's next save is checked against the version the draft really wrote
+        UpdateResult saved = draftBuffer.commit(note.getId(), user.getId(), "Draft", "saved", loadedVersion);
+        assertEquals(UpdateResult.Status.UPDATED, saved.getStatus());
+        assertEquals("saved", noteDAO.getNoteById(note.getId(), user.getId()).getContent());
+    }
+}
@@ -0,0 +1,118 @@
+package com.notetaker.dao;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteRevision;
+import com.notetaker.model.User;
+import com.notetaker.util.HibernateUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every revision of a note rebuilds to the text that was saved, across snapshots
+ * and after compaction has dropped and merged revisions around it
+ */
+class NoteRevisionTest {
+    private static final int SAVES = 45;
+
+    private final NoteDAO noteDAO = new NoteDAO();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void everyRevisionRebuildsAcrossSnapshots() {
+        User user = TestDatabase.newUser("revision");
+        Note note = new Note("History", text(0), user);
+        assertTrue(noteDAO.saveNote(note));
+        List<String> saved = saveEdits(note, user);
+
+        List<NoteRevision> revisions = noteDAO.getRevisions(note.getId(), user.getId());
+        assertEquals(saved.size(), revisions.size());
+        // Deltas in between, and snapshots beyond the first one
+        assertTrue(revisions.stream().filter(NoteRevision::isSnapshot).count() >= 3, "no snapshot boundary crossed");
+        assertTrue(revisions.stream().filter(revision -> !revision.isSnapshot()).count() >= SAVES / 2, "no deltas");
+        for (int revision = 1; revision <= saved.size(); revision++) {
+            NoteRevision loaded = noteDAO.getRevision(note.getId(), user.getId(), revision);
+            assertNotNull(loaded, "revision " + revision);
+            assertEquals(saved.get(revision - 1), loaded.getContent(), "revision " + revision);
+        }
+    }
+
+    @Test
+    void compactionKeepsRetainedRevisionsRebuildable() throws Exception {
+        User user = TestDatabase.newUser("revision");
+        Note note = new Note("History", text(0), user);
+        assertTrue(noteDAO.saveNote(note));
+        List<String> saved = saveEdits(note, user);
+        // Ten days ago, two saves per hour: the compaction merges one of each pair
+        long start = System.currentTimeMillis() - 10L * 24 * 3600 * 1000;
+        for (int revision = 1; revision <= saved.size(); revision++) {
+            backdate(note.getId(), revision, start + (revision / 2) * 3600_000L);
+        }
+
+        assertTrue(noteDAO.compactRevisions() > 0);
+
+        List<NoteRevision> kept = noteDAO.getRevisions(note.getId(), user.getId());
+        assertTrue(kept.size() < saved.size() && kept.size() > saved.size() / 3, "kept " + kept.size());
+        assertEquals(saved.size(), kept.get(0).getRevision(), "the newest revision stays");
+        for (NoteRevision revision : kept) {
+            NoteRevision loaded = noteDAO.getRevision(note.getId(), user.getId(), revision.getRevision());
+            assertNotNull(loaded, "revision " + revision.getRevision());
+            assertEquals(saved.get(revision.getRevision() - 1), loaded.getContent(),
+                    "revision " + revision.getRevision());
+        }
+    }
+
+    /**
+     * Save SAVES small edits; returns the text of each revision, the first one being
+     * the note as created
+     */
+    private List<String> saveEdits(Note note, User user) {
+        List<String> saved = new ArrayList<>();
+        saved.add(text(0));
+        for (int i = 1; i <= SAVES; i++) {
+            String content = text(i);
+            assertTrue(noteDAO.updateIfOwned(note.getId(), user.getId(), "History", content, null).isUpdated());
+            saved.add(content);
+        }
+        return saved;
+    }
+
+    /**
+     * A note long enough for a one-line edit to be stored as a delta, with line
+     * edit % 40 rewritten and a line appended every fifth edit
+     */
+    private static String text(int edit) {
+        StringBuilder text = new StringBuilder();
+        for (int line = 0; line < 40 + edit / 5; line++) {
+            text.append("Line ").append(line).append(" of the meeting notes, ");
+            text.append(line == edit % 40 ? "edited in save " + edit : "unchanged since the start").append('\n');
+        }
+        return text.toString();
+    }
+
+    private static void backdate(Long noteId, int revision, long savedAt) throws Exception {
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement update = connection.prepareStatement(
+                     "UPDATE note_revisions SET created_at = ? WHERE note_id = ? AND revision = ?")) {
+            update.setTimestamp(1, new Timestamp(savedAt));
+            update.setLong(2, noteId);
+            update.setInt(3, revision);
+            assertEquals(1, update.executeUpdate());
+            connection.commit();
+        }
+    }
+}
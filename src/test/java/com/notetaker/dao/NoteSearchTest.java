@@ -0,0 +1,69 @@
+package com.notetaker.dao;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.model.CompressedTextConverter;
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteSummary;
+import com.notetaker.model.User;
+import com.notetaker.search.SearchMode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.zip.Deflater;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The database search never matches the Base64 text of a compressed note body;
+ * such notes are found by their title only
+ */
+class NoteSearchTest {
+    private static final String TITLE = "Quarterly kiwi report";
+
+    private final NoteDAO noteDAO = new NoteDAO();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void likeSearchMatchesCompressedNoteByTitleOnly() {
+        User user = TestDatabase.newUser("search");
+        String content = "The harvest went well this quarter. ".repeat(200);
+        assertTrue(noteDAO.saveNote(new Note(TITLE, content, user)));
+        assertTrue(noteDAO.saveNote(new Note("Shopping", "buy apples and pears", user)));
+
+        String stored = CompressedTextConverter.encode(content, 4096, Deflater.BEST_SPEED);
+        assertTrue(stored.startsWith(CompressedTextConverter.MARKER), "the test note must be stored compressed");
+        String base64Term = letterRunOf(stored.substring(CompressedTextConverter.MARKER.length()),
+                (TITLE + content).toLowerCase(Locale.ROOT));
+        assertNotNull(base64Term, "no Base64 fragment to search for");
+
+        assertEquals(List.of(), titles(user, base64Term));
+        assertEquals(List.of(), titles(user, "harvest"));
+        assertEquals(List.of(TITLE), titles(user, "kiwi"));
+        assertEquals(List.of("Shopping"), titles(user, "pears"));
+    }
+
+    private List<String> titles(User user, String term) {
+        return noteDAO.searchNotes(user, term, SearchMode.LIKE).stream().map(NoteSummary::getTitle).toList();
+    }
+
+    /**
+     * Four letters in a row from the stored text that appear nowhere in the note
+     */
+    private static String letterRunOf(String stored, String plainLowerCase) {
+        for (int i = 0; i + 4 <= stored.length(); i++) {
+            String run = stored.substring(i, i + 4);
+            if (run.chars().allMatch(Character::isLetter) && !plainLowerCase.contains(run.toLowerCase(Locale.ROOT))) {
+                return run;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,155 @@
+package com.notetaker.dao;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.model.Note;
+import com.notetaker.model.NoteRevision;
+import com.notetaker.model.User;
+import com.notetaker.util.HibernateUtil;
+import com.notetaker.util.UnitOfWork;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A note update replaces that note only: other notes stay in the second-level cache,
+ * and nobody reads the old state afterwards. The version check tells conflicts from
+ * missing notes.
+ */
+class NoteUpdateTest {
+    private final NoteDAO noteDAO = new NoteDAO();
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void updateEvictsOnlyTheUpdatedNote() {
+        User user = TestDatabase.newUser("update");
+        Note updated = saved(user, "Updated", "before");
+        Note untouched = saved(user, "Untouched", "stays");
+        Note otherUsers = saved(TestDatabase.newUser("update"), "Other", "stays too");
+        Cache cache = HibernateUtil.getSessionFactoryForUser(user.getId()).getCache();
+        for (Note note : new Note[] {updated, untouched, otherUsers}) {
+            noteDAO.getNoteById(note.getId(), note.getUser().getId());
+            assertTrue(cache.containsEntity(Note.class, note.getId()));
+        }
+
+        UpdateResult result = noteDAO.updateIfOwned(updated.getId(), user.getId(), "Updated", "after",
+                updated.getVersion());
+
+        assertEquals(UpdateResult.Status.UPDATED, result.getStatus());
+        assertEquals(updated.getVersion() + 1, result.getVersion());
+        assertFalse(cache.containsEntity(Note.class, updated.getId()));
+        assertTrue(cache.containsEntity(Note.class, untouched.getId()));
+        assertTrue(cache.containsEntity(Note.class, otherUsers.getId()));
+        Note reloaded = noteDAO.getNoteById(updated.getId(), user.getId());
+        assertEquals("after", reloaded.getContent());
+        assertEquals(result.getVersion(), reloaded.getVersion());
+    }
+
+    @Test
+    void requestReadsItsOwnUpdate() {
+        User user = TestDatabase.newUser("update");
+        Note note = saved(user, "Note", "before");
+
+        Note reread;
+        UnitOfWork.beginRequest();
+        try {
+            noteDAO.getNoteById(note.getId(), user.getId());
+            noteDAO.updateIfOwned(note.getId(), user.getId(), "Note", "after", note.getVersion());
+            reread = noteDAO.getNoteById(note.getId(), user.getId());
+            UnitOfWork.completeRequest(true);
+        } finally {
+            UnitOfWork.endRequest();
+        }
+
+        assertEquals("after", reread.getContent());
+        assertEquals(note.getVersion() + 1, reread.getVersion());
+    }
+
+    @Test
+    void updateStoresLargeContentCompressedLikeTheEntity() {
+        User user = TestDatabase.newUser("update");
+        Note note = saved(user, "Long", "short");
+        String content = "A line that repeats a lot. ".repeat(500);
+
+        assertTrue(noteDAO.updateIfOwned(note.getId(), user.getId(), "Long", content, note.getVersion()).isUpdated());
+
+        HibernateUtil.getSessionFactoryForUser(user.getId()).getCache().evictEntityData(Note.class, note.getId());
+        Note reloaded = noteDAO.getNoteById(note.getId(), user.getId());
+        assertEquals(content, reloaded.getContent());
+        assertEquals(Note.previewOf(content), reloaded.getContentPreview());
+    }
+
+    @Test
+    void staleVersionConflictsWithTheCurrentVersion() {
+        User user = TestDatabase.newUser("update");
+        Note note = saved(user, "Note", "first");
+        long stale = note.getVersion();
+        assertTrue(noteDAO.updateIfOwned(note.getId(), user.getId(), "Note", "second", stale).isUpdated());
+
+        UpdateResult result = noteDAO.updateIfOwned(note.getId(), user.getId(), "Note", "lost", stale);
+
+        assertEquals(UpdateResult.Status.CONFLICT, result.getStatus());
+        assertEquals(stale + 1, result.getVersion());
+        assertEquals("second", noteDAO.getNoteById(note.getId(), user.getId()).getContent());
+    }
+
+    @Test
+    void missingOrForeignNoteIsNotFound() {
+        User user = TestDatabase.newUser("update");
+        Note note = saved(user, "Note", "mine");
+        User other = TestDatabase.newUser("update");
+
+        assertEquals(UpdateResult.Status.NOT_FOUND,
+                noteDAO.updateIfOwned(note.getId(), other.getId(), "Taken", "theirs", note.getVersion()).getStatus());
+        assertEquals(UpdateResult.Status.NOT_FOUND,
+                noteDAO.updateIfOwned(note.getId(), other.getId(), "Taken", "theirs", null).getStatus());
+        assertEquals(UpdateResult.Status.NOT_FOUND,
+                noteDAO.updateIfOwned(Long.MAX_VALUE, user.getId(), "Gone", "none", null).getStatus());
+        assertEquals("mine", noteDAO.getNoteById(note.getId(), user.getId()).getContent());
+    }
+
+    @Test
+    void uncheckedUpdatesAdvanceTheVersionAndHistory() {
+        User user = TestDatabase.newUser("update");
+        Note note = saved(user, "Note", "one");
+
+        UpdateResult second = noteDAO.updateIfOwned(note.getId(), user.getId(), "Note", "two", null);
+        UpdateResult renamed = noteDAO.updateIfOwned(note.getId(), user.getId(), "Renamed", null, null);
+
+        assertEquals(note.getVersion() + 1, second.getVersion());
+        assertEquals(note.getVersion() + 2, renamed.getVersion());
+        Note reloaded = noteDAO.getNoteById(note.getId(), user.getId());
+        assertEquals("Renamed", reloaded.getTitle());
+        assertEquals("two", reloaded.getContent());
+        assertEquals(renamed.getVersion(), reloaded.getVersion());
+        // The first update also records the state it replaced
+        assertEquals(List.of("one", "two", "two"), revisionTexts(note.getId(), user.getId()));
+    }
+
+    private List<String> revisionTexts(Long noteId, Long userId) {
+        List<NoteRevision> revisions = new ArrayList<>(noteDAO.getRevisions(noteId, userId));
+        Collections.reverse(revisions);
+        List<String> texts = new ArrayList<>();
+        for (NoteRevision revision : revisions) {
+            texts.add(noteDAO.getRevision(noteId, userId, revision.getRevision()).getContent());
+        }
+        return texts;
+    }
+
+    private Note saved(User user, String title, String content) {
+        Note note = new Note(title, content, user);
+        assertTrue(noteDAO.saveNote(note));
+        return note;
+    }
+}
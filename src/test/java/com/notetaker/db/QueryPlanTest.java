@@ -0,0 +1,108 @@
+package com.notetaker.db;
+
+import com.notetaker.TestDatabase;
+import com.notetaker.util.HibernateUtil;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The login, registration and dashboard queries are answered from the indexes the
+ * migrations create. H2 does not read an index backwards for ORDER BY ... DESC, so
+ * for the first dashboard page it is free to pick either index on user_id; there the
+ * test only checks that no table is scanned and that idx_notes_user_updated exists.
+ */
+class QueryPlanTest {
+    private static final Timestamp NOW = new Timestamp(System.currentTimeMillis());
+
+    @BeforeAll
+    static void setUpDatabase() throws Exception {
+        TestDatabase.migrate();
+    }
+
+    @Test
+    void loginUsesTheUniqueUsernameKey() throws Exception {
+        String plan = explain("SELECT id, username, email, password FROM users WHERE username = ?", "plan");
+
+        assertTrue(plan.contains("UK_USERS_USERNAME"), plan);
+    }
+
+    @Test
+    void registrationUsesTheUniqueEmailKey() throws Exception {
+        String plan = explain("SELECT id FROM users WHERE email = ?", "plan@test.local");
+
+        assertTrue(plan.contains("UK_USERS_EMAIL"), plan);
+    }
+
+    @Test
+    void dashboardNextPageSeeksTheListingIndex() throws Exception {
+        String plan = explain("SELECT id, title, content_preview, updated_at FROM notes WHERE user_id = ? " +
+                "AND updated_at <= ? AND (updated_at < ? OR id < ?) " +
+                "ORDER BY updated_at DESC, id DESC LIMIT 21", 1L, NOW, NOW, Long.MAX_VALUE);
+
+        assertTrue(plan.contains("IDX_NOTES_USER_UPDATED: USER_ID = ?1 AND UPDATED_AT <= ?2"), plan);
+    }
+
+    @Test
+    void dashboardFirstPageReadsAnIndexOnTheUser() throws Exception {
+        String plan = explain("SELECT id, title, content_preview, updated_at FROM notes WHERE user_id = ? " +
+                "ORDER BY updated_at DESC, id DESC LIMIT 21", 1L);
+
+        assertFalse(plan.contains("tableScan"), plan);
+        assertTrue(plan.contains("USER_ID = ?1 */"), plan);
+        assertEquals(List.of("USER_ID", "UPDATED_AT"), indexColumns("IDX_NOTES_USER_UPDATED"));
+    }
+
+    @Test
+    void noteCountFallbackReadsAnIndexOnTheUser() throws Exception {
+        String plan = explain("SELECT COUNT(*) FROM notes WHERE user_id = ?", 1L);
+
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    /**
+     * H2's plan of the query on one line, with the index it reads in a comment after the table
+     */
+    private static String explain(String sql, Object... params) throws SQLException {
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (int i = 0; i < params.length; i++) {
+                explain.setObject(i + 1, params[i]);
+            }
+            try (ResultSet plan = explain.executeQuery()) {
+                assertTrue(plan.next());
+                String text = plan.getString(1).replaceAll("\\s+", " ");
+                connection.commit();
+                return text;
+            }
+        }
+    }
+
+    private static List<String> indexColumns(String index) throws SQLException {
+        List<String> columns = new ArrayList<>();
+        try (Connection connection = HibernateUtil.getDataSource().getConnection();
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT column_name FROM information_schema.index_columns " +
+                             "WHERE table_name = 'NOTES' AND index_name = ? ORDER BY ordinal_position")) {
+            select.setString(1, index);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    columns.add(rows.getString(1));
+                }
+            }
+            connection.commit();
+        }
+        return columns;
+    }
+}
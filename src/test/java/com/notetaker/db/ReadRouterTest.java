@@ -0,0 +1,120 @@
+package com.notetaker.db;
+
+import com.notetaker.util.PooledDataSourceFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Reads go to the replicas by the configured selection, skip unreachable ones and
+ * stay on the primary for a user who has just written
+ */
+class ReadRouterTest {
+    private static final AtomicLong databaseCounter = new AtomicLong();
+
+    private final List<HikariDataSource> replicas = new ArrayList<>();
+
+    @AfterEach
+    void closeReplicas() {
+        for (HikariDataSource replica : replicas) {
+            PooledDataSourceFactory.close(replica);
+        }
+    }
+
+    @Test
+    void roundRobinAlternatesBetweenReplicas() throws Exception {
+        ReadRouter router = new ReadRouter(List.of(replica("a"), replica("b")), ReadRouter.Selection.ROUND_ROBIN, 0);
+
+        List<String> served = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            served.add(readFromReplica(router));
+        }
+
+        assertEquals(List.of("a", "b", "a", "b"), served);
+    }
+
+    @Test
+    void leastLoadedAvoidsTheBusyReplica() throws Exception {
+        ReadRouter router = new ReadRouter(List.of(replica("a"), replica("b")), ReadRouter.Selection.LEAST_LOADED, 0);
+
+        try (Connection busy = replicas.get(0).getConnection()) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals("b", readFromReplica(router));
+            }
+        }
+    }
+
+    @Test
+    void unreachableReplicaFallsBackToTheNextOne() throws Exception {
+        ReadRouter router = new ReadRouter(List.of(replica("a"), replica("b")), ReadRouter.Selection.ROUND_ROBIN, 0);
+        replicas.get(0).close();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("b", readFromReplica(router));
+        }
+
+        replicas.get(1).close();
+        assertThrows(SQLException.class, router::getReplicaConnection);
+    }
+
+    @Test
+    void recentWriterReadsFromPrimaryUntilTheWindowEnds() throws Exception {
+        ReadRouter router = new ReadRouter(List.of(replica("a")), ReadRouter.Selection.ROUND_ROBIN, 200);
+
+        assertTrue(router.canRouteToReplica(1L));
+        router.recordWrite(1L);
+        assertFalse(router.canRouteToReplica(1L), "the writer must see its own change on the primary");
+        assertTrue(router.canRouteToReplica(2L), "other users keep reading from the replica");
+        assertTrue(router.canRouteToReplica(null));
+
+        Thread.sleep(400);
+        assertTrue(router.canRouteToReplica(1L));
+    }
+
+    @Test
+    void withoutReplicasEveryReadStaysOnThePrimary() {
+        ReadRouter router = new ReadRouter(List.of(), ReadRouter.Selection.ROUND_ROBIN, 5_000);
+
+        router.recordWrite(1L);
+        assertFalse(router.canRouteToReplica(1L));
+        assertFalse(router.canRouteToReplica(null));
+    }
+
+    /**
+     * A pool on its own in-memory H2 database that answers with its name
+     */
+    private HikariDataSource replica(String name) throws SQLException {
+        String url = "jdbc:h2:mem:replica_" + databaseCounter.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+        HikariDataSource replica = PooledDataSourceFactory.create("test-replica-" + name + "-" + databaseCounter.get(),
+                "org.h2.Driver", url, "sa", "");
+        replicas.add(replica);
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE replica_name (name VARCHAR(10))");
+            statement.execute("INSERT INTO replica_name VALUES ('" + name + "')");
+            connection.commit();
+        }
+        return replica;
+    }
+
+    private static String readFromReplica(ReadRouter router) throws SQLException {
+        try (Connection connection = router.getReplicaConnection();
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT name FROM replica_name")) {
+            assertTrue(rs.next());
+            return rs.getString(1);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.notetaker.db;
+
+import com.notetaker.util.PooledDataSourceFactory;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A shard gets its copy of a user before the first write of their notes, whether
+ * or not registration managed to make it
+ */
+class ShardRouterTest {
+    private static final AtomicLong userIds = new AtomicLong(1_000);
+
+    private static HikariDataSource primary;
+    private static HikariDataSource shard;
+    private static ShardRouter router;
+
+    @BeforeAll
+    static void setUpShards() throws Exception {
+        primary = database("shard_test_primary");
+        shard = database("shard_test_shard1");
+        router = new ShardRouter(primary, List.of(primary, shard));
+    }
+
+    @AfterAll
+    static void closeShards() {
+        PooledDataSourceFactory.close(primary);
+        PooledDataSourceFactory.close(shard);
+    }
+
+    @Test
+    void firstWriteCopiesUserMissingOnTheShard() throws Exception {
+        long userId = registerUserOnShard(1);
+
+        router.prepareWrite(userId);
+
+        assertEquals(1, count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", userId));
+        assertEquals(1, count(shard, "SELECT COUNT(*) FROM user_stats WHERE user_id = ?", userId));
+        assertEquals(0, count(primary, "SELECT COUNT(*) FROM user_stats WHERE user_id = ?", userId));
+    }
+
+    @Test
+    void copyingAgainKeepsTheExistingRows() throws Exception {
+        long userId = registerUserOnShard(1);
+
+        router.copyUser(userId, 1);
+        router.copyUser(userId, 1);
+        router.prepareWrite(userId);
+
+        assertEquals(1, count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", userId));
+        assertEquals(1, count(shard, "SELECT COUNT(*) FROM user_stats WHERE user_id = ?", userId));
+    }
+
+    @Test
+    void writeForUnknownUserFails() throws Exception {
+        long userId = nextUserIdOnShard(1);
+
+        assertThrows(IllegalStateException.class, () -> router.prepareWrite(userId));
+        assertEquals(0, count(shard, "SELECT COUNT(*) FROM users WHERE id = ?", userId));
+    }
+
+    private static long registerUserOnShard(int shardId) throws SQLException {
+        long userId = nextUserIdOnShard(shardId);
+        try (Connection connection = primary.getConnection();
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO users (id, username, email, password, created_at, updated_at) " +
+                             "VALUES (?, ?, ?, 'secret', ?, ?)")) {
+            Timestamp now = new Timestamp(System.currentTimeMillis());
+            insert.setLong(1, userId);
+            insert.setString(2, "shard_user_" + userId);
+            insert.setString(3, "shard_user_" + userId + "@test.local");
+            insert.setTimestamp(4, now);
+            insert.setTimestamp(5, now);
+            insert.executeUpdate();
+            connection.commit();
+        }
+        return userId;
+    }
+
+    private static long nextUserIdOnShard(int shardId) {
+        long userId;
+        do {
+            userId = userIds.incrementAndGet();
+        } while (router.ringShard(userId) != shardId);
+        return userId;
+    }
+
+    private static long count(HikariDataSource database, String sql, long id) throws SQLException {
+        try (Connection connection = database.getConnection();
+             PreparedStatement select = connection.prepareStatement(sql)) {
+            select.setLong(1, id);
+            try (ResultSet row = select.executeQuery()) {
+                row.next();
+                long count = row.getLong(1);
+                connection.commit();
+                return count;
+            }
+        }
+    }
+
+    private static HikariDataSource database(String name) throws Exception {
+        HikariDataSource database = PooledDataSourceFactory.create(name, "org.h2.Driver",
+                "jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1", "sa", "");
+        new MigrationRunner(database).migrate();
+        return database;
+    }
+}
@@ -0,0 +1,102 @@
+package com.notetaker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * The diff of two texts lists both of them line by line, and its patch turns the
+ * first text into exactly the second
+ */
+class LineDiffTest {
+    private static final String[] LINES = {"alpha\n", "beta\n", "gamma\n", "\n", "beta", "delta\r\n", "épsilon 😀\n"};
+
+    @Test
+    void patchRoundTripsEditsAtAnyPlace() {
+        String[][] pairs = {
+                {"", ""},
+                {"", "new\n"},
+                {"gone\n", ""},
+                {"a\nb\nc\n", "a\nb\nc\n"},
+                {"a\nb\nc\n", "x\nb\nc\n"},
+                {"a\nb\nc\n", "a\nb\nx\n"},
+                {"a\nb\nc\n", "a\nc\n"},
+                {"a\nc\n", "a\nb\nc\n"},
+                {"a\nb", "a\nb\n"},
+                {"a\nb\n", "a\nb"},
+                {"a\nb\n", "a\r\nb\r\n"},
+                {"a\na\na\n", "a\na\n"},
+                {"one\ntwo\nthree\n", "three\ntwo\none\n"},
+                {"the quick brown fox\n", "the quick red fox\n"},
+        };
+        for (String[] pair : pairs) {
+            assertRoundTrip(pair[0], pair[1]);
+        }
+    }
+
+    @Test
+    void patchRoundTripsRandomEdits() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            List<String> from = randomLines(random, random.nextInt(30));
+            List<String> to = new ArrayList<>(from);
+            for (int edits = random.nextInt(6); edits > 0; edits--) {
+                int at = random.nextInt(to.size() + 1);
+                switch (random.nextInt(3)) {
+                    case 0 -> to.add(at, LINES[random.nextInt(LINES.length)]);
+                    case 1 -> { if (at < to.size()) to.remove(at); }
+                    default -> { if (at < to.size()) to.set(at, LINES[random.nextInt(LINES.length)]); }
+                }
+            }
+            assertRoundTrip(String.join("", from), String.join("", to));
+        }
+    }
+
+    @Test
+    void patchRoundTripsTextsTooDifferentForTheLineDiff() {
+        StringBuilder from = new StringBuilder("same start\n");
+        StringBuilder to = new StringBuilder("same start\n");
+        for (int i = 0; i < 1500; i++) {
+            from.append("old line ").append(i).append('\n');
+            to.append("new line ").append(i).append('\n');
+        }
+        from.append("same end");
+        to.append("same end");
+
+        assertRoundTrip(from.toString(), to.toString());
+    }
+
+    @Test
+    void unifiedListsHunksWithTheirContext() {
+        List<LineDiff.Line> diff = LineDiff.diff("a\nb\nc\nd\ne\nf\ng\n", "a\nB\nc\nd\ne\nf\nG");
+
+        assertEquals("@@ -1,3 +1,3 @@\n a\n-b\n+B\n c\n"
+                        + "@@ -6,2 +6,2 @@\n f\n-g\n+G\n\\ No newline at end of file\n",
+                LineDiff.unified(diff, 1));
+        assertEquals("", LineDiff.unified(LineDiff.diff("same\n", "same\n"), 3));
+    }
+
+    private static void assertRoundTrip(String from, String to) {
+        StringBuilder before = new StringBuilder();
+        StringBuilder after = new StringBuilder();
+        for (LineDiff.Line line : LineDiff.diff(from, to)) {
+            if (line.kind() != LineDiff.Kind.INSERTED) before.append(line.text());
+            if (line.kind() != LineDiff.Kind.DELETED) after.append(line.text());
+        }
+        assertEquals(from, before.toString());
+        assertEquals(to, after.toString());
+        assertEquals(to, LineDiff.patch(from, to).apply(from), () -> "patch from " + from + " to " + to);
+    }
+
+    private static List<String> randomLines(Random random, int count) {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            lines.add(LINES[random.nextInt(LINES.length)]);
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,95 @@
+package com.notetaker.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A patch applies its edits at the very start and end of the text as well as in
+ * between, and is refused by any text other than the one it was made against
+ */
+class TextPatchTest {
+
+    @Test
+    void editsAtBothEndsOfTheText() {
+        assertEquals("xabcy", against("abc").add(0, 0, "x").add(3, 0, "y").apply("abc"));
+        assertEquals("Bc", against("abc").add(0, 2, "B").apply("abc"));
+        assertEquals("aB", against("abc").add(1, 2, "B").apply("abc"));
+        assertEquals("", against("abc").add(0, 3, null).apply("abc"));
+        assertEquals("abc", against("abc").apply("abc"));
+    }
+
+    @Test
+    void adjacentEditsApplyInOrder() {
+        assertEquals("XYc", against("abc").add(0, 1, "X").add(1, 1, "Y").apply("abc"));
+        assertEquals("aXYbc", against("abc").add(1, 0, "X").add(1, 0, "Y").apply("abc"));
+    }
+
+    @Test
+    void emptyOrMissingBaseTakesInsertsOnly() {
+        assertEquals("hello", against("").add(0, 0, "hello").apply(""));
+        assertEquals("hello", against("").add(0, 0, "hello").apply(null));
+        assertThrows(IllegalArgumentException.class, () -> against("").add(0, 1, "").apply(""));
+    }
+
+    @Test
+    void offsetsCountUtf16CodeUnits() {
+        String base = "😀a";
+
+        assertEquals("😀b", against(base).add(2, 1, "b").apply(base));
+    }
+
+    @Test
+    void editPastTheEndIsRefused() {
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(2, 2, "").apply("abc"));
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(4, 0, "x").apply("abc"));
+        assertThrows(IllegalArgumentException.class,
+                () -> against("abc").add(Integer.MAX_VALUE, Integer.MAX_VALUE, "").apply("abc"));
+    }
+
+    @Test
+    void negativeOrOverlappingEditsAreRefused() {
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(-1, 0, "x"));
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(0, -1, "x"));
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(0, 2, "x").add(1, 0, "y"));
+        assertThrows(IllegalArgumentException.class, () -> against("abc").add(2, 0, "x").add(1, 0, "y"));
+    }
+
+    @Test
+    void staleBaseIsRefused() {
+        TextPatch patch = against("one\ntwo").add(4, 3, "2");
+
+        assertTrue(patch.matches("one\ntwo"));
+        // Same length, other text
+        assertFalse(patch.matches("one\ntwO"));
+        assertThrows(IllegalArgumentException.class, () -> patch.apply("one\ntwO"));
+        // Same text, other line endings
+        assertFalse(patch.matches("one\r\ntwo"));
+        assertThrows(IllegalArgumentException.class, () -> patch.apply("one\r\ntwo"));
+        assertThrows(IllegalArgumentException.class, () -> patch.apply(null));
+    }
+
+    @Test
+    void binaryFormReadsBackTheSamePatch() throws Exception {
+        TextPatch patch = against("café menu").add(0, 4, "bistro").add(9, 0, "\n– today");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        patch.write(new DataOutputStream(bytes));
+
+        TextPatch read = TextPatch.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertFalse(read.matches("cafe menu"));
+        assertEquals(patch.apply("café menu"), read.apply("café menu"));
+    }
+
+    private static TextPatch against(String base) {
+        return new TextPatch(base.length(), TextPatch.fingerprint(base));
+    }
+}